@@ -1,27 +1,86 @@
 import React, { forwardRef, useImperativeHandle, useRef, memo } from "react";
-import { requireNativeComponent, NativeModules } from "react-native";
+import { NativeEventEmitter, findNodeHandle } from "react-native";
+import NativeCamera, { Commands, type NativeProps } from "./specs/SevenMDCameraNativeComponent";
+import type { Spec } from "./specs/NativeSevenMDCameraModule";
 
-const NativeCamera = requireNativeComponent("SevenMDCamera");
-const { SevenMDCameraModule } = NativeModules;
+// TurboModule lazy: chỉ lấy (và native chỉ khởi tạo) module khi thật sự gọi tới, không phải lúc import file này
+let cameraModule: Spec | null = null;
+function SevenMDCameraModule(): Spec {
+  if (cameraModule == null) {
+    cameraModule = require("./specs/NativeSevenMDCameraModule").default as Spec;
+  }
+  return cameraModule;
+}
 
+// Số liệu hiệu năng cấp process (histogram độ trễ, fps, frame bị drop...)
+export const CameraMetrics = {
+  get() {
+    return SevenMDCameraModule().getMetrics();
+  },
+  reset() {
+    SevenMDCameraModule().resetMetrics();
+  },
+  // Nhận onMetrics mỗi intervalMs; gọi hàm trả về để huỷ
+  subscribe(listener: (metrics: any) => void, intervalMs = 1000) {
+    const emitter = new NativeEventEmitter(SevenMDCameraModule());
+    const sub = emitter.addListener("onMetrics", listener);
+    SevenMDCameraModule().startMetricsUpdates(intervalMs);
+    return () => {
+      sub.remove();
+      SevenMDCameraModule().stopMetricsUpdates();
+    };
+  },
+};
+
+// Kho ảnh trong cacheDir có budget + LRU: pin để giữ, release khi đã dùng xong (vd. upload xong)
+export const CaptureStore = {
+  pin(uri: string): Promise<boolean> {
+    return SevenMDCameraModule().pinPhoto(uri);
+  },
+  release(uri: string): Promise<boolean> {
+    return SevenMDCameraModule().releasePhoto(uri);
+  },
+  setBudget(maxBytes: number, maxCount: number) {
+    SevenMDCameraModule().setCaptureStoreBudget(maxBytes, maxCount);
+  },
+};
+
+// memo so sánh nông mặc định: đổi prop (cameraId, backend, captureMode...) phải tới được native để view mở lại / áp dụng
 export const SevenMDCamera = memo(
-  forwardRef((props, ref) => {
-    const nativeRef = useRef(null);
+  forwardRef((props: NativeProps, ref) => {
+    const nativeRef = useRef<React.ElementRef<typeof NativeCamera>>(null);
+    // Module native định tuyến lệnh theo React tag của view → nhiều camera cùng mount được
+    const viewTag = () => findNodeHandle(nativeRef.current) ?? -1;
 
     useImperativeHandle(ref, () => ({
-      async takePhoto() {
+      // options: { outputs?: [{ maxSide: number, quality?: number }] } → result.outputs cùng thứ tự
+      async takePhoto(options?: { outputs?: { maxSide: number; quality?: number }[] }) {
         try {
-          const result = await SevenMDCameraModule.capture();
+          const result = await SevenMDCameraModule().capture(viewTag(), options ?? null);
           console.log("🎉 Capture result:", result);
-          return result; // { uri: "file://..." }
+          return result; // { uri: "file://...", thumbnail?: { uri, width, height } }
         } catch (err) {
           console.error("Capture error:", err);
           throw err;
         }
       },
+      // { uris: string[], results: { uri, thumbnail? }[], captured, dropped }
+      // Lỗi giữa chừng: reject, err.userInfo cùng dạng với ảnh đã ghi (release được)
+      captureBurst(count: number, intervalMs = 0) {
+        return SevenMDCameraModule().captureBurst(viewTag(), count, intervalMs);
+      },
+      startContinuous(intervalMs = 0) {
+        return SevenMDCameraModule().startContinuousCapture(viewTag(), intervalMs);
+      },
+      stopContinuous() {
+        return SevenMDCameraModule().stopContinuousCapture(viewTag());
+      },
+      // Chụp qua view command (tới thẳng view, không qua module); kết quả qua onPictureSaved / onError
+      shutter() {
+        if (nativeRef.current) Commands.takePhoto(nativeRef.current);
+      },
     }));
 
     return <NativeCamera ref={nativeRef} {...props} />;
-  }),
-  () => true
+  })
 );
@@ -0,0 +1,155 @@
+package com.reactnative.SevenMDCamera;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BurstSession — trạng thái của một phiên chụp liên tiếp (burst hoặc continuous)
+ * - Camera thread: đếm số shot, quyết định shot kế tiếp
+ * - Writer thread: báo file đã ghi xong / lỗi
+ * - Promise chỉ settle khi đã dừng chụp VÀ mọi file đang ghi đã xong
+ * - Kết quả: {uris, results, captured, dropped}; results[i] cùng dạng với capture() ({uri, thumbnail?})
+ * - fail(): vẫn chờ các file đang ghi, reject kèm userInfo = kết quả dở dang → JS biết (và release được) ảnh đã ghi
+ */
+final class BurstSession {
+    /** count <= 0 nghĩa là continuous: chụp đến khi stop() */
+    final int count;
+    final long intervalMs;
+
+    private final List<CaptureResult> results = new ArrayList<>();
+    private int shots = 0;
+    private int dropped = 0;
+    private int pendingWrites = 0;
+    private boolean shotInFlight = false;
+    private boolean stopped = false;
+    private boolean settled = false;
+    @Nullable private String failCode;     // != null: phiên lỗi, settle bằng reject
+    @Nullable private String failMessage;
+    private final List<Promise> waiters = new ArrayList<>();
+    long lastShutterAt = 0;
+
+    BurstSession(int count, long intervalMs, @Nullable Promise promise) {
+        this.count = count;
+        this.intervalMs = Math.max(0, intervalMs);
+        if (promise != null) waiters.add(promise);
+    }
+
+    boolean isContinuous() {
+        return count <= 0;
+    }
+
+    synchronized boolean shouldShootMore() {
+        return !stopped && (isContinuous() || shots < count);
+    }
+
+    /** Đã gọi takePicture(), đang chờ JPEG callback */
+    synchronized void onShutter() {
+        shots++;
+        shotInFlight = true;
+    }
+
+    synchronized void onPictureTaken() {
+        shotInFlight = false;
+    }
+
+    /** Driver báo chụp lỗi (Camera2 onCaptureFailed) → shot đã tính ở onShutter() thành drop */
+    synchronized void onShotFailed() {
+        shotInFlight = false;
+        dropped++;
+    }
+
+    /** Writer đang bão hoà → bỏ hẳn slot này, không gọi takePicture() */
+    synchronized void onSkipped() {
+        shots++;
+        dropped++;
+    }
+
+    synchronized void onWriteQueued() {
+        pendingWrites++;
+    }
+
+    synchronized void onWritten(CaptureResult result) {
+        pendingWrites--;
+        results.add(result);
+    }
+
+    /** Ghi lỗi hoặc writer từ chối job (bỏ frame chủ động, không giữ byte[]) */
+    synchronized void onWriteFailed() {
+        pendingWrites--;
+        dropped++;
+    }
+
+    /** Camera đóng giữa phiên: shot đang chờ JPEG không bao giờ về → tính là drop, không chụp thêm */
+    synchronized void onCameraClosed() {
+        if (shotInFlight) {
+            shotInFlight = false;
+            dropped++;
+        }
+        stopped = true;
+    }
+
+    /** Dừng chụp; promise (nếu có) sẽ resolve khi các file đang ghi xong */
+    synchronized void stop(@Nullable Promise stopPromise) {
+        stopped = true;
+        if (stopPromise == null) return;
+        if (settled) {
+            settle(stopPromise);
+        } else {
+            waiters.add(stopPromise);
+        }
+    }
+
+    /** Gọi sau mỗi sự kiện: nếu đã xong hết thì resolve promise đúng một lần */
+    synchronized void settleIfDone() {
+        if (settled || shotInFlight || pendingWrites > 0 || shouldShootMore()) return;
+        settled = true;
+        for (Promise waiter : waiters) settle(waiter);
+        waiters.clear();
+    }
+
+    private void settle(Promise promise) {
+        if (failCode != null) {
+            promise.reject(failCode, failMessage, buildResult());
+        } else {
+            promise.resolve(buildResult());
+        }
+    }
+
+    private WritableMap buildResult() {
+        WritableArray uris = Arguments.createArray();
+        WritableArray shots = Arguments.createArray();
+        for (CaptureResult r : results) {
+            uris.pushString(r.uri);
+            shots.pushMap(r.toWritableMap());
+        }
+        WritableMap result = Arguments.createMap();
+        result.putArray("uris", uris);
+        result.putArray("results", shots);
+        result.putInt("captured", results.size());
+        result.putInt("dropped", dropped);
+        return result;
+    }
+
+    /**
+     * Lỗi camera → không chụp thêm; shot đang chờ JPEG tính là drop. Promise reject (userInfo = ảnh đã ghi)
+     * khi các file đang ghi xong, để URI đã ghi không mất chủ.
+     */
+    synchronized void fail(String code, String message) {
+        stopped = true;
+        if (settled || failCode != null) return;
+        failCode = code;
+        failMessage = message;
+        if (shotInFlight) {
+            shotInFlight = false;
+            dropped++;
+        }
+        settleIfDone();
+    }
+}
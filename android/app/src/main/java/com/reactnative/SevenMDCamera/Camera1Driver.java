@@ -0,0 +1,130 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.SurfaceTexture;
+import android.hardware.Camera;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Camera1Driver — CameraDriver trên android.hardware.Camera (backend mặc định)
+ * Camera.Parameters đọc từ HAL nhiều nhất một lần mỗi lần open (lần đầu cần tới), sau đó dùng lại:
+ * applySettings() chỉ sửa bản cache rồi setParameters(), preview size/format đọc từ cache.
+ */
+@SuppressWarnings("deprecation")
+final class Camera1Driver implements CameraDriver {
+    static final CameraDriver.Factory FACTORY = Camera1Driver::open;
+
+    private final Camera camera;
+    @Nullable private Camera.Parameters params;   // null = chưa đọc, hoặc setParameters() lỗi (HAL có thể đã đổi một phần)
+    @Nullable private int[] previewSize;
+    private int previewFormat = -1;
+
+    private Camera1Driver(Camera camera) {
+        this.camera = camera;
+    }
+
+    static CameraDriver open(int cameraId) {
+        Camera camera = Camera.open(cameraId);
+        if (camera == null) throw new RuntimeException("Camera.open() returned null");
+        return new Camera1Driver(camera);
+    }
+
+    private Camera.Parameters parameters() {
+        if (params == null) params = camera.getParameters();
+        return params;
+    }
+
+    @Override
+    public CameraCapabilities readCapabilities() {
+        return CameraCapabilities.from(parameters());
+    }
+
+    @Override
+    public void applySettings(CameraSettingsNegotiator.Settings settings) {
+        Camera.Parameters p = parameters();
+        p.setPreviewSize(settings.previewWidth, settings.previewHeight);
+        p.setPictureSize(settings.pictureWidth, settings.pictureHeight);
+        if (settings.fpsRange != null) p.setPreviewFpsRange(settings.fpsRange[0], settings.fpsRange[1]);
+        try {
+            camera.setParameters(p);
+        } catch (RuntimeException e) {
+            params = null;   // bản cache đã mang giá trị HAL từ chối → lần sau đọc lại
+            previewSize = null;
+            previewFormat = -1;
+            throw e;
+        }
+        previewSize = new int[]{settings.previewWidth, settings.previewHeight};
+        previewFormat = p.getPreviewFormat();
+    }
+
+    @Override
+    public int[] previewSize() {
+        if (previewSize == null) readPreviewParameters();
+        return previewSize;
+    }
+
+    @Override
+    public int previewFormat() {
+        if (previewFormat < 0) readPreviewParameters();
+        return previewFormat;
+    }
+
+    private void readPreviewParameters() {
+        Camera.Parameters p = parameters();
+        Camera.Size size = p.getPreviewSize();
+        previewSize = new int[]{size.width, size.height};
+        previewFormat = p.getPreviewFormat();
+    }
+
+    @Override
+    public void setPreviewTexture(SurfaceTexture surface) throws IOException {
+        camera.setPreviewTexture(surface);
+    }
+
+    @Override
+    public void startPreview() {
+        camera.startPreview();
+    }
+
+    @Override
+    public void stopPreview() {
+        camera.stopPreview();
+    }
+
+    @Override
+    public void setPreviewCallbackWithBuffer(@Nullable PreviewCallback callback) {
+        camera.setPreviewCallbackWithBuffer(callback == null ? null : (data, cam) -> callback.onPreviewFrame(data));
+    }
+
+    @Override
+    public void addCallbackBuffer(byte[] buffer) {
+        camera.addCallbackBuffer(buffer);
+    }
+
+    @Override
+    public void takePicture(PictureCallback callback) {
+        camera.takePicture(null, null, (data, cam) -> callback.onPictureTaken(data));
+    }
+
+    @Override
+    public void setErrorCallback(@Nullable ErrorCallback callback) {
+        camera.setErrorCallback(callback == null ? null : (error, cam) -> callback.onCameraError(describeError(error)));
+    }
+
+    private static String describeError(int error) {
+        switch (error) {
+            case Camera.CAMERA_ERROR_EVICTED:     return "Camera evicted by a higher-priority client";
+            case Camera.CAMERA_ERROR_DISABLED:    return "Camera disabled by device policy";
+            case Camera.CAMERA_ERROR_SERVER_DIED: return "Camera service died";
+            default:                              return "Camera error " + error;
+        }
+    }
+
+    @Override
+    public void release() {
+        camera.setErrorCallback(null);   // release() không đồng bộ với event handler → không báo lỗi cho view đã đóng
+        camera.release();
+    }
+}
@@ -0,0 +1,594 @@
+package com.reactnative.SevenMDCamera;
+
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureFailure;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+import android.util.Range;
+import android.util.Size;
+import android.view.Surface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Camera2Driver — CameraDriver trên android.hardware.camera2 (prop backend="camera2")
+ * - Một capture session sống suốt vòng đời driver: preview (SurfaceTexture) + YUV ImageReader (preview frame)
+ *   + JPEG ImageReader; chỉ tạo lại khi size hoặc surface đổi
+ * - Preview là repeating request; takePicture() gửi still request vào cùng session → preview KHÔNG dừng,
+ *   startPreview() sau JPEG callback là no-op (bỏ chu kỳ takePicture → startPreview của Camera1)
+ * - Image được close ngay sau khi copy → ImageReader quay vòng buffer của nó, không cấp phát theo frame
+ * - Preview frame: YUV_420_888 → NV21 vào buffer của addCallbackBuffer() (cùng hợp đồng PreviewBufferPool)
+ * - Device mất sau khi mở (onDisconnected / onError) → ErrorCallback trên owner, view release rồi mở lại
+ *
+ * Camera2 là async: open() / tạo session chặn camera thread (có timeout) chờ callback trên thread
+ * "Camera2Callbacks" riêng, giữ hợp đồng đồng bộ của CameraDriver. Callback preview/JPEG về Looper của thread đã open().
+ * JVM test: open(CameraManager, id) nhận CameraManager → chạy được với ShadowCameraManager + CameraDevice giả.
+ */
+final class Camera2Driver implements CameraDriver {
+    private static final String TAG = "Camera2Driver";
+    static final String SERVICE_BUSY = "Fail to connect to camera service";   // view retry theo chuỗi này như Camera1
+    private static final long OPEN_TIMEOUT_MS = 3000;
+    private static final long SESSION_TIMEOUT_MS = 3000;
+    private static final int JPEG_MAX_IMAGES = 2;
+    private static final int YUV_MAX_IMAGES = 3;
+    private static final byte JPEG_QUALITY = 95;
+
+    private final CameraCharacteristics characteristics;
+    private final HandlerThread callbackThread;
+    private final Handler callbackHandler;
+    private final Handler owner;
+    private final ArrayDeque<byte[]> buffers = new ArrayDeque<>();                 // guarded by itself
+    private final ArrayDeque<PictureCallback> pendingPictures = new ArrayDeque<>(); // guarded by itself
+
+    @Nullable private volatile CameraDevice device;   // null = chưa mở xong / bị disconnect
+    @Nullable private volatile PreviewCallback previewCallback;
+    @Nullable private volatile ErrorCallback errorCallback;
+    private volatile boolean released;
+
+    // Chỉ camera thread
+    @Nullable private CameraSettingsNegotiator.Settings settings;
+    @Nullable private SurfaceTexture surfaceTexture;
+    @Nullable private Surface previewSurface;
+    @Nullable private ImageReader jpegReader;
+    @Nullable private ImageReader yuvReader;
+    @Nullable private CameraCaptureSession session;
+    private boolean sessionDirty = true;
+    private boolean previewing;
+    private boolean repeatingWithFrames;   // repeating request hiện có target YUV
+
+    // Chỉ callback thread: hàng U/V tạm cho YUV → NV21
+    private byte[] uRow = new byte[0];
+    private byte[] vRow = new byte[0];
+
+    private Camera2Driver(CameraCharacteristics characteristics, Looper owner) {
+        this.characteristics = characteristics;
+        this.owner = new Handler(owner);
+        callbackThread = new HandlerThread("Camera2Callbacks");
+        callbackThread.start();
+        callbackHandler = new Handler(callbackThread.getLooper());
+    }
+
+    /**
+     * Camera1 id → Camera2 id (cùng số trên các máy thông thường). false = không có id tương ứng, hoặc
+     * hardware level LEGACY (Camera2 chỉ là lớp bọc HAL1, chậm hơn gọi Camera1 trực tiếp) → dùng Camera1.
+     */
+    static boolean isPreferred(Context context, int cameraId) {
+        CameraManager manager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        if (manager == null) return false;
+        try {
+            String id = String.valueOf(cameraId);
+            if (!Arrays.asList(manager.getCameraIdList()).contains(id)) return false;
+            Integer level = manager.getCameraCharacteristics(id).get(CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL);
+            return level != null && level != CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_LEGACY;
+        } catch (CameraAccessException | RuntimeException e) {
+            Log.w(TAG, "[isPreferred] Không đọc được camera " + cameraId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    static CameraDriver open(Context context, int cameraId) {
+        return open((CameraManager) context.getSystemService(Context.CAMERA_SERVICE), String.valueOf(cameraId));
+    }
+
+    /** Camera thread; chặn tới khi onOpened / onError (tối đa OPEN_TIMEOUT_MS). Ném RuntimeException như Camera.open() */
+    static CameraDriver open(CameraManager manager, String cameraId) {
+        CameraCharacteristics characteristics;
+        try {
+            characteristics = manager.getCameraCharacteristics(cameraId);
+        } catch (CameraAccessException e) {
+            throw asRuntime(e);
+        }
+        Looper looper = Looper.myLooper();
+        Camera2Driver driver = new Camera2Driver(characteristics, looper != null ? looper : Looper.getMainLooper());
+        try {
+            driver.openDevice(manager, cameraId);
+        } catch (RuntimeException e) {
+            driver.release();
+            throw e;
+        }
+        Log.d(TAG, "[open] camera " + cameraId);
+        return driver;
+    }
+
+    private void openDevice(CameraManager manager, String cameraId) {
+        CountDownLatch latch = new CountDownLatch(1);
+        int[] error = {0};   // ghi trước countDown() → thấy được sau await()
+        try {
+            manager.openCamera(cameraId, new CameraDevice.StateCallback() {
+                @Override
+                public void onOpened(@NonNull CameraDevice camera) {
+                    if (released) {   // open() đã timeout / bị release trước khi HAL trả về
+                        camera.close();
+                        return;
+                    }
+                    device = camera;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onDisconnected(@NonNull CameraDevice camera) {
+                    // Client ưu tiên cao hơn lấy camera (lúc mở hoặc đang dùng) → như service bận
+                    Log.w(TAG, "[onDisconnected] camera " + cameraId);
+                    onDeviceLost(camera, CameraDevice.StateCallback.ERROR_CAMERA_IN_USE, "Camera2 device disconnected");
+                }
+
+                @Override
+                public void onError(@NonNull CameraDevice camera, int code) {
+                    Log.e(TAG, "[onError] camera " + cameraId + ", error=" + code);
+                    onDeviceLost(camera, code, "Camera2 device error " + code);
+                }
+
+                /** Callback thread: đang chờ open() → open() ném lỗi; đã mở xong → báo ErrorCallback trên owner */
+                private void onDeviceLost(CameraDevice camera, int code, String message) {
+                    camera.close();
+                    device = null;
+                    if (latch.getCount() > 0) {
+                        error[0] = code;
+                        latch.countDown();
+                        return;
+                    }
+                    owner.post(() -> {
+                        ErrorCallback callback = errorCallback;
+                        if (!released && callback != null) callback.onCameraError(message);
+                    });
+                }
+            }, callbackHandler);
+            if (!latch.await(OPEN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Camera2 open timed out after " + OPEN_TIMEOUT_MS + "ms");
+            }
+        } catch (CameraAccessException e) {
+            throw asRuntime(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Camera2 open interrupted");
+        }
+        if (device == null) {
+            int code = error[0];
+            boolean busy = code == CameraDevice.StateCallback.ERROR_CAMERA_IN_USE
+                    || code == CameraDevice.StateCallback.ERROR_MAX_CAMERAS_IN_USE;
+            throw new RuntimeException(busy ? SERVICE_BUSY : "Camera2 open failed (error " + code + ")");
+        }
+    }
+
+    private static RuntimeException asRuntime(CameraAccessException e) {
+        int reason = e.getReason();
+        boolean busy = reason == CameraAccessException.CAMERA_IN_USE || reason == CameraAccessException.MAX_CAMERAS_IN_USE;
+        return new RuntimeException(busy ? SERVICE_BUSY : "Camera2: " + e.getMessage(), e);
+    }
+
+    @Override
+    public String backend() {
+        return "camera2";
+    }
+
+    // region ===== Parameters =====
+    @Override
+    public CameraCapabilities readCapabilities() {
+        checkUsable();
+        StreamConfigurationMap map = characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        Range<Integer>[] ranges = characteristics.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+        int[][] fps = new int[ranges != null ? ranges.length : 0][];
+        for (int i = 0; i < fps.length; i++) {
+            fps[i] = new int[]{ranges[i].getLower() * 1000, ranges[i].getUpper() * 1000};   // đơn vị Camera1
+        }
+        if (map == null) return new CameraCapabilities(new int[0][], new int[0][], fps, new int[]{ImageFormat.NV21});
+        // Preview phải vừa cả SurfaceTexture lẫn YUV reader (preview frame cùng size)
+        int[][] preview = intersect(map.getOutputSizes(SurfaceTexture.class), map.getOutputSizes(ImageFormat.YUV_420_888));
+        int[][] picture = intersect(map.getOutputSizes(ImageFormat.JPEG), null);
+        return new CameraCapabilities(preview, picture, fps, new int[]{ImageFormat.NV21});
+    }
+
+    private static int[][] intersect(@Nullable Size[] sizes, @Nullable Size[] allowed) {
+        if (sizes == null) return new int[0][];
+        List<int[]> out = new ArrayList<>(sizes.length);
+        for (Size s : sizes) {
+            if (allowed == null || contains(allowed, s)) out.add(new int[]{s.getWidth(), s.getHeight()});
+        }
+        return out.toArray(new int[0][]);
+    }
+
+    private static boolean contains(Size[] sizes, Size size) {
+        for (Size s : sizes) {
+            if (s.getWidth() == size.getWidth() && s.getHeight() == size.getHeight()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void applySettings(CameraSettingsNegotiator.Settings next) {
+        checkUsable();
+        if (next.equals(settings)) return;
+        settings = next;
+        sessionDirty = true;   // size đổi → reader + session tạo lại ở startPreview() kế tiếp
+    }
+
+    @Override
+    public int[] previewSize() {
+        if (settings != null) return new int[]{settings.previewWidth, settings.previewHeight};
+        int[][] sizes = readCapabilities().previewSizes;
+        return sizes.length > 0 ? sizes[0] : new int[]{1280, 720};
+    }
+
+    @Override
+    public int previewFormat() {
+        return ImageFormat.NV21;   // YUV_420_888 được chuyển sang NV21 trước khi giao
+    }
+    // endregion
+
+    // region ===== Preview =====
+    @Override
+    public void setPreviewTexture(SurfaceTexture surface) {
+        checkUsable();
+        if (surface == surfaceTexture) return;
+        surfaceTexture = surface;
+        sessionDirty = true;
+    }
+
+    @Override
+    public void startPreview() {
+        checkUsable();
+        if (previewing) return;   // sau takePicture(): preview chưa từng dừng
+        if (session == null || sessionDirty) createSession();
+        setRepeatingRequest();
+        previewing = true;
+    }
+
+    @Override
+    public void stopPreview() {
+        checkUsable();
+        if (!previewing) return;
+        previewing = false;
+        CameraCaptureSession s = session;
+        if (s == null) return;
+        try {
+            s.stopRepeating();   // session giữ nguyên → startPreview() sau chỉ gửi lại repeating request
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.w(TAG, "[stopPreview] stopRepeating() lỗi: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void setPreviewCallbackWithBuffer(@Nullable PreviewCallback callback) {
+        checkUsable();
+        previewCallback = callback;
+        if (callback == null) {
+            synchronized (buffers) {
+                buffers.clear();
+            }
+        }
+        // Bật/tắt frame chỉ đổi target của repeating request, không tạo lại session
+        if (previewing && (callback != null) != repeatingWithFrames) setRepeatingRequest();
+    }
+
+    @Override
+    public void addCallbackBuffer(byte[] buffer) {
+        synchronized (buffers) {
+            buffers.addLast(buffer);
+        }
+    }
+
+    private void createSession() {
+        CameraDevice camera = device;
+        SurfaceTexture texture = surfaceTexture;
+        if (texture == null) throw new RuntimeException("startPreview failed: no preview surface");
+        closeSession();
+        int[] preview = previewSize();
+        int[] picture = pictureSize();
+        texture.setDefaultBufferSize(preview[0], preview[1]);
+        if (previewSurface != null) previewSurface.release();
+        previewSurface = new Surface(texture);
+        jpegReader = reuseOrCreate(jpegReader, picture, ImageFormat.JPEG, JPEG_MAX_IMAGES, this::onJpegAvailable);
+        yuvReader = reuseOrCreate(yuvReader, preview, ImageFormat.YUV_420_888, YUV_MAX_IMAGES, this::onYuvAvailable);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<CameraCaptureSession> configured = new AtomicReference<>();
+        try {
+            camera.createCaptureSession(Arrays.asList(previewSurface, yuvReader.getSurface(), jpegReader.getSurface()),
+                    new CameraCaptureSession.StateCallback() {
+                        @Override
+                        public void onConfigured(@NonNull CameraCaptureSession s) {
+                            configured.set(s);
+                            latch.countDown();
+                        }
+
+                        @Override
+                        public void onConfigureFailed(@NonNull CameraCaptureSession s) {
+                            latch.countDown();
+                        }
+                    }, callbackHandler);
+            if (!latch.await(SESSION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Camera2 session configuration timed out");
+            }
+        } catch (CameraAccessException e) {
+            throw asRuntime(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Camera2 session configuration interrupted");
+        }
+        session = configured.get();
+        if (session == null) throw new RuntimeException("Camera2 session configuration failed");
+        sessionDirty = false;
+        Log.d(TAG, "[createSession] preview " + preview[0] + "x" + preview[1] + ", picture " + picture[0] + "x" + picture[1]);
+    }
+
+    /** Reader cùng size + format giữ lại (cùng bộ Image buffer), khác thì đóng và tạo mới */
+    private ImageReader reuseOrCreate(@Nullable ImageReader current, int[] size, int format, int maxImages,
+                                      ImageReader.OnImageAvailableListener listener) {
+        if (current != null && current.getWidth() == size[0] && current.getHeight() == size[1]) return current;
+        if (current != null) closeOnCallbackThread(current);
+        ImageReader reader = ImageReader.newInstance(size[0], size[1], format, maxImages);
+        reader.setOnImageAvailableListener(listener, callbackHandler);
+        return reader;
+    }
+
+    private int[] pictureSize() {
+        if (settings != null) return new int[]{settings.pictureWidth, settings.pictureHeight};
+        int[][] sizes = readCapabilities().pictureSizes;
+        return sizes.length > 0 ? sizes[0] : previewSize();
+    }
+
+    private void setRepeatingRequest() {
+        CameraCaptureSession s = session;
+        if (s == null) return;
+        boolean frames = previewCallback != null;
+        try {
+            CaptureRequest.Builder builder = device.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+            builder.addTarget(previewSurface);
+            if (frames) builder.addTarget(yuvReader.getSurface());
+            applyCommon(builder);
+            s.setRepeatingRequest(builder.build(), null, callbackHandler);
+            repeatingWithFrames = frames;
+        } catch (CameraAccessException e) {
+            throw asRuntime(e);
+        }
+    }
+
+    /** AE/AF + fps range đã negotiate, dùng chung cho preview và still */
+    private void applyCommon(CaptureRequest.Builder builder) {
+        builder.set(CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
+        int[] afModes = characteristics.get(CameraCharacteristics.CONTROL_AF_AVAILABLE_MODES);
+        if (afModes != null) {
+            for (int mode : afModes) {
+                if (mode == CameraMetadata.CONTROL_AF_MODE_CONTINUOUS_PICTURE) {
+                    builder.set(CaptureRequest.CONTROL_AF_MODE, mode);
+                    break;
+                }
+            }
+        }
+        if (settings != null && settings.fpsRange != null) {
+            builder.set(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE,
+                    new Range<>(settings.fpsRange[0] / 1000, settings.fpsRange[1] / 1000));
+        }
+    }
+
+    /** Callback thread: frame mới nhất → NV21 vào buffer kế tiếp; hết buffer thì bỏ frame như HAL Camera1 */
+    private void onYuvAvailable(ImageReader reader) {
+        if (released) return;
+        Image image = reader.acquireLatestImage();
+        if (image == null) return;
+        try {
+            PreviewCallback callback = previewCallback;
+            if (callback == null) return;
+            byte[] buffer;
+            synchronized (buffers) {
+                buffer = buffers.pollFirst();
+            }
+            if (buffer == null) return;
+            if (!copyToNv21(image, buffer)) {
+                Log.w(TAG, "[onYuvAvailable] Buffer " + buffer.length + " bytes không vừa frame " + image.getWidth() + "x" + image.getHeight());
+                return;
+            }
+            owner.post(() -> {
+                if (!released && previewCallback == callback) callback.onPreviewFrame(buffer);
+            });
+        } finally {
+            image.close();   // trả Image cho reader ngay → không cần cấp phát Image mới
+        }
+    }
+
+    /** YUV_420_888 (stride bất kỳ) → NV21; U/V cùng row/pixel stride theo đặc tả */
+    private boolean copyToNv21(Image image, byte[] out) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int ySize = width * height;
+        if (out.length < ySize + ySize / 2) return false;
+        Image.Plane[] planes = image.getPlanes();
+
+        ByteBuffer y = planes[0].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        if (yRowStride == width) {
+            y.get(out, 0, ySize);
+        } else {
+            for (int row = 0; row < height; row++) {
+                y.position(row * yRowStride);
+                y.get(out, row * width, width);
+            }
+        }
+
+        ByteBuffer u = planes[1].getBuffer();
+        ByteBuffer v = planes[2].getBuffer();
+        int uvRowStride = planes[1].getRowStride();
+        int uvPixelStride = planes[1].getPixelStride();
+        int chromaWidth = width / 2;
+        int rowBytes = (chromaWidth - 1) * uvPixelStride + 1;   // hàng cuối có thể không đủ rowStride
+        if (uRow.length < rowBytes) {
+            uRow = new byte[rowBytes];
+            vRow = new byte[rowBytes];
+        }
+        int pos = ySize;
+        for (int row = 0; row < height / 2; row++) {
+            u.position(row * uvRowStride);
+            u.get(uRow, 0, rowBytes);
+            v.position(row * uvRowStride);
+            v.get(vRow, 0, rowBytes);
+            for (int col = 0, i = 0; col < chromaWidth; col++, i += uvPixelStride) {
+                out[pos++] = vRow[i];
+                out[pos++] = uRow[i];
+            }
+        }
+        return true;
+    }
+    // endregion
+
+    // region ===== Capture =====
+    @Override
+    public void takePicture(PictureCallback callback) {
+        checkUsable();
+        if (!previewing || session == null) throw new RuntimeException("takePicture failed");   // như Camera1
+        try {
+            CaptureRequest.Builder builder = device.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+            builder.addTarget(previewSurface);   // preview vẫn nhận frame trong lúc chụp
+            builder.addTarget(jpegReader.getSurface());
+            applyCommon(builder);
+            builder.set(CaptureRequest.JPEG_QUALITY, JPEG_QUALITY);
+            builder.set(CaptureRequest.JPEG_ORIENTATION, 0);   // xoay qua EXIF (ExifOrientationPatcher) như đường Camera1
+            builder.setTag(callback);
+            synchronized (pendingPictures) {
+                pendingPictures.addLast(callback);
+            }
+            session.capture(builder.build(), new CameraCaptureSession.CaptureCallback() {
+                @Override
+                public void onCaptureFailed(@NonNull CameraCaptureSession s, @NonNull CaptureRequest request,
+                                            @NonNull CaptureFailure failure) {
+                    onStillFailed((PictureCallback) request.getTag(), failure.getReason());
+                }
+            }, callbackHandler);
+        } catch (CameraAccessException e) {
+            synchronized (pendingPictures) {
+                pendingPictures.remove(callback);
+            }
+            throw asRuntime(e);
+        }
+    }
+
+    /** Callback thread: JPEG theo thứ tự request → callback đầu hàng */
+    private void onJpegAvailable(ImageReader reader) {
+        if (released) return;
+        Image image = reader.acquireNextImage();
+        if (image == null) return;
+        byte[] jpeg;
+        try {
+            ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+            jpeg = new byte[buffer.remaining()];   // byte[] là hợp đồng của PictureCallback / PhotoWriter
+            buffer.get(jpeg);
+        } finally {
+            image.close();
+        }
+        PictureCallback callback;
+        synchronized (pendingPictures) {
+            callback = pendingPictures.pollFirst();
+        }
+        if (callback == null) {
+            Log.w(TAG, "[onJpegAvailable] JPEG không có callback chờ → bỏ");
+            return;
+        }
+        owner.post(() -> {
+            if (!released) callback.onPictureTaken(jpeg);
+        });
+    }
+
+    private void onStillFailed(@Nullable PictureCallback callback, int reason) {
+        Log.e(TAG, "[onStillFailed] Still capture lỗi, reason=" + reason);
+        if (callback == null) return;
+        synchronized (pendingPictures) {
+            if (!pendingPictures.remove(callback)) return;
+        }
+        owner.post(() -> {
+            if (!released) callback.onPictureFailed("Camera2 capture failed (reason " + reason + ")");
+        });
+    }
+    // endregion
+
+    @Override
+    public void setErrorCallback(@Nullable ErrorCallback callback) {
+        errorCallback = callback;   // không checkUsable(): device có thể vừa bị disconnect
+    }
+
+    @Override
+    public void release() {
+        if (released) return;
+        released = true;
+        previewing = false;
+        previewCallback = null;
+        errorCallback = null;
+        synchronized (buffers) {
+            buffers.clear();
+        }
+        synchronized (pendingPictures) {
+            pendingPictures.clear();   // như Camera1: release giữa lúc chụp thì không có JPEG callback
+        }
+        closeSession();
+        CameraDevice camera = device;
+        device = null;
+        if (camera != null) camera.close();
+        if (previewSurface != null) previewSurface.release();
+        previewSurface = null;
+        // Reader đóng trên callback thread, sau các onImageAvailable đang xếp hàng → không acquire trên reader đã đóng
+        if (jpegReader != null) closeOnCallbackThread(jpegReader);
+        if (yuvReader != null) closeOnCallbackThread(yuvReader);
+        jpegReader = null;
+        yuvReader = null;
+        callbackThread.quitSafely();
+        Log.d(TAG, "[release] Đã đóng device + session");
+    }
+
+    private void closeSession() {
+        CameraCaptureSession s = session;
+        session = null;
+        repeatingWithFrames = false;
+        if (s != null) s.close();
+    }
+
+    private void closeOnCallbackThread(ImageReader reader) {
+        if (!callbackHandler.post(reader::close)) reader.close();
+    }
+
+    private void checkUsable() {
+        if (released) throw new RuntimeException("Camera is being used after Camera.release() was called");
+        if (device == null) throw new RuntimeException("Camera2 device disconnected");
+    }
+}
@@ -0,0 +1,60 @@
+package com.reactnative.SevenMDCamera;
+
+import android.hardware.Camera;
+
+import java.util.List;
+
+/**
+ * CameraCapabilities — các giá trị "supported" của một camera, ở dạng mảng int thuần
+ * (không giữ Camera.Parameters → negotiate không cần gọi lại HAL)
+ * Size: {width, height}; fps range: {min, max} (đơn vị fps * 1000 như Camera1)
+ */
+@SuppressWarnings("deprecation")
+final class CameraCapabilities {
+    final int[][] previewSizes;
+    final int[][] pictureSizes;
+    final int[][] fpsRanges;
+    final int[] previewFormats;
+
+    CameraCapabilities(int[][] previewSizes, int[][] pictureSizes, int[][] fpsRanges, int[] previewFormats) {
+        this.previewSizes = previewSizes;
+        this.pictureSizes = pictureSizes;
+        this.fpsRanges = fpsRanges;
+        this.previewFormats = previewFormats;
+    }
+
+    static CameraCapabilities from(Camera.Parameters params) {
+        return new CameraCapabilities(
+                toSizes(params.getSupportedPreviewSizes()),
+                toSizes(params.getSupportedPictureSizes()),
+                toRanges(params.getSupportedPreviewFpsRange()),
+                toInts(params.getSupportedPreviewFormats()));
+    }
+
+    private static int[][] toSizes(List<Camera.Size> sizes) {
+        if (sizes == null) return new int[0][];
+        int[][] out = new int[sizes.size()][];
+        for (int i = 0; i < out.length; i++) {
+            Camera.Size s = sizes.get(i);
+            out[i] = new int[]{s.width, s.height};
+        }
+        return out;
+    }
+
+    private static int[][] toRanges(List<int[]> ranges) {
+        if (ranges == null) return new int[0][];
+        int[][] out = new int[ranges.size()][];
+        for (int i = 0; i < out.length; i++) {
+            int[] r = ranges.get(i);
+            out[i] = new int[]{r[Camera.Parameters.PREVIEW_FPS_MIN_INDEX], r[Camera.Parameters.PREVIEW_FPS_MAX_INDEX]};
+        }
+        return out;
+    }
+
+    private static int[] toInts(List<Integer> values) {
+        if (values == null) return new int[0];
+        int[] out = new int[values.size()];
+        for (int i = 0; i < out.length; i++) out[i] = values.get(i);
+        return out;
+    }
+}
@@ -0,0 +1,263 @@
+package com.reactnative.SevenMDCamera;
+
+import android.content.Context;
+import android.hardware.Camera;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CameraCapabilityIndex — bảng capability của các camera, cache trên đĩa theo device fingerprint
+ * - Supported sizes / fps / formats không đổi với một bản build thiết bị → parse Parameters một lần
+ * - Định dạng nhị phân gọn, đọc bằng mmap lúc module init (thread nền)
+ * - Facing/orientation của mọi camera có sẵn ngay → chọn front/back không cần mở HAL
+ * - Fingerprint hoặc version khác → bỏ file cũ, build lại
+ *
+ * Bố cục file (big-endian):
+ *   magic:int version:int fpLen:int fp:bytes count:int
+ *   count × { id:int facing:int orientation:int hasCaps:byte
+ *             [preview:sizes picture:sizes fps:sizes formats:ints] }
+ *   sizes = n:int, n×{a:int b:int}; ints = n:int, n×int
+ */
+@SuppressWarnings("deprecation")
+final class CameraCapabilityIndex {
+    private static final String TAG = "CameraCapabilityIndex";
+    private static final String FILE_NAME = "sevenmd_camera_caps.bin";
+    private static final int MAGIC = 0x534D4443; // "SMDC"
+    private static final int VERSION = 1;
+
+    static final class Entry {
+        final int cameraId;
+        final int facing;
+        final int orientation;
+        @Nullable final CameraCapabilities capabilities;   // null cho tới lần open đầu tiên
+
+        Entry(int cameraId, int facing, int orientation, @Nullable CameraCapabilities capabilities) {
+            this.cameraId = cameraId;
+            this.facing = facing;
+            this.orientation = orientation;
+            this.capabilities = capabilities;
+        }
+    }
+
+    private static final CameraCapabilityIndex instance = new CameraCapabilityIndex();
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> new Thread(r, "CameraCapabilityIndex"));
+    private volatile Map<Integer, Entry> entries = Collections.emptyMap();   // copy-on-write, ghi dưới lock this
+    private volatile boolean loaded = false;
+    private final Map<Integer, Entry> pending = new HashMap<>();   // put() trước khi load xong; guarded by this
+    @Nullable private volatile File file;
+
+    private CameraCapabilityIndex() {
+    }
+
+    static CameraCapabilityIndex get() {
+        return instance;
+    }
+
+    /** Module init: load file (mmap) trên thread nền; sai fingerprint / thiếu file → build lại bảng facing */
+    synchronized void loadAsync(Context context) {
+        if (file != null) return;
+        file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        File target = file;
+        io.execute(() -> {
+            long start = System.currentTimeMillis();
+            Map<Integer, Entry> map = read(target);
+            boolean dirty = map == null;
+            if (map == null) {
+                map = buildFacingTable();
+                Log.d(TAG, "[loadAsync] Build lại index (" + map.size() + " camera)");
+            }
+            synchronized (this) {
+                // Camera mở trước khi load xong (cold start) → gộp capability đã chờ, không bỏ
+                dirty |= !pending.isEmpty();
+                map.putAll(pending);
+                pending.clear();
+                entries = map;
+                loaded = true;
+            }
+            if (dirty) write(target, map);   // map không còn bị sửa: put() sau đó copy ra map mới
+            Log.d(TAG, "[loadAsync] Sẵn sàng sau " + (System.currentTimeMillis() - start) + "ms");
+        });
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Capability đã cache của camera; null nếu chưa load hoặc camera chưa từng được mở */
+    @Nullable
+    CameraCapabilities capabilities(int cameraId) {
+        Entry e = entries.get(cameraId);
+        return e != null ? e.capabilities : null;
+    }
+
+    @Nullable
+    Entry entry(int cameraId) {
+        return entries.get(cameraId);
+    }
+
+    /** Camera id đầu tiên có facing tương ứng; -1 nếu index chưa sẵn sàng / không có */
+    int findCameraId(int facing) {
+        for (Entry e : entries.values()) {
+            if (e.facing == facing) return e.cameraId;
+        }
+        return -1;
+    }
+
+    /**
+     * Ghi capability của camera vừa mở (camera thread bất kỳ — nhiều view mở song song); lưu xuống đĩa trên
+     * thread io. Read-copy-write dưới lock → không mất entry; chưa load xong → giữ lại, gộp khi load xong.
+     */
+    void put(int cameraId, CameraCapabilities capabilities) {
+        Entry old = entries.get(cameraId);
+        int facing;
+        int orientation;
+        if (old != null) {
+            facing = old.facing;
+            orientation = old.orientation;
+        } else {
+            Camera.CameraInfo info = new Camera.CameraInfo();   // facing/orientation không đổi → hỏi ngoài lock
+            Camera.getCameraInfo(cameraId, info);
+            facing = info.facing;
+            orientation = info.orientation;
+        }
+        Entry entry = new Entry(cameraId, facing, orientation, capabilities);
+        synchronized (this) {
+            Map<Integer, Entry> next = new HashMap<>(entries);
+            next.put(cameraId, entry);
+            entries = next;
+            if (!loaded || file == null) {
+                pending.put(cameraId, entry);
+                return;
+            }
+            File target = file;
+            io.execute(() -> write(target, next));   // submit dưới lock → thứ tự ghi đúng thứ tự snapshot
+        }
+    }
+
+    private static Map<Integer, Entry> buildFacingTable() {
+        Map<Integer, Entry> map = new HashMap<>();
+        int count = Camera.getNumberOfCameras();
+        Camera.CameraInfo info = new Camera.CameraInfo();
+        for (int id = 0; id < count; id++) {
+            try {
+                Camera.getCameraInfo(id, info);
+                map.put(id, new Entry(id, info.facing, info.orientation, null));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "[buildFacingTable] getCameraInfo(" + id + ") lỗi: " + e.getMessage());
+            }
+        }
+        return map;
+    }
+
+    // region ===== Binary I/O =====
+
+    @Nullable
+    private static Map<Integer, Entry> read(File file) {
+        if (!file.exists()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            byte[] fp = new byte[buf.getInt()];
+            buf.get(fp);
+            if (!Build.FINGERPRINT.equals(new String(fp, StandardCharsets.UTF_8))) {
+                Log.d(TAG, "[read] Fingerprint khác (OTA?) → build lại");
+                return null;
+            }
+            int count = buf.getInt();
+            Map<Integer, Entry> map = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                int id = buf.getInt();
+                int facing = buf.getInt();
+                int orientation = buf.getInt();
+                CameraCapabilities caps = null;
+                if (buf.get() != 0) {
+                    caps = new CameraCapabilities(readPairs(buf), readPairs(buf), readPairs(buf), readInts(buf));
+                }
+                map.put(id, new Entry(id, facing, orientation, caps));
+            }
+            return map;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "[read] File hỏng → build lại: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(File file, Map<Integer, Entry> map) {
+        byte[] fp = Build.FINGERPRINT.getBytes(StandardCharsets.UTF_8);
+        int size = 16 + fp.length;
+        for (Entry e : map.values()) {
+            size += 13;
+            CameraCapabilities c = e.capabilities;
+            if (c != null) {
+                size += pairsSize(c.previewSizes) + pairsSize(c.pictureSizes) + pairsSize(c.fpsRanges) + 4 + 4 * c.previewFormats.length;
+            }
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(fp.length).put(fp).putInt(map.size());
+        for (Entry e : map.values()) {
+            buf.putInt(e.cameraId).putInt(e.facing).putInt(e.orientation);
+            CameraCapabilities c = e.capabilities;
+            buf.put((byte) (c != null ? 1 : 0));
+            if (c != null) {
+                writePairs(buf, c.previewSizes);
+                writePairs(buf, c.pictureSizes);
+                writePairs(buf, c.fpsRanges);
+                buf.putInt(c.previewFormats.length);
+                for (int f : c.previewFormats) buf.putInt(f);
+            }
+        }
+        buf.flip();
+
+        // Ghi ra file tạm rồi rename → không bao giờ để lại file nửa vời
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(false);
+        } catch (IOException e) {
+            Log.e(TAG, "[write] Lỗi ghi index: " + e.getMessage(), e);
+            return;
+        }
+        if (!tmp.renameTo(file)) Log.e(TAG, "[write] Không rename được " + tmp.getName());
+    }
+
+    private static int pairsSize(int[][] pairs) {
+        return 4 + 8 * pairs.length;
+    }
+
+    private static void writePairs(ByteBuffer buf, int[][] pairs) {
+        buf.putInt(pairs.length);
+        for (int[] p : pairs) buf.putInt(p[0]).putInt(p[1]);
+    }
+
+    private static int[][] readPairs(ByteBuffer buf) {
+        int[][] out = new int[buf.getInt()][];
+        for (int i = 0; i < out.length; i++) out[i] = new int[]{buf.getInt(), buf.getInt()};
+        return out;
+    }
+
+    private static int[] readInts(ByteBuffer buf) {
+        int[] out = new int[buf.getInt()];
+        for (int i = 0; i < out.length; i++) out[i] = buf.getInt();
+        return out;
+    }
+    // endregion
+}
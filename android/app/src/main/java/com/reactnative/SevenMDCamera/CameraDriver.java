@@ -0,0 +1,87 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.SurfaceTexture;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * CameraDriver — phần của camera mà SevenMDCameraView thật sự dùng, tách khỏi android.hardware.Camera
+ * - Camera1Driver: bản chạy thật (bọc Camera1)
+ * - Camera2Driver: android.hardware.camera2, session + ImageReader giữ suốt vòng đời (prop backend="camera2")
+ * - Bản giả (FakeCameraDriver, src/testFixtures) cài qua CameraDrivers.setFactory() → logic open/retry/restart/capture chạy được
+ *   trên JVM/Robolectric, không cần thiết bị
+ *
+ * Hợp đồng threading giống Camera1: mọi method gọi trên camera thread (thread đã open());
+ * callback preview/JPEG về Looper của thread đó.
+ */
+interface CameraDriver {
+
+    /** Mở camera; ném RuntimeException như Camera.open() (vd. "Fail to connect to camera service") */
+    interface Factory {
+        CameraDriver open(int cameraId);
+    }
+
+    interface PictureCallback {
+        /** JPEG của takePicture(); Camera1 đã tự dừng preview, Camera2 thì preview vẫn chạy (startPreview() sau đó là no-op) */
+        void onPictureTaken(byte[] jpeg);
+
+        /** Chụp lỗi mà driver biết được (Camera2 onCaptureFailed); Camera1 không bao giờ gọi — caller dựa vào timeout */
+        default void onPictureFailed(String reason) {
+        }
+    }
+
+    interface ErrorCallback {
+        /**
+         * Camera mất sau khi open() đã xong (client ưu tiên cao hơn lấy camera, camera service chết...);
+         * về Looper của thread đã open(). Driver không dùng được nữa — caller release() rồi mở lại.
+         */
+        void onCameraError(String message);
+    }
+
+    interface PreviewCallback {
+        /** data là một buffer đã addCallbackBuffer(); driver không dùng lại cho tới khi được add lại */
+        void onPreviewFrame(byte[] data);
+    }
+
+    // region ===== Parameters =====
+
+    /** Các giá trị supported (đọc HAL — caller nên cache qua CameraCapabilityIndex) */
+    CameraCapabilities readCapabilities();
+
+    /** Áp preview size / picture size / fps range đã negotiate. Preview phải đang dừng. */
+    void applySettings(CameraSettingsNegotiator.Settings settings);
+
+    /** {width, height} preview hiện tại */
+    int[] previewSize();
+
+    /** ImageFormat của preview frame (mặc định NV21) */
+    int previewFormat();
+    // endregion
+
+    // region ===== Preview =====
+    void setPreviewTexture(SurfaceTexture surface) throws IOException;
+
+    void startPreview();
+
+    void stopPreview();
+
+    /** null = gỡ callback và bỏ hàng buffer đang chờ */
+    void setPreviewCallbackWithBuffer(@Nullable PreviewCallback callback);
+
+    void addCallbackBuffer(byte[] buffer);
+    // endregion
+
+    void takePicture(PictureCallback callback);
+
+    /** null = gỡ; không bao giờ gọi sau release() */
+    void setErrorCallback(@Nullable ErrorCallback callback);
+
+    /** "camera1" / "camera2" / ... — báo lên JS trong onCameraReady, chọn nguồn capabilities */
+    default String backend() {
+        return "camera1";
+    }
+
+    void release();
+}
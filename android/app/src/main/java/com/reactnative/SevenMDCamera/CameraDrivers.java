@@ -0,0 +1,67 @@
+package com.reactnative.SevenMDCamera;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * CameraDrivers — điểm chọn backend camera cấp process
+ * Mặc định Camera1Driver; build debug / test cài driver giả bằng setFactory() trước khi view mở camera.
+ * Prop backend="camera2" → Camera2Driver nếu máy hỗ trợ (không LEGACY), lỗi thì tự lùi về Camera1.
+ */
+final class CameraDrivers {
+    private static final String TAG = "CameraDrivers";
+
+    /** Backend view yêu cầu qua prop "backend" */
+    enum Backend {
+        CAMERA1, CAMERA2;
+
+        static Backend from(@Nullable String value) {
+            if (value == null) return CAMERA1;
+            switch (value) {
+                case "camera2":
+                    return CAMERA2;
+                case "camera1":
+                default:
+                    return CAMERA1;
+            }
+        }
+    }
+
+    private static volatile CameraDriver.Factory factory = Camera1Driver.FACTORY;
+
+    private CameraDrivers() {
+    }
+
+    /** null → quay về Camera1. Chỉ ảnh hưởng các lần open() sau; camera đang mở / đang giữ ấm giữ nguyên driver cũ. */
+    static void setFactory(@Nullable CameraDriver.Factory next) {
+        factory = next != null ? next : Camera1Driver.FACTORY;
+        Log.d(TAG, "[setFactory] " + (next != null ? next.getClass().getName() : "Camera1Driver"));
+    }
+
+    /** Camera thread; ném RuntimeException như Camera.open() */
+    static CameraDriver open(int cameraId) {
+        return factory.open(cameraId);
+    }
+
+    /**
+     * Camera thread. Factory tự cài (driver giả) luôn thắng prop backend.
+     * Camera2 lỗi vì service bận → ném tiếp để view retry như Camera1; lỗi khác → lùi về Camera1.
+     */
+    static CameraDriver open(Context context, int cameraId, Backend backend) {
+        CameraDriver.Factory current = factory;
+        if (current != Camera1Driver.FACTORY || backend != Backend.CAMERA2) return current.open(cameraId);
+        if (!Camera2Driver.isPreferred(context, cameraId)) {
+            Log.i(TAG, "[open] Camera " + cameraId + " không hỗ trợ Camera2 đầy đủ → Camera1");
+            return current.open(cameraId);
+        }
+        try {
+            return Camera2Driver.open(context, cameraId);
+        } catch (RuntimeException e) {
+            if (Camera2Driver.SERVICE_BUSY.equals(e.getMessage())) throw e;
+            Log.w(TAG, "[open] Camera2 lỗi → Camera1: " + e.getMessage());
+            return current.open(cameraId);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactnative.SevenMDCamera;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.Event;
+
+/**
+ * CameraEvent — direct event của SevenMDCameraView, phát qua EventDispatcher (Fabric)
+ * - Tên phía native là "topX", JS nhận qua prop "onX" (khớp directEventTypes do codegen sinh)
+ * - Không coalesce: burst phát nhiều onPictureSaved liên tiếp cho cùng view, không được gộp mất
+ */
+final class CameraEvent extends Event<CameraEvent> {
+    private final String eventName;
+    @Nullable private final WritableMap payload;
+
+    CameraEvent(int surfaceId, int viewTag, String registrationName, @Nullable WritableMap payload) {
+        super(surfaceId, viewTag);
+        this.eventName = topLevelName(registrationName);
+        this.payload = payload;
+    }
+
+    /** "onCameraReady" → "topCameraReady" */
+    static String topLevelName(String registrationName) {
+        return registrationName.startsWith("on") ? "top" + registrationName.substring(2) : registrationName;
+    }
+
+    @Override
+    public String getEventName() {
+        return eventName;
+    }
+
+    @Override
+    public boolean canCoalesce() {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    protected WritableMap getEventData() {
+        return payload;
+    }
+}
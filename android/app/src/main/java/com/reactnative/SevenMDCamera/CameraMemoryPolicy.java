@@ -0,0 +1,185 @@
+package com.reactnative.SevenMDCamera;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * CameraMemoryPolicy — mức áp lực bộ nhớ của cả camera subsystem, lái từ onTrimMemory()
+ * - NORMAL: budget đầy đủ
+ * - MODERATE (RUNNING_LOW / MODERATE / BACKGROUND...): nửa budget JPEG in-flight, giới hạn picture size,
+ *   release camera đang giữ ấm
+ * - CRITICAL (RUNNING_CRITICAL / COMPLETE / onLowMemory): mỗi lúc chỉ một JPEG chờ ghi, bỏ thumbnail
+ *   và output cần decode, thu nhỏ preview pool / ZSL ring, evict bớt kho ảnh
+ * Không có callback "hết áp lực" → tự hạ một mức sau RECOVERY_MS không nhận trim mới.
+ *
+ * Budget gốc tính theo memoryClass (heap cho phép của app) → máy low-RAM tự có budget nhỏ hơn.
+ */
+final class CameraMemoryPolicy implements ComponentCallbacks2 {
+    private static final String TAG = "CameraMemoryPolicy";
+    private static final long RECOVERY_MS = 30_000;
+    private static final long MIN_IN_FLIGHT_BYTES = 8L * 1024 * 1024;
+
+    enum Level { NORMAL, MODERATE, CRITICAL }
+
+    interface Listener {
+        /** Main thread */
+        void onMemoryLevelChanged(Level level);
+    }
+
+    private static final CameraMemoryPolicy instance = new CameraMemoryPolicy();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Runnable recoverTask = this::recover;
+    private volatile Level level = Level.NORMAL;
+    private volatile long baseInFlightBytes = 32L * 1024 * 1024;
+    private boolean registered = false;   // chỉ main thread
+
+    private CameraMemoryPolicy() {
+    }
+
+    static CameraMemoryPolicy get() {
+        return instance;
+    }
+
+    /** Module init (main thread): đăng ký ComponentCallbacks2 một lần cho cả process */
+    void register(Context context) {
+        if (registered) return;
+        registered = true;
+        Context app = context.getApplicationContext();
+        ActivityManager am = (ActivityManager) app.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am != null) {
+            // 1/8 heap cho JPEG chờ ghi: máy 128MB → 16MB (~4 ảnh 12MP), máy low-RAM thấp hơn nữa
+            long heap = (long) am.getMemoryClass() * 1024 * 1024;
+            baseInFlightBytes = Math.max(MIN_IN_FLIGHT_BYTES, am.isLowRamDevice() ? heap / 16 : heap / 8);
+        }
+        app.registerComponentCallbacks(this);
+        apply(level);
+        Log.d(TAG, "[register] baseInFlightBytes=" + baseInFlightBytes);
+    }
+
+    void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    Level level() {
+        return level;
+    }
+
+    // region ===== Budget theo mức =====
+
+    /** Tổng byte JPEG được phép chờ ghi; 0 = chỉ một ảnh một lúc */
+    long maxInFlightJpegBytes() {
+        switch (level) {
+            case MODERATE: return baseInFlightBytes / 2;
+            case CRITICAL: return 0;
+            default: return baseInFlightBytes;
+        }
+    }
+
+    /** Giới hạn cạnh dài picture size cho các shot sau; 0 = không giới hạn */
+    int pictureMaxSideCap() {
+        switch (level) {
+            case MODERATE: return 2560;
+            case CRITICAL: return 1920;
+            default: return 0;
+        }
+    }
+
+    int previewBufferCount() {
+        return level == Level.CRITICAL ? 2 : PreviewBufferPool.DEFAULT_CAPACITY;
+    }
+
+    int zslSlotCount() {
+        switch (level) {
+            case MODERATE: return ZslRing.DEFAULT_CAPACITY / 2;
+            case CRITICAL: return 1;
+            default: return ZslRing.DEFAULT_CAPACITY;
+        }
+    }
+
+    boolean thumbnailsEnabled() {
+        return level != Level.CRITICAL;
+    }
+
+    /** OutputDeriver: output cần decode bitmap (resize / đổi quality); output cỡ gốc vẫn chép byte */
+    boolean derivedOutputsEnabled() {
+        return level != Level.CRITICAL;
+    }
+    // endregion
+
+    // region ===== ComponentCallbacks2 (main thread) =====
+    @Override
+    public void onTrimMemory(int trimLevel) {
+        Level next;
+        if (trimLevel >= TRIM_MEMORY_COMPLETE || trimLevel == TRIM_MEMORY_RUNNING_CRITICAL) {
+            next = Level.CRITICAL;
+        } else if (trimLevel >= TRIM_MEMORY_BACKGROUND || trimLevel == TRIM_MEMORY_RUNNING_LOW
+                || trimLevel == TRIM_MEMORY_RUNNING_MODERATE) {
+            next = Level.MODERATE;
+        } else {
+            // UI_HIDDEN: không phải áp lực bộ nhớ, chỉ bỏ camera đang giữ ấm
+            WarmCameraHolder.releaseParked();
+            return;
+        }
+        Log.w(TAG, "[onTrimMemory] level=" + trimLevel + " → " + next);
+        raise(next);
+    }
+
+    @Override
+    public void onLowMemory() {
+        Log.w(TAG, "[onLowMemory] → CRITICAL");
+        raise(Level.CRITICAL);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+    // endregion
+
+    private void raise(Level next) {
+        mainHandler.removeCallbacks(recoverTask);
+        mainHandler.postDelayed(recoverTask, RECOVERY_MS);
+        if (next.ordinal() > level.ordinal()) {
+            setLevel(next);
+        } else if (next == Level.CRITICAL) {
+            CaptureStore.get().trim(0.5);   // CRITICAL lặp lại: tiếp tục dọn kho
+        }
+    }
+
+    private void recover() {
+        if (level == Level.NORMAL) return;
+        setLevel(Level.values()[level.ordinal() - 1]);
+        if (level != Level.NORMAL) mainHandler.postDelayed(recoverTask, RECOVERY_MS);
+    }
+
+    private void setLevel(Level next) {
+        Level previous = level;
+        level = next;
+        CameraMetrics.get().onMemoryLevel(next.ordinal());
+        CameraTrace.record(CameraTrace.EV_MEMORY_LEVEL, next.ordinal(), previous.ordinal());
+        Log.w(TAG, "[setLevel] " + previous + " → " + next);
+        apply(next);
+        for (Listener l : listeners) l.onMemoryLevelChanged(next);
+    }
+
+    /** Phần cấp process; phần theo view (preview pool, ZSL, picture size) do listener làm trên camera thread */
+    private void apply(Level next) {
+        PhotoWriter.getInstance().setMaxInFlightBytes(maxInFlightJpegBytes());
+        if (next.ordinal() >= Level.MODERATE.ordinal()) WarmCameraHolder.releaseParked();
+        if (next == Level.CRITICAL) CaptureStore.get().trim(0.5);
+    }
+}
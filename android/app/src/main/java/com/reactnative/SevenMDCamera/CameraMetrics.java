@@ -0,0 +1,129 @@
+package com.reactnative.SevenMDCamera;
+
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CameraMetrics — số liệu hiệu năng camera cấp process, đọc từ JS qua getMetrics() / onMetrics
+ * - Counter + histogram đều lock-free → ghi từ camera thread, writer thread, main thread đều rẻ
+ * - Chỉ snapshot() mới dựng WritableMap; đường nóng không cấp phát
+ * - Preview fps tính trên khoảng giữa hai lần snapshot
+ */
+final class CameraMetrics {
+    private static final CameraMetrics instance = new CameraMetrics();
+
+    final LatencyHistogram openLatency = new LatencyHistogram();          // OPENING → OPEN
+    final LatencyHistogram timeToFirstFrame = new LatencyHistogram();     // yêu cầu mở → frame đầu tiên
+    final LatencyHistogram shutterToJpeg = new LatencyHistogram();        // takePicture() → JPEG callback
+    final LatencyHistogram jpegToFile = new LatencyHistogram();           // JPEG callback → file đã ghi
+    final LatencyHistogram resumeLatency = new LatencyHistogram();        // app/view hiện lại → frame preview đầu tiên
+
+    private final AtomicLong photosWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong previewFrames = new AtomicLong();
+    private final AtomicLong droppedPreviewFrames = new AtomicLong();     // pool cạn buffer
+    private final AtomicLong droppedCaptures = new AtomicLong();          // writer bão hoà / từ chối
+    private final AtomicLong openRetries = new AtomicLong();
+    private final AtomicLong openFailures = new AtomicLong();
+    private final AtomicLong memoryPressureEvents = new AtomicLong();     // lần CameraMemoryPolicy tăng mức
+    private volatile int memoryLevel = 0;                                 // CameraMemoryPolicy.Level.ordinal
+
+    // Chỉ snapshot() đọc/ghi (synchronized)
+    private long fpsWindowStartMs = SystemClock.elapsedRealtime();
+    private long fpsWindowStartFrames = 0;
+    private double lastPreviewFps = 0;
+
+    private CameraMetrics() {
+    }
+
+    static CameraMetrics get() {
+        return instance;
+    }
+
+    // region ===== Ghi (đường nóng) =====
+    void onPreviewFrame() {
+        previewFrames.incrementAndGet();
+    }
+
+    void onPreviewFrameDropped() {
+        droppedPreviewFrames.incrementAndGet();
+    }
+
+    void onPhotoWritten(long bytes, long jpegToFileMs) {
+        photosWritten.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+        jpegToFile.record(jpegToFileMs);
+    }
+
+    void onCaptureDropped() {
+        droppedCaptures.incrementAndGet();
+    }
+
+    void onOpenRetry() {
+        openRetries.incrementAndGet();
+    }
+
+    void onOpenFailed() {
+        openFailures.incrementAndGet();
+    }
+
+    void onMemoryLevel(int level) {
+        if (level > memoryLevel) memoryPressureEvents.incrementAndGet();
+        memoryLevel = level;
+    }
+    // endregion
+
+    synchronized void reset() {
+        openLatency.reset();
+        timeToFirstFrame.reset();
+        shutterToJpeg.reset();
+        jpegToFile.reset();
+        resumeLatency.reset();
+        photosWritten.set(0);
+        bytesWritten.set(0);
+        previewFrames.set(0);
+        droppedPreviewFrames.set(0);
+        droppedCaptures.set(0);
+        openRetries.set(0);
+        openFailures.set(0);
+        memoryPressureEvents.set(0);
+        fpsWindowStartMs = SystemClock.elapsedRealtime();
+        fpsWindowStartFrames = 0;
+        lastPreviewFps = 0;
+    }
+
+    /** Dựng snapshot cho JS; cập nhật preview fps nếu cửa sổ đo đủ dài */
+    synchronized WritableMap snapshot() {
+        long now = SystemClock.elapsedRealtime();
+        long frames = previewFrames.get();
+        long windowMs = now - fpsWindowStartMs;
+        if (windowMs >= 250) {
+            lastPreviewFps = (frames - fpsWindowStartFrames) * 1000.0 / windowMs;
+            fpsWindowStartMs = now;
+            fpsWindowStartFrames = frames;
+        }
+
+        WritableMap map = Arguments.createMap();
+        map.putMap("openLatency", openLatency.toWritableMap());
+        map.putMap("timeToFirstFrame", timeToFirstFrame.toWritableMap());
+        map.putMap("shutterToJpeg", shutterToJpeg.toWritableMap());
+        map.putMap("jpegToFile", jpegToFile.toWritableMap());
+        map.putMap("resumeLatency", resumeLatency.toWritableMap());
+        map.putDouble("photosWritten", photosWritten.get());
+        map.putDouble("bytesWritten", bytesWritten.get());
+        map.putDouble("previewFrames", frames);
+        map.putDouble("previewFps", lastPreviewFps);
+        map.putDouble("droppedPreviewFrames", droppedPreviewFrames.get());
+        map.putDouble("droppedCaptures", droppedCaptures.get());
+        map.putDouble("openRetries", openRetries.get());
+        map.putDouble("openFailures", openFailures.get());
+        map.putInt("memoryLevel", memoryLevel);
+        map.putDouble("memoryPressureEvents", memoryPressureEvents.get());
+        map.putDouble("timestampMs", now);
+        return map;
+    }
+}
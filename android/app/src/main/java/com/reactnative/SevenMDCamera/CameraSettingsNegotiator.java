@@ -0,0 +1,170 @@
+package com.reactnative.SevenMDCamera;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * CameraSettingsNegotiator — chọn preview size / picture size / fps range từ CameraCapabilities
+ * - Preview: size nhỏ nhất vẫn phủ kín view, cùng tỉ lệ khung → giảm băng thông sensor + GPU
+ * - Picture: size lớn nhất không vượt pictureMaxSide, ưu tiên cùng tỉ lệ với preview
+ * - Fps: theo FpsPolicy (mặc định giữ nguyên của HAL)
+ * Hàm thuần, không gọi HAL → chạy lại mỗi lần đổi kích thước view là rẻ.
+ */
+final class CameraSettingsNegotiator {
+    private static final double ASPECT_TOLERANCE = 0.05;
+
+    enum FpsPolicy {
+        DEFAULT(0),          // không đụng vào fps range của HAL
+        FIXED_30(30_000),
+        BATTERY_SAVER(15_000);
+
+        final int targetFpsX1000;
+
+        FpsPolicy(int targetFpsX1000) {
+            this.targetFpsX1000 = targetFpsX1000;
+        }
+
+        static FpsPolicy from(@Nullable String value) {
+            if (value == null) return DEFAULT;
+            switch (value) {
+                case "fixed30": return FIXED_30;
+                case "batterySaver": return BATTERY_SAVER;
+                default: return DEFAULT;
+            }
+        }
+    }
+
+    /** Kết quả negotiate; so sánh bằng equals() để bỏ qua setParameters() khi không đổi */
+    static final class Settings {
+        final int previewWidth, previewHeight;
+        final int pictureWidth, pictureHeight;
+        @Nullable final int[] fpsRange;
+
+        Settings(int previewWidth, int previewHeight, int pictureWidth, int pictureHeight, @Nullable int[] fpsRange) {
+            this.previewWidth = previewWidth;
+            this.previewHeight = previewHeight;
+            this.pictureWidth = pictureWidth;
+            this.pictureHeight = pictureHeight;
+            this.fpsRange = fpsRange;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Settings)) return false;
+            Settings other = (Settings) o;
+            return previewWidth == other.previewWidth && previewHeight == other.previewHeight
+                    && pictureWidth == other.pictureWidth && pictureHeight == other.pictureHeight
+                    && Arrays.equals(fpsRange, other.fpsRange);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((previewWidth * 31 + previewHeight) * 31 + pictureWidth) * 31 + pictureHeight;
+        }
+
+        @Override
+        public String toString() {
+            return "preview=" + previewWidth + "x" + previewHeight + ", picture=" + pictureWidth + "x" + pictureHeight
+                    + ", fps=" + (fpsRange == null ? "default" : fpsRange[0] + "-" + fpsRange[1]);
+        }
+    }
+
+    private CameraSettingsNegotiator() {
+    }
+
+    @Nullable
+    static Settings negotiate(CameraCapabilities caps, int viewWidth, int viewHeight, int pictureMaxSide, FpsPolicy fpsPolicy) {
+        int[] preview = choosePreviewSize(caps.previewSizes, viewWidth, viewHeight);
+        if (preview == null) return null;
+        int[] picture = choosePictureSize(caps.pictureSizes, pictureMaxSide, (double) longSide(preview) / shortSide(preview));
+        if (picture == null) return null;
+        return new Settings(preview[0], preview[1], picture[0], picture[1], chooseFpsRange(caps.fpsRanges, fpsPolicy));
+    }
+
+    /** Size nhỏ nhất phủ kín view trong nhóm có tỉ lệ gần view nhất; không size nào phủ được → size lớn nhất nhóm đó */
+    @Nullable
+    static int[] choosePreviewSize(int[][] sizes, int viewWidth, int viewHeight) {
+        if (sizes.length == 0) return null;
+        if (viewWidth <= 0 || viewHeight <= 0) return largest(sizes);
+        // Sensor trả size dạng landscape → so sánh theo cạnh dài/cạnh ngắn, không theo width/height
+        int viewLong = Math.max(viewWidth, viewHeight);
+        int viewShort = Math.min(viewWidth, viewHeight);
+        double viewAspect = (double) viewLong / viewShort;
+
+        double bestAspectDiff = Double.MAX_VALUE;
+        for (int[] s : sizes) {
+            bestAspectDiff = Math.min(bestAspectDiff, Math.abs((double) longSide(s) / shortSide(s) - viewAspect));
+        }
+
+        int[] bestCovering = null;
+        int[] largestMatching = null;
+        for (int[] s : sizes) {
+            double diff = Math.abs((double) longSide(s) / shortSide(s) - viewAspect);
+            if (diff > bestAspectDiff + ASPECT_TOLERANCE) continue;
+            if (largestMatching == null || area(s) > area(largestMatching)) largestMatching = s;
+            if (longSide(s) >= viewLong && shortSide(s) >= viewShort
+                    && (bestCovering == null || area(s) < area(bestCovering))) {
+                bestCovering = s;
+            }
+        }
+        return bestCovering != null ? bestCovering : largestMatching;
+    }
+
+    /** pictureMaxSide <= 0: lớn nhất có thể */
+    @Nullable
+    static int[] choosePictureSize(int[][] sizes, int pictureMaxSide, double preferredAspect) {
+        if (sizes.length == 0) return null;
+        int[] best = null;
+        boolean bestMatches = false;
+        for (int[] s : sizes) {
+            if (pictureMaxSide > 0 && longSide(s) > pictureMaxSide) continue;
+            boolean matches = Math.abs((double) longSide(s) / shortSide(s) - preferredAspect) <= ASPECT_TOLERANCE;
+            if (best == null || (matches && !bestMatches) || (matches == bestMatches && area(s) > area(best))) {
+                best = s;
+                bestMatches = matches;
+            }
+        }
+        if (best != null) return best;
+        // Mọi size đều vượt ngưỡng → lấy size nhỏ nhất
+        int[] smallest = sizes[0];
+        for (int[] s : sizes) if (area(s) < area(smallest)) smallest = s;
+        return smallest;
+    }
+
+    /** Ưu tiên range cố định (min == max == target), sau đó range có max gần target nhất mà không vượt */
+    @Nullable
+    static int[] chooseFpsRange(int[][] ranges, FpsPolicy policy) {
+        if (policy == FpsPolicy.DEFAULT || ranges.length == 0) return null;
+        int target = policy.targetFpsX1000;
+        int[] best = null;
+        for (int[] r : ranges) {
+            if (r[1] > target) continue;
+            if (best == null || r[1] > best[1] || (r[1] == best[1] && r[0] > best[0])) best = r;
+        }
+        if (best != null) return best;
+        // Không range nào <= target → range có max nhỏ nhất
+        best = ranges[0];
+        for (int[] r : ranges) if (r[1] < best[1]) best = r;
+        return best;
+    }
+
+    private static int longSide(int[] s) {
+        return Math.max(s[0], s[1]);
+    }
+
+    private static int shortSide(int[] s) {
+        return Math.max(1, Math.min(s[0], s[1]));
+    }
+
+    private static long area(int[] s) {
+        return (long) s[0] * s[1];
+    }
+
+    private static int[] largest(int[][] sizes) {
+        int[] best = sizes[0];
+        for (int[] s : sizes) if (area(s) > area(best)) best = s;
+        return best;
+    }
+}
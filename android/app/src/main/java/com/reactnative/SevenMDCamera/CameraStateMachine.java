@@ -0,0 +1,103 @@
+package com.reactnative.SevenMDCamera;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.EnumSet;
+
+/**
+ * CameraStateMachine — trạng thái vòng đời camera, thay cho đống cờ boolean rời rạc
+ * - Chỉ camera thread được chuyển trạng thái (single owner); thread khác chỉ đọc
+ * - Chuyển trạng thái không hợp lệ bị từ chối (trả false) thay vì làm lệch state
+ * - Mỗi lần chuyển ghi lại timestamp để đo latency (open, time-to-preview...)
+ */
+final class CameraStateMachine {
+    private static final String TAG = "CameraStateMachine";
+
+    enum State {
+        CLOSED, OPENING, OPEN, PREVIEWING, CAPTURING, CLOSING;
+
+        /** Camera đã mở (có handle hợp lệ) */
+        boolean hasCamera() {
+            return this == OPEN || this == PREVIEWING || this == CAPTURING;
+        }
+    }
+
+    interface Listener {
+        /** Gọi trên camera thread; elapsedInFromMs = thời gian đã ở trạng thái cũ */
+        void onTransition(State from, State to, long atMs, long elapsedInFromMs);
+    }
+
+    private volatile State state = State.CLOSED;
+    private volatile Thread owner;
+    private final long[] enteredAt = new long[State.values().length];
+    @Nullable private Listener listener;
+
+    private static EnumSet<State> allowedFrom(State from) {
+        switch (from) {
+            case CLOSED:     return EnumSet.of(State.OPENING);
+            case OPENING:    return EnumSet.of(State.OPEN, State.CLOSED, State.CLOSING);
+            case OPEN:       return EnumSet.of(State.PREVIEWING, State.CLOSING);
+            case PREVIEWING: return EnumSet.of(State.OPEN, State.CAPTURING, State.CLOSING);
+            case CAPTURING:  return EnumSet.of(State.PREVIEWING, State.OPEN, State.CLOSING);
+            case CLOSING:    return EnumSet.of(State.CLOSED);
+            default:         return EnumSet.noneOf(State.class);
+        }
+    }
+
+    /** Gắn thread sở hữu (camera thread hiện tại) */
+    void setOwner(@Nullable Thread thread) {
+        owner = thread;
+    }
+
+    void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    State get() {
+        return state;
+    }
+
+    boolean is(State s) {
+        return state == s;
+    }
+
+    /** Timestamp (elapsedRealtime) lần gần nhất vào trạng thái s; 0 nếu chưa từng */
+    long enteredAt(State s) {
+        return enteredAt[s.ordinal()];
+    }
+
+    /**
+     * Chuyển trạng thái. Chỉ gọi trên camera thread.
+     * @return false nếu chuyển không hợp lệ (state giữ nguyên)
+     */
+    boolean transition(State to) {
+        Thread current = Thread.currentThread();
+        if (owner != null && current != owner) {
+            Log.e(TAG, "[transition] " + state + " → " + to + " gọi từ thread '" + current.getName() + "', không phải camera thread");
+            return false;
+        }
+        State from = state;
+        if (from == to) return true;
+        if (!allowedFrom(from).contains(to)) {
+            Log.w(TAG, "[transition] Bỏ qua chuyển không hợp lệ " + from + " → " + to);
+            return false;
+        }
+        long now = SystemClock.elapsedRealtime();
+        long elapsed = now - enteredAt[from.ordinal()];
+        enteredAt[to.ordinal()] = now;
+        state = to;
+        CameraTrace.record(CameraTrace.EV_STATE, from.ordinal(), to.ordinal());
+        if (listener != null) listener.onTransition(from, to, now, elapsed);
+        return true;
+    }
+
+    /** Ép về CLOSED (camera thread đã chết / camera bị thu hồi); không kiểm tra hợp lệ */
+    void forceClosed() {
+        long now = SystemClock.elapsedRealtime();
+        enteredAt[State.CLOSED.ordinal()] = now;
+        state = State.CLOSED;
+    }
+}
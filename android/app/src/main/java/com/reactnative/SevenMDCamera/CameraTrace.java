@@ -0,0 +1,111 @@
+package com.reactnative.SevenMDCamera;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * CameraTrace — trace có cấu trúc, gần như miễn phí, thay cho Log.d nối chuỗi ở đường nóng
+ * - Trace point gate bằng hằng static final → JIT/R8 bỏ hẳn nhánh khi level thấp hơn
+ * - Sự kiện = mã int + 2 long, ghi vào ring buffer cấp phát sẵn, không khoá, không cấp phát
+ * - Mỗi slot mang số thứ tự (seqlock): dump() bỏ slot đang bị ghi dở hoặc đã bị vòng sau ghi đè
+ * - dump() chỉ dựng chuỗi khi cần (gắn vào onError, hoặc JS gọi dumpTrace)
+ *
+ * Dùng: {@code if (CameraTrace.ENABLED) CameraTrace.record(CameraTrace.EV_JPEG, bytes, 0);}
+ */
+final class CameraTrace {
+    static final int LEVEL_OFF = 0;
+    static final int LEVEL_EVENTS = 1;     // sự kiện vòng đời, capture, lỗi
+    static final int LEVEL_VERBOSE = 2;    // thêm sự kiện theo từng frame
+
+    /** Đổi level tại đây; là hằng compile-time nên trace point ở level cao hơn không tốn gì */
+    static final int LEVEL = LEVEL_EVENTS;
+    static final boolean ENABLED = LEVEL >= LEVEL_EVENTS;
+    static final boolean VERBOSE = LEVEL >= LEVEL_VERBOSE;
+
+    // region ===== Mã sự kiện =====
+    static final int EV_STATE = 1;              // a = from.ordinal, b = to.ordinal
+    static final int EV_OPEN_BEGIN = 2;         // a = cameraId, b = warm ? 1 : 0
+    static final int EV_OPEN_END = 3;           // a = cameraId, b = openMs
+    static final int EV_OPEN_FAIL = 4;          // a = cameraId, b = retryCount
+    static final int EV_CLOSE = 5;              // a = cameraId
+    static final int EV_SURFACE_AVAILABLE = 6;  // a = width, b = height
+    static final int EV_SURFACE_SIZE = 7;       // a = width, b = height
+    static final int EV_SURFACE_DESTROYED = 8;
+    static final int EV_RESTART_PREVIEW = 9;    // a = state.ordinal
+    static final int EV_FIRST_FRAME = 10;       // a = time-to-first-frame ms
+    static final int EV_FRAME = 11;             // a = state.ordinal (VERBOSE)
+    static final int EV_CAPTURE_BEGIN = 12;     // a = burst ? 1 : 0
+    static final int EV_JPEG = 13;              // a = bytes, b = shutter→JPEG ms
+    static final int EV_WRITE_DONE = 14;        // a = bytes, b = JPEG→file ms
+    static final int EV_WRITE_DROPPED = 15;
+    static final int EV_ERROR = 16;             // a = mã phụ tuỳ nơi gọi
+    static final int EV_SUSPEND = 17;           // a = state.ordinal, b = release ngay ? 1 : 0
+    static final int EV_RESUME = 18;            // a = warm ? 1 : 0
+    static final int EV_RESUME_FRAME = 19;      // a = resume → frame đầu tiên ms, b = warm ? 1 : 0
+    static final int EV_MEMORY_LEVEL = 20;      // a = mức mới, b = mức cũ (CameraMemoryPolicy.Level.ordinal)
+
+    private static final String[] NAMES = {
+            "?", "STATE", "OPEN_BEGIN", "OPEN_END", "OPEN_FAIL", "CLOSE", "SURFACE_AVAILABLE",
+            "SURFACE_SIZE", "SURFACE_DESTROYED", "RESTART_PREVIEW", "FIRST_FRAME", "FRAME",
+            "CAPTURE_BEGIN", "JPEG", "WRITE_DONE", "WRITE_DROPPED", "ERROR", "SUSPEND", "RESUME", "RESUME_FRAME",
+            "MEMORY_LEVEL"
+    };
+    // endregion
+
+    private static final int CAPACITY = 1024;            // số sự kiện, luỹ thừa của 2
+    private static final int MASK = CAPACITY - 1;
+    private static final int SLOT = 5;                   // seq, time, code, a, b
+    private static final AtomicLongArray ring = new AtomicLongArray(CAPACITY * SLOT);
+    private static final AtomicLong cursor = new AtomicLong();
+
+    private CameraTrace() {
+    }
+
+    /**
+     * Ghi một sự kiện. Không khoá, không cấp phát; writer đồng thời chỉ tranh nhau chỉ số.
+     * seq = 0 trong lúc ghi, = index + 1 khi xong; lazySet là store-release nên reader thấy seq
+     * mới thì cũng thấy đủ 4 trường của nó.
+     */
+    static void record(int code, long a, long b) {
+        if (!ENABLED) return;
+        long index = cursor.getAndIncrement();
+        int base = (int) (index & MASK) * SLOT;
+        ring.set(base, 0);
+        ring.lazySet(base + 1, SystemClock.elapsedRealtimeNanos());
+        ring.lazySet(base + 2, code);
+        ring.lazySet(base + 3, a);
+        ring.lazySet(base + 4, b);
+        ring.lazySet(base, index + 1);
+    }
+
+    /**
+     * Dựng chuỗi từ tối đa maxEvents sự kiện gần nhất (cũ → mới). Chỉ gọi khi cần chẩn đoán.
+     * Slot có seq khác index + 1 (đang ghi dở, hoặc writer đã vòng qua) hay seq đổi giữa hai lần
+     * đọc thì bị bỏ qua — thà thiếu một dòng còn hơn in dòng ghép từ hai sự kiện.
+     */
+    static String dump(int maxEvents) {
+        long end = cursor.get();
+        long start = Math.max(0, end - Math.min(maxEvents, CAPACITY));
+        if (start == end) return "";
+        long t0 = -1;
+        StringBuilder sb = new StringBuilder((int) (end - start) * 40);
+        for (long i = start; i < end; i++) {
+            int base = (int) (i & MASK) * SLOT;
+            if (ring.get(base) != i + 1) continue;
+            long time = ring.get(base + 1);
+            int code = (int) ring.get(base + 2);
+            long a = ring.get(base + 3);
+            long b = ring.get(base + 4);
+            if (ring.get(base) != i + 1) continue;
+            if (t0 < 0) t0 = time;
+            sb.append('+').append((time - t0) / 1_000_000).append("ms ")
+                    .append(code > 0 && code < NAMES.length ? NAMES[code] : "?")
+                    .append(" a=").append(a)
+                    .append(" b=").append(b)
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+}
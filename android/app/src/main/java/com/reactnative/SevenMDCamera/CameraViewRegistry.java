@@ -0,0 +1,42 @@
+package com.reactnative.SevenMDCamera;
+
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CameraViewRegistry — các SevenMDCameraView đang sống, key theo React view tag
+ * - Giữ WeakReference: registry không bao giờ giữ view đã unmount
+ * - Gỡ khi ViewManager drop view; entry chết (GC) tự bị dọn khi tra cứu
+ */
+final class CameraViewRegistry {
+    private static final Map<Integer, WeakReference<SevenMDCameraView>> views = new ConcurrentHashMap<>();
+
+    private CameraViewRegistry() {
+    }
+
+    static void register(SevenMDCameraView view) {
+        views.put(view.getId(), new WeakReference<>(view));
+    }
+
+    static void unregister(SevenMDCameraView view) {
+        views.remove(view.getId(), lookupRef(view.getId(), view));
+    }
+
+    @Nullable
+    static SevenMDCameraView get(int viewTag) {
+        WeakReference<SevenMDCameraView> ref = views.get(viewTag);
+        if (ref == null) return null;
+        SevenMDCameraView view = ref.get();
+        if (view == null) views.remove(viewTag, ref);
+        return view;
+    }
+
+    @Nullable
+    private static WeakReference<SevenMDCameraView> lookupRef(int viewTag, SevenMDCameraView view) {
+        WeakReference<SevenMDCameraView> ref = views.get(viewTag);
+        return ref != null && ref.get() == view ? ref : null;
+    }
+}
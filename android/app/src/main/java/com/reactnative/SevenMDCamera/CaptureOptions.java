@@ -0,0 +1,77 @@
+package com.reactnative.SevenMDCamera;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CaptureOptions — tuỳ chọn của một lần capture() từ JS, đã parse khỏi bridge
+ * { outputs?: [{maxSide: number, quality?: number}] }
+ * So sánh bằng equals() để CaptureScheduler chỉ coalesce các request cùng tuỳ chọn.
+ */
+final class CaptureOptions {
+    static final CaptureOptions DEFAULT = new CaptureOptions(Collections.emptyList());
+    static final int DEFAULT_QUALITY = 90;
+
+    /** Một bản JPEG dẫn xuất: cạnh dài <= maxSide, nén với quality (0..100) */
+    static final class OutputSpec {
+        final int maxSide;
+        final int quality;
+
+        OutputSpec(int maxSide, int quality) {
+            this.maxSide = maxSide;
+            this.quality = quality;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof OutputSpec)) return false;
+            OutputSpec other = (OutputSpec) o;
+            return maxSide == other.maxSide && quality == other.quality;
+        }
+
+        @Override
+        public int hashCode() {
+            return maxSide * 31 + quality;
+        }
+    }
+
+    final List<OutputSpec> outputs;
+
+    private CaptureOptions(List<OutputSpec> outputs) {
+        this.outputs = outputs;
+    }
+
+    /** Parse từ JS; thiếu / sai kiểu → bỏ qua phần đó (không reject cả capture vì một option lạ) */
+    static CaptureOptions from(@Nullable ReadableMap map) {
+        if (map == null || !map.hasKey("outputs") || map.isNull("outputs")) return DEFAULT;
+        ReadableArray array = map.getArray("outputs");
+        List<OutputSpec> outputs = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            ReadableMap item = array.getMap(i);
+            if (item == null || !item.hasKey("maxSide")) continue;
+            int maxSide = (int) item.getDouble("maxSide");
+            if (maxSide <= 0) continue;
+            int quality = item.hasKey("quality") && !item.isNull("quality")
+                    ? Math.max(1, Math.min(100, (int) item.getDouble("quality")))
+                    : DEFAULT_QUALITY;
+            outputs.add(new OutputSpec(maxSide, quality));
+        }
+        return outputs.isEmpty() ? DEFAULT : new CaptureOptions(Collections.unmodifiableList(outputs));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CaptureOptions && outputs.equals(((CaptureOptions) o).outputs);
+    }
+
+    @Override
+    public int hashCode() {
+        return outputs.hashCode();
+    }
+}
@@ -0,0 +1,57 @@
+package com.reactnative.SevenMDCamera;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * CaptureResult — kết quả một shot, độc lập với bridge
+ * (một shot có thể resolve nhiều promise khi coalesce → mỗi promise cần WritableMap riêng)
+ */
+final class CaptureResult {
+    final String uri;
+    @Nullable final ThumbnailGenerator.Thumbnail thumbnail;
+    @Nullable final OutputDeriver.Output[] outputs;   // theo thứ tự options.outputs; phần tử null = lỗi
+
+    CaptureResult(String uri, @Nullable ThumbnailGenerator.Thumbnail thumbnail) {
+        this(uri, thumbnail, null);
+    }
+
+    CaptureResult(String uri, @Nullable ThumbnailGenerator.Thumbnail thumbnail, @Nullable OutputDeriver.Output[] outputs) {
+        this.uri = uri;
+        this.thumbnail = thumbnail;
+        this.outputs = outputs;
+    }
+
+    /** {uri, thumbnail?: {uri, width, height}, outputs?: ({uri, width, height, maxSide} | null)[]} */
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putString("uri", uri);
+        if (thumbnail != null) {
+            WritableMap thumb = Arguments.createMap();
+            thumb.putString("uri", thumbnail.uri);
+            thumb.putInt("width", thumbnail.width);
+            thumb.putInt("height", thumbnail.height);
+            map.putMap("thumbnail", thumb);
+        }
+        if (outputs != null) {
+            WritableArray array = Arguments.createArray();
+            for (OutputDeriver.Output o : outputs) {
+                if (o == null) {
+                    array.pushNull();
+                    continue;
+                }
+                WritableMap item = Arguments.createMap();
+                item.putString("uri", o.uri);
+                item.putInt("width", o.width);
+                item.putInt("height", o.height);
+                item.putInt("maxSide", o.maxSide);
+                array.pushMap(item);
+            }
+            map.putArray("outputs", array);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,215 @@
+package com.reactnative.SevenMDCamera;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CaptureScheduler — hàng đợi capture() chạy trên camera handler thread
+ * - Mỗi lúc chỉ một takePicture() → double-tap / nhiều caller JS không làm Camera throw
+ * - Coalesce: request đến trong cửa sổ coalesceWindowMs và cùng CaptureOptions dùng chung một shot
+ * - Timeout từng request; mọi promise đều được settle đúng một lần
+ * - Shot đang chạy bị timeout (HAL không gọi lại) → recovery (camera về PREVIEWING) rồi mới chạy request kế tiếp,
+ *   không để cả hàng đợi lần lượt nhận E_CAPTURE_BUSY
+ *
+ * Mọi state chỉ được đụng tới trên thread của handler.
+ */
+final class CaptureScheduler {
+    private static final String TAG = "CaptureScheduler";
+
+    /** Thực hiện một shot; phải gọi đúng một trong hai hàm của callback (thread bất kỳ) */
+    interface Shooter {
+        /** requestedAtMs: elapsedRealtime lúc JS gọi capture() (mốc chọn frame cho ZSL) */
+        void shoot(CaptureOptions options, long requestedAtMs, ShotCallback callback);
+    }
+
+    interface ShotCallback {
+        void onSaved(CaptureResult result);
+
+        void onFailed(String code, String message, @Nullable Throwable cause);
+    }
+
+    private static final class Request {
+        final Promise promise;
+        final CaptureOptions options;
+        final long enqueuedAt;
+        boolean settled = false;
+        Runnable timeout;
+
+        Request(Promise promise, CaptureOptions options, long enqueuedAt) {
+            this.promise = promise;
+            this.options = options;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final Handler handler;
+    private final Shooter shooter;
+    private final Runnable recovery;
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    @Nullable private List<Request> inFlight;   // batch đang chờ kết quả shot
+    private long inFlightStartedAt = 0;
+    private boolean shutdown = false;
+
+    private volatile long coalesceWindowMs = 0;
+    private volatile long timeoutMs = 10_000;
+
+    /**
+     * @param recovery chạy trên handler thread sau khi shot đang chạy bị timeout, trước request kế tiếp:
+     *                 đưa camera ra khỏi trạng thái chụp dở (vd. đóng rồi mở lại)
+     */
+    CaptureScheduler(Handler handler, Shooter shooter, Runnable recovery) {
+        this.handler = handler;
+        this.shooter = shooter;
+        this.recovery = recovery;
+    }
+
+    void setCoalesceWindowMs(long ms) {
+        coalesceWindowMs = Math.max(0, ms);
+    }
+
+    void setTimeoutMs(long ms) {
+        timeoutMs = Math.max(0, ms);
+    }
+
+    /** Gọi từ thread bất kỳ */
+    void submit(Promise promise, CaptureOptions options) {
+        long now = SystemClock.elapsedRealtime();
+        boolean posted = handler.post(() -> enqueue(new Request(promise, options, now)));
+        if (!posted) {
+            promise.reject("E_CAMERA_CLOSED", "Camera thread is not running");
+        }
+    }
+
+    /** Huỷ toàn bộ request (camera đóng / thread dừng). Gọi trên handler thread hoặc sau khi thread đã join. */
+    void shutdown(String code, String message) {
+        shutdown = true;
+        if (inFlight != null) {
+            for (Request r : inFlight) settleError(r, code, message, null);
+            inFlight = null;
+        }
+        Request r;
+        while ((r = pending.poll()) != null) settleError(r, code, message, null);
+    }
+
+    /**
+     * Camera đóng giữa lúc chụp (doClose): driver không bao giờ gọi lại cho shot đang chạy → settle cả batch
+     * và nhả hàng đợi. Gọi trên handler thread; drain() post sau nên chạy sau doOpen() cùng task (đổi camera).
+     */
+    void abortInFlight(String code, String message) {
+        List<Request> batch = inFlight;
+        if (batch == null) return;
+        Log.w(TAG, "[abortInFlight] Bỏ shot đang chạy (batch=" + batch.size() + "): " + message);
+        inFlight = null;
+        for (Request r : batch) settleError(r, code, message, null);
+        handler.post(this::drain);
+    }
+
+    private void enqueue(Request request) {
+        if (shutdown) {
+            settleError(request, "E_CAMERA_CLOSED", "Camera is closing", null);
+            return;
+        }
+        if (timeoutMs > 0) {
+            request.timeout = () -> onTimeout(request);
+            handler.postDelayed(request.timeout, timeoutMs);
+        }
+        // Shot đang chạy và request đến đủ gần → dùng chung kết quả, không chụp thêm
+        if (inFlight != null && coalesceWindowMs > 0
+                && request.enqueuedAt - inFlightStartedAt <= coalesceWindowMs
+                && request.options.equals(inFlight.get(0).options)) {
+            Log.d(TAG, "[enqueue] Coalesce vào shot đang chạy (batch=" + (inFlight.size() + 1) + ")");
+            inFlight.add(request);
+            return;
+        }
+        pending.add(request);
+        drain();
+    }
+
+    private void drain() {
+        if (shutdown || inFlight != null || pending.isEmpty()) return;
+        Request head = pending.poll();
+        List<Request> batch = new ArrayList<>();
+        batch.add(head);
+        while (coalesceWindowMs > 0 && !pending.isEmpty()
+                && pending.peek().enqueuedAt - head.enqueuedAt <= coalesceWindowMs
+                && pending.peek().options.equals(head.options)) {
+            batch.add(pending.poll());
+        }
+        inFlight = batch;
+        inFlightStartedAt = head.enqueuedAt;
+
+        shooter.shoot(head.options, head.enqueuedAt, new ShotCallback() {
+            @Override
+            public void onSaved(CaptureResult result) {
+                handler.post(() -> completeBatch(batch, result, null, null, null));
+            }
+
+            @Override
+            public void onFailed(String code, String message, @Nullable Throwable cause) {
+                handler.post(() -> completeBatch(batch, null, code, message, cause));
+            }
+        });
+    }
+
+    private void completeBatch(List<Request> batch, @Nullable CaptureResult result,
+                               @Nullable String code, @Nullable String message, @Nullable Throwable cause) {
+        for (Request r : batch) {
+            if (result != null) {
+                settleOk(r, result);
+            } else {
+                settleError(r, code, message, cause);
+            }
+        }
+        if (inFlight == batch) inFlight = null;
+        drain();
+    }
+
+    private void onTimeout(Request request) {
+        if (request.settled) return;
+        Log.w(TAG, "[onTimeout] Request quá " + timeoutMs + "ms → reject");
+        String message = "Capture timed out after " + timeoutMs + "ms";
+        List<Request> batch = inFlight;
+        if (batch != null && batch.contains(request)) {
+            // Shot không bao giờ trả kết quả → bỏ cả batch; camera vẫn kẹt ở CAPTURING nên phải recovery
+            // trước, nếu không request kế tiếp chỉ nhận E_CAPTURE_BUSY
+            inFlight = null;
+            for (Request r : batch) settleError(r, "E_CAPTURE_TIMEOUT", message, null);
+            try {
+                recovery.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "[onTimeout] Recovery lỗi: " + e.getMessage(), e);
+            }
+            drain();
+            return;
+        }
+        pending.remove(request);
+        settleError(request, "E_CAPTURE_TIMEOUT", message, null);
+    }
+
+    private void settleOk(Request r, CaptureResult result) {
+        if (r.settled) return;
+        r.settled = true;
+        if (r.timeout != null) handler.removeCallbacks(r.timeout);
+        r.promise.resolve(result.toWritableMap());
+    }
+
+    private void settleError(Request r, String code, String message, @Nullable Throwable cause) {
+        if (r.settled) return;
+        r.settled = true;
+        if (r.timeout != null) handler.removeCallbacks(r.timeout);
+        if (cause != null) {
+            r.promise.reject(code, message, cause);
+        } else {
+            r.promise.reject(code, message);
+        }
+    }
+}
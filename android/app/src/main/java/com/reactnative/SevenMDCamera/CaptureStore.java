@@ -0,0 +1,220 @@
+package com.reactnative.SevenMDCamera;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CaptureStore — kho ảnh chụp trong cacheDir có giới hạn dung lượng + số file, evict theo LRU
+ * - Index trong bộ nhớ (LinkedHashMap access-order), chỉ liệt kê thư mục một lần, lazy, trên thread io
+ * - Mọi thay đổi index chạy tuần tự trên thread io → không khoá, không I/O trên camera thread
+ * - pin(uri): không bao giờ evict (JS còn cần, vd. chưa upload); release(uri): JS xong việc → xoá ngay
+ * - File photo_*.jpg cũ nằm thẳng trong cacheDir (bản trước) được index tại chỗ, không di chuyển: JS vẫn giữ
+ *   file:// URI trỏ vào đó, pin/release theo đường cũ vẫn tìm thấy
+ * - Thumbnail nằm trong thumbs/ cùng tên ảnh gốc, bị xoá cùng ảnh gốc
+ */
+final class CaptureStore {
+    private static final String TAG = "CaptureStore";
+    private static final String DIR_NAME = "sevenmd_captures";
+    private static final String THUMB_DIR_NAME = "thumbs";
+    private static final String PREFIX = "photo_";
+    private static final String SUFFIX = ".jpg";
+    static final long DEFAULT_MAX_BYTES = 200L * 1024 * 1024;
+    static final int DEFAULT_MAX_COUNT = 500;
+
+    private static final class Entry {
+        final File file;
+        final long bytes;
+        boolean pinned;
+
+        Entry(File file, long bytes) {
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final CaptureStore instance = new CaptureStore();
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "CaptureStore");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Nullable private volatile File dir;
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+    private volatile int maxCount = DEFAULT_MAX_COUNT;
+
+    // Chỉ thread io đọc/ghi
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private boolean indexed = false;
+    private long totalBytes = 0;
+
+    private CaptureStore() {
+    }
+
+    static CaptureStore get() {
+        return instance;
+    }
+
+    /** Module init: dựng index trên thread io để lần chụp đầu không phải liệt kê thư mục */
+    void init(Context context) {
+        if (dir != null) return;
+        synchronized (this) {
+            if (dir != null) return;
+            File d = new File(context.getApplicationContext().getCacheDir(), DIR_NAME);
+            //noinspection ResultOfMethodCallIgnored
+            new File(d, THUMB_DIR_NAME).mkdirs();
+            dir = d;
+        }
+        io.execute(this::ensureIndexed);
+    }
+
+    /** Đường dẫn cho ảnh mới (thread bất kỳ, không I/O); tên có sequence → burst cùng millis không đè nhau */
+    File newFile(Context context) {
+        init(context);
+        return new File(dir, PREFIX + System.currentTimeMillis() + "_" + sequence.incrementAndGet() + SUFFIX);
+    }
+
+    /** File thumbnail đi kèm ảnh gốc */
+    File thumbnailFileFor(File photo) {
+        return new File(new File(photo.getParentFile(), THUMB_DIR_NAME), photo.getName());
+    }
+
+    /** PhotoWriter ghi xong → đưa vào index rồi evict nếu vượt budget */
+    void commit(File file, long bytes) {
+        io.execute(() -> {
+            ensureIndexed();
+            Entry old = index.put(file.getAbsolutePath(), new Entry(file, bytes));
+            if (old != null) totalBytes -= old.bytes;
+            totalBytes += bytes;
+            evictIfNeeded();
+        });
+    }
+
+    void setBudget(long maxBytes, int maxCount) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+        this.maxCount = maxCount > 0 ? maxCount : DEFAULT_MAX_COUNT;
+        io.execute(() -> {
+            ensureIndexed();
+            evictIfNeeded();
+        });
+    }
+
+    /** Ghim ảnh: không bị evict cho tới khi release(). Callback nhận false nếu uri không thuộc kho. */
+    void pin(String uri, ResultCallback callback) {
+        io.execute(() -> {
+            ensureIndexed();
+            Entry e = index.get(pathOf(uri));   // get() cũng đẩy entry lên đầu LRU
+            if (e != null) e.pinned = true;
+            callback.onResult(e != null);
+        });
+    }
+
+    /** JS không cần ảnh nữa (vd. đã upload) → xoá ngay khỏi đĩa và index */
+    void release(String uri, ResultCallback callback) {
+        io.execute(() -> {
+            ensureIndexed();
+            Entry e = index.remove(pathOf(uri));
+            if (e != null) {
+                totalBytes -= e.bytes;
+                delete(e);
+            }
+            callback.onResult(e != null);
+        });
+    }
+
+    interface ResultCallback {
+        void onResult(boolean found);
+    }
+
+    // region ===== Thread io =====
+
+    private void ensureIndexed() {
+        if (indexed || dir == null) return;
+        indexed = true;
+        long start = System.currentTimeMillis();
+        List<File> files = new ArrayList<>();
+        addPhotos(dir, files);
+        File parent = dir.getParentFile();
+        int legacy = files.size();
+        if (parent != null) addPhotos(parent, files);   // ảnh bản cũ ghi thẳng vào cacheDir
+        legacy = files.size() - legacy;
+        // Chưa có thông tin truy cập → xếp theo lastModified, cũ nhất evict trước
+        Collections.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            String path = f.getAbsolutePath();
+            if (index.containsKey(path)) continue;   // commit đã chạy trước
+            long bytes = f.length();
+            index.put(path, new Entry(f, bytes));
+            totalBytes += bytes;
+        }
+        if (legacy > 0) Log.d(TAG, "[ensureIndexed] Index tại chỗ " + legacy + " ảnh cũ trong cacheDir");
+        Log.d(TAG, "[ensureIndexed] " + index.size() + " ảnh, " + totalBytes + " bytes sau "
+                + (System.currentTimeMillis() - start) + "ms");
+        evictIfNeeded();
+    }
+
+    /** photo_*.jpg nằm thẳng trong folder (không đệ quy) */
+    private static void addPhotos(File folder, List<File> out) {
+        File[] photos = folder.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (photos != null) Collections.addAll(out, photos);
+    }
+
+    /** Áp lực bộ nhớ: evict ảnh chưa pin xuống còn fraction budget (index nhỏ lại, cacheDir được trả bớt) */
+    void trim(double fraction) {
+        if (dir == null) return;
+        io.execute(() -> {
+            ensureIndexed();
+            evictIfNeeded((long) (maxBytes * fraction), (int) (maxCount * fraction));
+        });
+    }
+
+    private void evictIfNeeded() {
+        evictIfNeeded(maxBytes, maxCount);
+    }
+
+    private void evictIfNeeded(long budgetBytes, int budgetCount) {
+        if (totalBytes <= budgetBytes && index.size() <= budgetCount) return;
+        int evicted = 0;
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (it.hasNext() && (totalBytes > budgetBytes || index.size() > budgetCount)) {
+            Entry e = it.next().getValue();
+            if (e.pinned) continue;
+            it.remove();
+            totalBytes -= e.bytes;
+            delete(e);
+            evicted++;
+        }
+        if (totalBytes > budgetBytes || index.size() > budgetCount) {
+            Log.w(TAG, "[evictIfNeeded] Ảnh đã pin vượt budget (" + index.size() + " ảnh, " + totalBytes + " bytes)");
+        }
+        if (evicted > 0) Log.d(TAG, "[evictIfNeeded] Evict " + evicted + " ảnh, còn " + index.size() + " / " + totalBytes + " bytes");
+    }
+
+    private void delete(Entry e) {
+        //noinspection ResultOfMethodCallIgnored
+        e.file.delete();
+        //noinspection ResultOfMethodCallIgnored
+        thumbnailFileFor(e.file).delete();
+    }
+    // endregion
+
+    private static String pathOf(String uri) {
+        String path = uri.startsWith("file://") ? uri.substring("file://".length()) : uri;
+        return new File(path).getAbsolutePath();
+    }
+}
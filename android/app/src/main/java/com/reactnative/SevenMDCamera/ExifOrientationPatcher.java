@@ -0,0 +1,198 @@
+package com.reactnative.SevenMDCamera;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * ExifOrientationPatcher — ghi tag Orientation (0x0112) vào JPEG ở mức byte, không decode / re-encode
+ * - Đã có tag trong IFD0 → chỉ thay 10 byte type/count/value của entry bằng một đoạn chép riêng
+ * - Có APP1/Exif nhưng thiếu tag → chép IFD0 (thêm tag) xuống cuối khối TIFF, trỏ header sang IFD0 mới;
+ *   mọi offset khác tính từ đầu TIFF nên giữ nguyên, IFD0 cũ thành byte chết vô hại
+ * - Không có Exif → chèn một APP1 tối thiểu sau SOI (sau APP0/JFIF nếu có)
+ * Kết quả là danh sách ByteBuffer cho gathering write: phần thân JPEG (vài MB) chỉ được wrap, không copy.
+ * Không bao giờ ghi vào mảng đầu vào: cùng byte[] được thumbnail / outputs decode song song trên thread khác.
+ */
+final class ExifOrientationPatcher {
+    static final int TAG_ORIENTATION = 0x0112;
+    private static final int TYPE_SHORT = 3;
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_APP0 = 0xE0;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+    private static final int MAX_SEGMENT_LENGTH = 0xFFFF;
+
+    private ExifOrientationPatcher() {
+    }
+
+    /** Độ xoay cần áp khi hiển thị (0/90/180/270, theo chiều kim đồng hồ) → giá trị EXIF Orientation */
+    static int exifOrientationForDegrees(int degrees) {
+        switch (((degrees % 360) + 360) % 360) {
+            case 90: return 6;
+            case 180: return 3;
+            case 270: return 8;
+            default: return 1;
+        }
+    }
+
+    /**
+     * Độ xoay JPEG theo công thức của Camera.Parameters.setRotation():
+     * deviceOrientation là góc thiết bị (OrientationEventListener, đã làm tròn 90°)
+     */
+    static int jpegRotation(int sensorOrientation, boolean frontFacing, int deviceOrientation) {
+        int device = ((deviceOrientation + 45) / 90 * 90) % 360;
+        return frontFacing
+                ? (sensorOrientation - device + 360) % 360
+                : (sensorOrientation + device) % 360;
+    }
+
+    /**
+     * @param orientation giá trị EXIF 1..8; ngoài khoảng → trả nguyên JPEG
+     * @return các đoạn cần ghi liên tiếp; JPEG không hợp lệ → trả nguyên JPEG (không bao giờ làm hỏng ảnh)
+     */
+    static ByteBuffer[] patch(byte[] jpeg, int orientation) {
+        ByteBuffer[] unchanged = {ByteBuffer.wrap(jpeg)};
+        if (orientation < 1 || orientation > 8) return unchanged;
+        if (jpeg.length < 4 || u8(jpeg, 0) != 0xFF || u8(jpeg, 1) != MARKER_SOI) return unchanged;
+        try {
+            int insertAt = 2;   // vị trí chèn APP1 mới nếu không có Exif
+            int pos = 2;
+            while (pos + 4 <= jpeg.length && u8(jpeg, pos) == 0xFF) {
+                int marker = u8(jpeg, pos + 1);
+                if (marker == MARKER_SOS || marker < MARKER_APP0 || marker > 0xEF) break;   // hết vùng APPn
+                int length = u16be(jpeg, pos + 2);
+                if (length < 2 || pos + 2 + length > jpeg.length) return unchanged;
+                if (marker == MARKER_APP1 && isExif(jpeg, pos + 4, length - 2)) {
+                    return patchExifSegment(jpeg, pos, length, orientation);
+                }
+                if (marker == MARKER_APP0) insertAt = pos + 2 + length;
+                pos += 2 + length;
+            }
+            return new ByteBuffer[]{
+                    ByteBuffer.wrap(jpeg, 0, insertAt),
+                    ByteBuffer.wrap(minimalExifSegment(orientation)),
+                    ByteBuffer.wrap(jpeg, insertAt, jpeg.length - insertAt)
+            };
+        } catch (IndexOutOfBoundsException e) {
+            return unchanged;   // Exif hỏng → để nguyên còn hơn ghi ra JPEG lỗi
+        }
+    }
+
+    // region ===== APP1 đã có =====
+
+    /** segmentStart trỏ vào 0xFF của marker APP1; length là trường length của segment */
+    private static ByteBuffer[] patchExifSegment(byte[] jpeg, int segmentStart, int length, int orientation) {
+        int tiff = segmentStart + 4 + EXIF_HEADER.length;
+        int tiffEnd = segmentStart + 2 + length;
+        ByteOrder order;
+        if (jpeg[tiff] == 'I' && jpeg[tiff + 1] == 'I') order = ByteOrder.LITTLE_ENDIAN;
+        else if (jpeg[tiff] == 'M' && jpeg[tiff + 1] == 'M') order = ByteOrder.BIG_ENDIAN;
+        else return new ByteBuffer[]{ByteBuffer.wrap(jpeg)};
+        ByteBuffer tiffBuf = ByteBuffer.wrap(jpeg, tiff, tiffEnd - tiff).slice().order(order);
+
+        int ifd0 = tiffBuf.getInt(4);
+        int count = tiffBuf.getShort(ifd0) & 0xFFFF;
+        int insertIndex = count;
+        for (int i = 0; i < count; i++) {
+            int entry = ifd0 + 2 + i * 12;
+            int tag = tiffBuf.getShort(entry) & 0xFFFF;
+            if (tag == TAG_ORIENTATION) {
+                // Có sẵn: type/count/value mới (SHORT, count 1 → nằm trong 4 byte value) thay đoạn gốc khi ghi
+                ByteBuffer value = ByteBuffer.allocate(10).order(order);
+                value.putShort((short) TYPE_SHORT).putInt(1).putShort((short) orientation).putShort((short) 0);
+                value.flip();
+                int valueAt = tiff + entry + 2;
+                return new ByteBuffer[]{
+                        ByteBuffer.wrap(jpeg, 0, valueAt),
+                        value,
+                        ByteBuffer.wrap(jpeg, valueAt + 10, jpeg.length - valueAt - 10)
+                };
+            }
+            if (tag > TAG_ORIENTATION && insertIndex == count) insertIndex = i;
+        }
+
+        // Thiếu tag → IFD0 mới (count + 1 entry) nối vào cuối khối TIFF, offset chẵn
+        int tiffLength = tiffEnd - tiff;
+        int pad = tiffLength & 1;
+        int newIfdOffset = tiffLength + pad;
+        int newIfdSize = 2 + (count + 1) * 12 + 4;
+        int newLength = length + pad + newIfdSize;
+        if (newLength > MAX_SEGMENT_LENGTH) return new ByteBuffer[]{ByteBuffer.wrap(jpeg)};
+
+        ByteBuffer tail = ByteBuffer.allocate(pad + newIfdSize).order(order);
+        tail.position(pad);
+        tail.putShort((short) (count + 1));
+        for (int i = 0; i <= count; i++) {
+            if (i == insertIndex) {
+                tail.putShort((short) TAG_ORIENTATION).putShort((short) TYPE_SHORT).putInt(1)
+                        .putShort((short) orientation).putShort((short) 0);
+            }
+            if (i < count) {
+                int entry = ifd0 + 2 + i * 12;
+                for (int b = 0; b < 12; b++) tail.put(tiffBuf.get(entry + b));
+            }
+        }
+        tail.putInt(tiffBuf.getInt(ifd0 + 2 + count * 12));   // con trỏ IFD1 giữ nguyên
+        tail.flip();
+
+        // Header APP1 (marker + length + "Exif\0\0" + TIFF header) viết lại với length và offset IFD0 mới
+        ByteBuffer head = ByteBuffer.allocate(4 + EXIF_HEADER.length + 8);
+        head.put((byte) 0xFF).put((byte) MARKER_APP1).putShort((short) newLength).put(EXIF_HEADER);
+        ByteBuffer tiffHeader = ByteBuffer.allocate(8).order(order);
+        tiffHeader.put(jpeg[tiff]).put(jpeg[tiff + 1]).putShort(tiffBuf.getShort(2)).putInt(newIfdOffset);
+        head.put(tiffHeader.array());
+        head.flip();
+
+        int bodyFrom = tiff + 8;
+        return new ByteBuffer[]{
+                ByteBuffer.wrap(jpeg, 0, segmentStart),
+                head,
+                ByteBuffer.wrap(jpeg, bodyFrom, tiffEnd - bodyFrom),
+                tail,
+                ByteBuffer.wrap(jpeg, tiffEnd, jpeg.length - tiffEnd)
+        };
+    }
+    // endregion
+
+    /** APP1 tối thiểu: TIFF big-endian, IFD0 chỉ có Orientation */
+    static byte[] minimalExifSegment(int orientation) {
+        int payload = EXIF_HEADER.length + 8 + 2 + 12 + 4;
+        ByteBuffer buf = ByteBuffer.allocate(4 + payload).order(ByteOrder.BIG_ENDIAN);
+        buf.put((byte) 0xFF).put((byte) MARKER_APP1).putShort((short) (payload + 2)).put(EXIF_HEADER);
+        buf.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        buf.putShort((short) 1);
+        buf.putShort((short) TAG_ORIENTATION).putShort((short) TYPE_SHORT).putInt(1)
+                .putShort((short) orientation).putShort((short) 0);
+        buf.putInt(0);
+        return buf.array();
+    }
+
+    /** Ghép các đoạn thành một mảng (cho nơi cần byte[] như thumbnail nhỏ) */
+    static byte[] toByteArray(ByteBuffer[] parts) {
+        if (parts.length == 1 && parts[0].hasArray() && parts[0].arrayOffset() == 0
+                && parts[0].position() == 0 && parts[0].remaining() == parts[0].array().length) {
+            return parts[0].array();
+        }
+        int total = 0;
+        for (ByteBuffer p : parts) total += p.remaining();
+        ByteBuffer out = ByteBuffer.allocate(total);
+        for (ByteBuffer p : parts) out.put(p.duplicate());
+        return out.array();
+    }
+
+    private static boolean isExif(byte[] data, int offset, int available) {
+        if (available < EXIF_HEADER.length + 8) return false;
+        for (int i = 0; i < EXIF_HEADER.length; i++) {
+            if (data[offset + i] != EXIF_HEADER[i]) return false;
+        }
+        return true;
+    }
+
+    private static int u8(byte[] data, int offset) {
+        return data[offset] & 0xFF;
+    }
+
+    private static int u16be(byte[] data, int offset) {
+        return (u8(data, offset) << 8) | u8(data, offset + 1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.reactnative.SevenMDCamera;
+
+/**
+ * FrameProcessor — plugin phân tích preview frame từ native code (edge detect, blur check...)
+ * Đăng ký qua {@link SevenMDPackage#registerFrameProcessor(FrameProcessor)}.
+ *
+ * - process() chạy trên worker thread riêng của processor, không bao giờ trên CameraBackground
+ * - Processor chậm chỉ bị bỏ frame cũ (giữ frame mới nhất), không làm chậm preview/capture
+ */
+public interface FrameProcessor {
+    /** Tên dùng cho log / thread name */
+    String getName();
+
+    /** Tốc độ xử lý tối đa (frame/giây); <= 0 = nhận mọi frame */
+    float getTargetFps();
+
+    /**
+     * Xử lý một frame. Mảng nv21 thuộc về worker và chỉ hợp lệ trong lời gọi này
+     * (lần gọi sau sẽ ghi đè) — cần giữ lại thì phải tự copy.
+     */
+    void process(byte[] nv21, int width, int height, int format, long timestampMs);
+}
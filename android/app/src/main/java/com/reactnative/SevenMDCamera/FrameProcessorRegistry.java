@@ -0,0 +1,46 @@
+package com.reactnative.SevenMDCamera;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * FrameProcessorRegistry — danh sách FrameProcessor cấp process
+ * View đang sống lắng nghe để gắn/gỡ processor mà không cần remount.
+ */
+final class FrameProcessorRegistry {
+    interface Observer {
+        void onProcessorAdded(FrameProcessor processor);
+
+        void onProcessorRemoved(FrameProcessor processor);
+    }
+
+    private static final CopyOnWriteArrayList<FrameProcessor> processors = new CopyOnWriteArrayList<>();
+    private static final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
+
+    private FrameProcessorRegistry() {
+    }
+
+    static void register(FrameProcessor processor) {
+        if (processors.addIfAbsent(processor)) {
+            for (Observer o : observers) o.onProcessorAdded(processor);
+        }
+    }
+
+    static void unregister(FrameProcessor processor) {
+        if (processors.remove(processor)) {
+            for (Observer o : observers) o.onProcessorRemoved(processor);
+        }
+    }
+
+    static List<FrameProcessor> snapshot() {
+        return processors;
+    }
+
+    static void addObserver(Observer observer) {
+        observers.addIfAbsent(observer);
+    }
+
+    static void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+}
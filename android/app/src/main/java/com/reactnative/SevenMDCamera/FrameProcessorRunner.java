@@ -0,0 +1,121 @@
+package com.reactnative.SevenMDCamera;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FrameProcessorRunner — chạy một FrameProcessor trên worker thread riêng
+ * - Camera thread chỉ copy frame vào slot "pending" (O(memcpy)), không bao giờ chờ processor
+ * - Latest-frame-wins: frame pending chưa kịp xử lý bị ghi đè bởi frame mới hơn
+ * - Giới hạn tốc độ theo getTargetFps() trước khi copy
+ * - Hai buffer dùng lại (pending/working) → không cấp phát theo frame
+ */
+final class FrameProcessorRunner implements PreviewBufferPool.FrameListener {
+    private static final String TAG = "FrameProcessorRunner";
+
+    final FrameProcessor processor;
+    private final ExecutorService worker;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Object lock = new Object();
+    private final long minIntervalMs;
+
+    // region ===== Được bảo vệ bởi lock =====
+    private byte[] pending = new byte[0];
+    private byte[] working = new byte[0];
+    private boolean hasPending = false;
+    private int pendingWidth, pendingHeight, pendingFormat;
+    private long pendingTimestampMs;
+    // endregion
+
+    private long lastAcceptedMs = 0;   // chỉ camera thread
+    private volatile boolean closed = false;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong droppedStale = new AtomicLong();
+    private final AtomicLong skippedByRate = new AtomicLong();
+
+    FrameProcessorRunner(FrameProcessor processor) {
+        this.processor = processor;
+        float fps = processor.getTargetFps();
+        this.minIntervalMs = fps > 0 ? (long) (1000f / fps) : 0;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "FrameProcessor-" + processor.getName());
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+    /** Camera thread */
+    @Override
+    public void onPreviewFrame(PreviewBufferPool.PreviewFrame frame) {
+        if (closed) return;
+        if (minIntervalMs > 0 && frame.timestampMs - lastAcceptedMs < minIntervalMs) {
+            skippedByRate.incrementAndGet();
+            return;
+        }
+        lastAcceptedMs = frame.timestampMs;
+        synchronized (lock) {
+            if (pending.length != frame.data.length) pending = new byte[frame.data.length];
+            System.arraycopy(frame.data, 0, pending, 0, frame.data.length);
+            if (hasPending) droppedStale.incrementAndGet();
+            hasPending = true;
+            pendingWidth = frame.width;
+            pendingHeight = frame.height;
+            pendingFormat = frame.format;
+            pendingTimestampMs = frame.timestampMs;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    /** Worker thread: xử lý frame mới nhất cho tới khi slot trống */
+    private void drain() {
+        while (!closed) {
+            int width, height, format;
+            long timestampMs;
+            synchronized (lock) {
+                if (!hasPending) {
+                    scheduled.set(false);
+                    return;
+                }
+                byte[] tmp = working;
+                working = pending;
+                pending = tmp;
+                hasPending = false;
+                width = pendingWidth;
+                height = pendingHeight;
+                format = pendingFormat;
+                timestampMs = pendingTimestampMs;
+            }
+            try {
+                processor.process(working, width, height, format, timestampMs);
+                processed.incrementAndGet();
+            } catch (Exception e) {
+                Log.e(TAG, "[drain] Processor '" + processor.getName() + "' lỗi: " + e.getMessage(), e);
+            }
+        }
+        scheduled.set(false);
+    }
+
+    void close() {
+        closed = true;
+        worker.shutdown();
+    }
+
+    long processedCount() {
+        return processed.get();
+    }
+
+    long droppedStaleCount() {
+        return droppedStale.get();
+    }
+
+    long skippedByRateCount() {
+        return skippedByRate.get();
+    }
+}
@@ -0,0 +1,229 @@
+package com.reactnative.SevenMDCamera;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FrameQualityAnalyzer — chấm điểm độ nét + phơi sáng của preview frame (FrameProcessor nội bộ)
+ * - Sharpness = phương sai Laplacian 4-lân-cận trên lưới Y lấy mẫu thưa (bước = width / ANALYSIS_WIDTH)
+ * - Exposure = histogram luma 256 bin → độ sáng trung bình, tỉ lệ pixel quá tối / cháy sáng
+ * - Chia hàng thành stripe chạy song song; stripe, histogram, task đều dựng sẵn → không cấp phát theo frame
+ * - Lưu điểm của các frame gần nhất để chọn frame nét nhất trong một cửa sổ thời gian (ZSL)
+ *
+ * process() chạy trên worker của FrameProcessorRunner; stripe 0 chạy ngay trên worker đó.
+ */
+final class FrameQualityAnalyzer implements FrameProcessor {
+    private static final String TAG = "FrameQualityAnalyzer";
+    static final int ANALYSIS_WIDTH = 240;
+    static final float TARGET_FPS = 15f;
+    private static final int DARK_LUMA = 16;
+    private static final int BRIGHT_LUMA = 240;
+    private static final int HISTORY = 32;
+
+    interface Listener {
+        /** Worker thread; không giữ tham chiếu tới analyzer sau khi return */
+        void onFrameQuality(long timestampMs, double sharpness, double meanLuma, double darkFraction, double brightFraction);
+    }
+
+    /** Kết quả cục bộ của một stripe; dựng một lần, tái sử dụng mọi frame */
+    private final class Stripe implements Runnable {
+        final int[] histogram = new int[256];
+        long lapSum, lapSumSq, count, lumaSum;
+        int rowFrom, rowTo;   // theo lưới đã lấy mẫu
+
+        @Override
+        public void run() {
+            try {
+                analyze(this);
+            } finally {
+                stripeDone();
+            }
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final ThreadPoolExecutor helpers;   // ArrayBlockingQueue → execute() không cấp phát
+    private final Object barrier = new Object();
+    private int remaining;                      // bảo vệ bởi barrier
+
+    // Frame đang phân tích — chỉ hợp lệ trong process()
+    private byte[] frame;
+    private int frameWidth, step, gridWidth;
+
+    // Lịch sử điểm (ring) — bảo vệ bởi history lock
+    private final Object historyLock = new Object();
+    private final long[] historyTimestamps = new long[HISTORY];
+    private final double[] historySharpness = new double[HISTORY];
+    private int historyNext = 0;
+
+    private volatile Listener listener;
+
+    FrameQualityAnalyzer() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int count = Math.max(1, Math.min(4, cores - 1));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) stripes[i] = new Stripe();
+        int helperThreads = Math.max(1, count - 1);
+        helpers = new ThreadPoolExecutor(helperThreads, helperThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(count),
+                r -> {
+                    Thread t = new Thread(r, "FrameQualityStripe");
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                });
+        helpers.prestartAllCoreThreads();
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void shutdown() {
+        listener = null;
+        helpers.shutdown();
+    }
+
+    @Override
+    public String getName() {
+        return "FrameQuality";
+    }
+
+    @Override
+    public float getTargetFps() {
+        return TARGET_FPS;
+    }
+
+    @Override
+    public void process(byte[] nv21, int width, int height, int format, long timestampMs) {
+        // NV21/YV12/NV16...: Y plane luôn nằm đầu buffer, width*height byte
+        if (width < 3 || height < 3 || nv21.length < width * height) return;
+        frame = nv21;
+        frameWidth = width;
+        step = Math.max(1, width / ANALYSIS_WIDTH);
+        gridWidth = width / step;
+        int gridHeight = height / step;
+
+        // Bỏ hàng/cột biên (Laplacian cần 4 lân cận)
+        int rows = gridHeight - 2;
+        int perStripe = (rows + stripes.length - 1) / stripes.length;
+        int used = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe s = stripes[i];
+            s.rowFrom = 1 + i * perStripe;
+            s.rowTo = Math.min(gridHeight - 1, s.rowFrom + perStripe);
+            if (s.rowFrom < s.rowTo) used = i + 1;
+        }
+
+        boolean interrupted = false;
+        try {
+            synchronized (barrier) {
+                remaining = used;
+            }
+            for (int i = 1; i < used; i++) {
+                try {
+                    helpers.execute(stripes[i]);
+                } catch (RejectedExecutionException e) {
+                    stripes[i].run();   // đã shutdown → chạy tại chỗ, barrier vẫn đếm đúng
+                }
+            }
+            stripes[0].run();
+            synchronized (barrier) {
+                // Bị huỷ giữa chừng vẫn phải chờ stripe đang chạy: Stripe được tái sử dụng ở pass sau,
+                // bỏ đi sớm thì stripe cũ ghi đè kết quả (và đếm lùi remaining) của pass mới
+                while (remaining > 0) {
+                    try {
+                        barrier.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            synchronized (barrier) {
+                remaining = 0;
+            }
+            frame = null;
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (!interrupted) merge(used, timestampMs);
+    }
+
+    private void stripeDone() {
+        synchronized (barrier) {
+            if (--remaining == 0) barrier.notifyAll();
+        }
+    }
+
+    private void analyze(Stripe s) {
+        Arrays.fill(s.histogram, 0);
+        long lapSum = 0, lapSumSq = 0, count = 0, lumaSum = 0;
+        byte[] y = frame;
+        int stride = frameWidth;
+        int d = step;
+        int[] histogram = s.histogram;
+        for (int gy = s.rowFrom; gy < s.rowTo; gy++) {
+            int row = gy * d * stride;
+            for (int gx = 1; gx < gridWidth - 1; gx++) {
+                int i = row + gx * d;
+                int c = y[i] & 0xFF;
+                int lap = 4 * c - (y[i - d] & 0xFF) - (y[i + d] & 0xFF)
+                        - (y[i - d * stride] & 0xFF) - (y[i + d * stride] & 0xFF);
+                lapSum += lap;
+                lapSumSq += (long) lap * lap;
+                lumaSum += c;
+                histogram[c]++;
+                count++;
+            }
+        }
+        s.lapSum = lapSum;
+        s.lapSumSq = lapSumSq;
+        s.count = count;
+        s.lumaSum = lumaSum;
+    }
+
+    private void merge(int used, long timestampMs) {
+        long lapSum = 0, lapSumSq = 0, count = 0, lumaSum = 0, dark = 0, bright = 0;
+        for (int i = 0; i < used; i++) {
+            Stripe s = stripes[i];
+            lapSum += s.lapSum;
+            lapSumSq += s.lapSumSq;
+            count += s.count;
+            lumaSum += s.lumaSum;
+            for (int v = 0; v <= DARK_LUMA; v++) dark += s.histogram[v];
+            for (int v = BRIGHT_LUMA; v < 256; v++) bright += s.histogram[v];
+        }
+        if (count == 0) return;
+        double mean = (double) lapSum / count;
+        double sharpness = (double) lapSumSq / count - mean * mean;
+
+        synchronized (historyLock) {
+            historyTimestamps[historyNext] = timestampMs;
+            historySharpness[historyNext] = sharpness;
+            historyNext = (historyNext + 1) % HISTORY;
+        }
+        Listener l = listener;
+        if (l != null) {
+            try {
+                l.onFrameQuality(timestampMs, sharpness, (double) lumaSum / count,
+                        (double) dark / count, (double) bright / count);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "[merge] Listener lỗi: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Điểm sharpness của frame có timestamp đúng bằng timestampMs; NaN nếu frame đó chưa được chấm */
+    double sharpnessAt(long timestampMs) {
+        synchronized (historyLock) {
+            for (int i = 0; i < HISTORY; i++) {
+                if (historyTimestamps[i] == timestampMs && timestampMs != 0) return historySharpness[i];
+            }
+        }
+        return Double.NaN;
+    }
+}
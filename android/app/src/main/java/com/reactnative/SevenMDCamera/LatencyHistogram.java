@@ -0,0 +1,84 @@
+package com.reactnative.SevenMDCamera;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram — histogram độ trễ (ms) với bucket cố định, ghi không khoá
+ * - record() chỉ là vài phép atomic, gọi được từ mọi thread (camera, writer, main)
+ * - Percentile ước lượng bằng cận trên của bucket → đủ để so sánh thiết bị / phát hiện regression
+ */
+final class LatencyHistogram {
+    /** Cận trên (ms, bao gồm) của từng bucket; bucket cuối là "lớn hơn mọi mốc" */
+    static final long[] BOUNDS_MS = {5, 10, 20, 35, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 2000, 5000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMs = new AtomicLong();
+    private final AtomicLong maxMs = new AtomicLong();
+
+    void record(long ms) {
+        if (ms < 0) return;
+        buckets.incrementAndGet(bucketOf(ms));
+        count.incrementAndGet();
+        sumMs.addAndGet(ms);
+        long max;
+        while (ms > (max = maxMs.get()) && !maxMs.compareAndSet(max, ms)) {
+            // CAS lại
+        }
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        count.set(0);
+        sumMs.set(0);
+        maxMs.set(0);
+    }
+
+    /** Cận trên của bucket chứa percentile p (0..1); -1 nếu chưa có mẫu */
+    long percentile(double p) {
+        long total = count.get();
+        if (total == 0) return -1;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return i < BOUNDS_MS.length ? BOUNDS_MS[i] : maxMs.get();
+        }
+        return maxMs.get();
+    }
+
+    /** {count, meanMs, maxMs, p50Ms, p90Ms, p99Ms, bucketBoundsMs, buckets} */
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        long total = count.get();
+        map.putDouble("count", total);
+        map.putDouble("meanMs", total == 0 ? -1 : (double) sumMs.get() / total);
+        map.putDouble("maxMs", total == 0 ? -1 : maxMs.get());
+        map.putDouble("p50Ms", percentile(0.50));
+        map.putDouble("p90Ms", percentile(0.90));
+        map.putDouble("p99Ms", percentile(0.99));
+        WritableArray bounds = Arguments.createArray();
+        for (long b : BOUNDS_MS) bounds.pushDouble(b);
+        map.putArray("bucketBoundsMs", bounds);
+        WritableArray counts = Arguments.createArray();
+        for (int i = 0; i < buckets.length(); i++) counts.pushDouble(buckets.get(i));
+        map.putArray("buckets", counts);
+        return map;
+    }
+
+    private static int bucketOf(long ms) {
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            if (ms <= BOUNDS_MS[i]) return i;
+        }
+        return BOUNDS_MS.length;
+    }
+}
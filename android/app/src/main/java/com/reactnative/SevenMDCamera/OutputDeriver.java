@@ -0,0 +1,238 @@
+package com.reactnative.SevenMDCamera;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * OutputDeriver — từ một JPEG của takePicture() sinh nhiều bản JPEG theo CaptureOptions.outputs
+ * - Gom các output theo inSampleSize → mỗi mức subsample chỉ decode một lần, dùng chung cho cả nhóm
+ *   (bitmap full-res tồn tại tối đa một lần, và chỉ khi thật sự có output cần nó)
+ * - Các nhóm chạy song song trên ForkJoinPool riêng (fork-join: invokeAll rồi gom kết quả)
+ * - Output không nhỏ hơn ảnh gốc và không hạ quality → chép byte JPEG sang file riêng, không decode
+ *   (không trỏ chung file gốc: releasePhoto một URI sẽ xoá ảnh của URI kia, kho đếm trùng dung lượng)
+ * - Áp lực bộ nhớ (CameraMemoryPolicy.derivedOutputsEnabled() = false) → bỏ các output cần decode, như thumbnail
+ * - Mỗi output được gắn EXIF Orientation như ảnh gốc (ExifOrientationPatcher) và đưa vào CaptureStore
+ */
+final class OutputDeriver {
+    private static final String TAG = "OutputDeriver";
+
+    /** Một output đã ghi; width/height theo chiều hiển thị */
+    static final class Output {
+        final String uri;
+        final int width;
+        final int height;
+        final int maxSide;
+
+        Output(String uri, int width, int height, int maxSide) {
+            this.uri = uri;
+            this.width = width;
+            this.height = height;
+            this.maxSide = maxSide;
+        }
+    }
+
+    interface Listener {
+        /** Cùng thứ tự với outputs yêu cầu; phần tử null = output đó lỗi */
+        void onOutputs(Output[] outputs);
+    }
+
+    /** Cùng mô hình với ThumbnailGenerator.Job: whenDone() chạy ngay nếu đã xong */
+    static final class Job {
+        private boolean done;
+        @Nullable private Output[] result;
+        @Nullable private Listener listener;
+
+        void whenDone(Listener l) {
+            Output[] r;
+            synchronized (this) {
+                if (!done) {
+                    listener = l;
+                    return;
+                }
+                r = result;
+            }
+            l.onOutputs(r);
+        }
+
+        private void complete(Output[] outputs) {
+            Listener l;
+            synchronized (this) {
+                done = true;
+                result = outputs;
+                l = listener;
+                listener = null;
+            }
+            if (l != null) l.onOutputs(outputs);
+        }
+    }
+
+    private static final OutputDeriver instance = new OutputDeriver();
+
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1)));
+
+    private OutputDeriver() {
+    }
+
+    static OutputDeriver get() {
+        return instance;
+    }
+
+    Job submit(Context context, byte[] jpeg, List<CaptureOptions.OutputSpec> specs, int exifOrientation) {
+        Job job = new Job();
+        pool.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                job.complete(derive(context, jpeg, specs, exifOrientation));
+            }
+        });
+        return job;
+    }
+
+    private static Output[] derive(Context context, byte[] jpeg, List<CaptureOptions.OutputSpec> specs, int exifOrientation) {
+        long start = System.currentTimeMillis();
+        Output[] results = new Output[specs.size()];
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            Log.e(TAG, "[derive] Không đọc được kích thước JPEG");
+            return results;
+        }
+        int srcLong = Math.max(bounds.outWidth, bounds.outHeight);
+
+        // Gom theo inSampleSize; output không cần resize chỉ chép byte (task riêng, không decode)
+        boolean decodeAllowed = CameraMemoryPolicy.get().derivedOutputsEnabled();
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        int skipped = 0;
+        for (int i = 0; i < specs.size(); i++) {
+            CaptureOptions.OutputSpec spec = specs.get(i);
+            if (spec.maxSide >= srcLong && spec.quality >= CaptureOptions.DEFAULT_QUALITY) {
+                int index = i;
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        results[index] = copyOutput(context, jpeg, bounds.outWidth, bounds.outHeight, spec, exifOrientation);
+                    }
+                });
+                continue;
+            }
+            if (!decodeAllowed) {
+                skipped++;   // thiếu RAM: không decode bitmap cho output → phần tử null như output lỗi
+                continue;
+            }
+            int sample = ThumbnailGenerator.sampleSizeFor(srcLong, spec.maxSide);
+            List<Integer> group = groups.get(sample);
+            if (group == null) groups.put(sample, group = new ArrayList<>());
+            group.add(i);
+        }
+        if (skipped > 0) Log.w(TAG, "[derive] Áp lực bộ nhớ → bỏ " + skipped + " output cần decode");
+
+        for (Map.Entry<Integer, List<Integer>> e : groups.entrySet()) {
+            int sample = e.getKey();
+            List<Integer> indices = e.getValue();
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    deriveGroup(context, jpeg, sample, indices, specs, exifOrientation, results);
+                }
+            });
+        }
+        RecursiveAction.invokeAll(tasks);
+        Log.d(TAG, "[derive] " + specs.size() + " output, " + groups.size() + " lần decode, "
+                + (System.currentTimeMillis() - start) + "ms");
+        return results;
+    }
+
+    /** Decode một lần ở mức subsample, rồi scale + nén từng output trong nhóm (lớn trước) */
+    private static void deriveGroup(Context context, byte[] jpeg, int sample, List<Integer> indices,
+                                    List<CaptureOptions.OutputSpec> specs, int exifOrientation, Output[] results) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap decoded;
+        try {
+            decoded = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        } catch (OutOfMemoryError e) {
+            Log.e(TAG, "[deriveGroup] OOM khi decode inSampleSize=" + sample);
+            return;
+        }
+        if (decoded == null) return;
+        try {
+            Integer[] order = indices.toArray(new Integer[0]);
+            Arrays.sort(order, (a, b) -> specs.get(b).maxSide - specs.get(a).maxSide);
+            for (int index : order) {
+                CaptureOptions.OutputSpec spec = specs.get(index);
+                try {
+                    results[index] = writeOutput(context, decoded, spec, exifOrientation);
+                } catch (IOException | RuntimeException e) {
+                    Log.e(TAG, "[deriveGroup] Lỗi output maxSide=" + spec.maxSide + ": " + e.getMessage(), e);
+                }
+            }
+        } finally {
+            decoded.recycle();
+        }
+    }
+
+    /** Output cỡ gốc: file riêng với cùng byte JPEG (+ EXIF), không decode */
+    @Nullable
+    private static Output copyOutput(Context context, byte[] jpeg, int width, int height,
+                                     CaptureOptions.OutputSpec spec, int exifOrientation) {
+        File file = CaptureStore.get().newFile(context);
+        try {
+            long bytes = PhotoWriter.writeSync(file, jpeg, exifOrientation, PhotoWriter.FsyncPolicy.NONE);
+            CaptureStore.get().commit(file, bytes);
+            return oriented("file://" + file.getAbsolutePath(), width, height, spec.maxSide, exifOrientation);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "[copyOutput] Lỗi output maxSide=" + spec.maxSide + ": " + e.getMessage(), e);
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        }
+    }
+
+    private static Output writeOutput(Context context, Bitmap decoded, CaptureOptions.OutputSpec spec, int exifOrientation) throws IOException {
+        int w = decoded.getWidth();
+        int h = decoded.getHeight();
+        int longSide = Math.max(w, h);
+        Bitmap scaled = decoded;
+        if (longSide > spec.maxSide) {
+            double scale = (double) spec.maxSide / longSide;
+            scaled = Bitmap.createScaledBitmap(decoded, Math.max(1, (int) Math.round(w * scale)), Math.max(1, (int) Math.round(h * scale)), true);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64 * 1024, scaled.getWidth() * scaled.getHeight() / 4));
+            scaled.compress(Bitmap.CompressFormat.JPEG, spec.quality, out);
+            byte[] bytes = ExifOrientationPatcher.toByteArray(ExifOrientationPatcher.patch(out.toByteArray(), exifOrientation));
+            File file = CaptureStore.get().newFile(context);
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                fos.write(bytes);
+            }
+            CaptureStore.get().commit(file, bytes.length);
+            return oriented("file://" + file.getAbsolutePath(), scaled.getWidth(), scaled.getHeight(), spec.maxSide, exifOrientation);
+        } finally {
+            if (scaled != decoded) scaled.recycle();
+        }
+    }
+
+    private static Output oriented(String uri, int width, int height, int maxSide, int exifOrientation) {
+        boolean swap = exifOrientation >= 5 && exifOrientation <= 8;
+        return new Output(uri, swap ? height : width, swap ? width : height, maxSide);
+    }
+}
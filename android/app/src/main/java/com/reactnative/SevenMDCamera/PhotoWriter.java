@@ -0,0 +1,160 @@
+package com.reactnative.SevenMDCamera;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PhotoWriter — ghi JPEG xuống đĩa trên một executor riêng
+ * - Không chặn camera thread: callback takePicture chỉ giao byte[] rồi restart preview ngay
+ * - Hàng đợi có giới hạn: writer tụt lại thì từ chối job mới thay vì giữ byte[] vô hạn
+ * - Budget byte cho JPEG đang chờ ghi (CameraMemoryPolicy đặt theo áp lực bộ nhớ); luôn nhận ít nhất một ảnh
+ * - Ghi bằng FileChannel, fsync theo {@link FsyncPolicy}
+ * - Tag EXIF Orientation được vá ở mức byte rồi ghi gom (gathering write) — thân JPEG không bị copy
+ */
+final class PhotoWriter {
+    private static final String TAG = "PhotoWriter";
+    private static final int QUEUE_CAPACITY = 4;
+
+    /** Mức độ "bền" của file trước khi báo thành công */
+    enum FsyncPolicy {
+        NONE,   // chỉ write(), để kernel tự flush
+        DATA,   // force(false) — fdatasync, đủ để ảnh không mất khi crash
+        FULL;   // force(true) — fsync cả metadata
+
+        static FsyncPolicy from(@Nullable String value) {
+            if (value == null) return DATA;
+            switch (value) {
+                case "none": return NONE;
+                case "full": return FULL;
+                default: return DATA;
+            }
+        }
+    }
+
+    interface Callback {
+        void onWritten(File file, long bytes);
+
+        void onError(File file, Exception e);
+    }
+
+    private static PhotoWriter instance;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private volatile long maxInFlightBytes = Long.MAX_VALUE;
+    private volatile long lastJpegBytes = 0;
+
+    private PhotoWriter() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "PhotoWriter");
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    static synchronized PhotoWriter getInstance() {
+        if (instance == null) instance = new PhotoWriter();
+        return instance;
+    }
+
+    boolean write(File file, byte[] data, FsyncPolicy policy, Callback callback) {
+        return write(file, data, 0, policy, callback);
+    }
+
+    /**
+     * Đưa một ảnh vào hàng đợi ghi.
+     * @param exifOrientation giá trị EXIF Orientation 1..8 cần ghi vào file; 0 = giữ nguyên JPEG
+     * @return false nếu hàng đợi đã đầy (writer không theo kịp) — caller tự xử lý reject
+     */
+    boolean write(File file, byte[] data, int exifOrientation, FsyncPolicy policy, Callback callback) {
+        long size = data.length;
+        lastJpegBytes = size;
+        if (!reserve(size)) {
+            Log.w(TAG, "[write] Vượt budget in-flight (" + inFlightBytes.get() + " / " + maxInFlightBytes + " bytes) → từ chối " + file.getName());
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    writeNow(file, data, exifOrientation, policy, callback);
+                } finally {
+                    inFlightBytes.addAndGet(-size);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlightBytes.addAndGet(-size);
+            Log.w(TAG, "[write] Hàng đợi đầy (" + executor.getQueue().size() + ") → từ chối " + file.getName());
+            return false;
+        }
+    }
+
+    /** Giữ chỗ size byte trong budget; không có gì đang chờ thì luôn nhận (budget 0 = một ảnh một lúc) */
+    private boolean reserve(long size) {
+        while (true) {
+            long current = inFlightBytes.get();
+            if (current > 0 && current + size > maxInFlightBytes) return false;
+            if (inFlightBytes.compareAndSet(current, current + size)) return true;
+        }
+    }
+
+    void setMaxInFlightBytes(long bytes) {
+        maxInFlightBytes = Math.max(0, bytes);
+    }
+
+    /** Hàng đợi đã đầy (hoặc ảnh cỡ lần trước sẽ vượt budget): job kế tiếp chắc chắn bị từ chối */
+    boolean isSaturated() {
+        long current = inFlightBytes.get();
+        return executor.getQueue().remainingCapacity() == 0
+                || (current > 0 && current + lastJpegBytes > maxInFlightBytes);
+    }
+
+    private static void writeNow(File file, byte[] data, int exifOrientation, FsyncPolicy policy, Callback callback) {
+        long total;
+        try {
+            total = writeSync(file, data, exifOrientation, policy);
+        } catch (IOException e) {
+            Log.e(TAG, "[writeNow] Lỗi ghi " + file.getName() + ": " + e.getMessage(), e);
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            callback.onError(file, e);
+            return;
+        }
+        callback.onWritten(file, total);
+    }
+
+    /** Ghi đồng bộ trên thread gọi (writer thread; benchmark gọi trực tiếp). Trả về số byte đã ghi. */
+    static long writeSync(File file, byte[] data, int exifOrientation, FsyncPolicy policy) throws IOException {
+        ByteBuffer[] parts = ExifOrientationPatcher.patch(data, exifOrientation);
+        long total = 0;
+        for (ByteBuffer part : parts) total += part.remaining();
+        try (FileOutputStream fos = new FileOutputStream(file);
+             FileChannel channel = fos.getChannel()) {
+            long written = 0;
+            while (written < total) {
+                written += channel.write(parts);
+            }
+            if (policy == FsyncPolicy.DATA) {
+                channel.force(false);
+            } else if (policy == FsyncPolicy.FULL) {
+                channel.force(true);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,210 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.ImageFormat;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PreviewBufferPool — preview frame qua setPreviewCallbackWithBuffer, không cấp phát theo frame
+ * - N buffer NV21 cấp phát một lần theo preview size/format đã negotiate
+ * - Mỗi buffer đi kèm một PreviewFrame dựng sẵn; đếm tham chiếu, release() cuối cùng
+ *   trả buffer về camera (trên camera thread)
+ * - Hết buffer → HAL bỏ frame; đếm lại thành metric exhaustion
+ */
+final class PreviewBufferPool implements CameraDriver.PreviewCallback {
+    private static final String TAG = "PreviewBufferPool";
+    static final int DEFAULT_CAPACITY = 3;
+
+    /** Gọi trên camera thread; muốn giữ frame sau khi return thì phải retain() */
+    interface FrameListener {
+        void onPreviewFrame(PreviewFrame frame);
+    }
+
+    /** Một frame preview mượn từ pool (object dùng lại, không giữ tham chiếu sau release()) */
+    final class PreviewFrame {
+        final byte[] data;
+        final int width;
+        final int height;
+        final int format;
+        private final int generation;
+        volatile long timestampMs;
+        private final AtomicInteger refs = new AtomicInteger();
+
+        private PreviewFrame(byte[] data, int width, int height, int format, int generation) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.generation = generation;
+        }
+
+        void retain() {
+            refs.incrementAndGet();
+        }
+
+        /** Tham chiếu cuối cùng → buffer quay về camera */
+        void release() {
+            if (refs.decrementAndGet() == 0) recycle(this);
+        }
+    }
+
+    private final CopyOnWriteArrayList<FrameListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicLong framesDelivered = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    private volatile int capacity;
+    private volatile CameraDriver camera;
+    private volatile Handler handler;
+    private volatile int generation = 0;
+    private PreviewFrame[] frames = new PreviewFrame[0];
+
+    PreviewBufferPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void addListener(FrameListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    void removeListener(FrameListener listener) {
+        listeners.remove(listener);
+    }
+
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Gắn pool vào camera (gọi trên camera thread, sau khi đã applySettings()).
+     * Chỉ cấp phát lại khi kích thước frame thay đổi.
+     */
+    void attach(CameraDriver camera, Handler handler) {
+        int[] size = camera.previewSize();
+        int width = size[0], height = size[1];
+        int fmt = camera.previewFormat();
+        int frameBytes = width * height * ImageFormat.getBitsPerPixel(fmt) / 8;
+
+        // Buffer còn bị consumer giữ thì không được đưa lại cho HAL ghi đè → cấp phát mới
+        boolean reusable = frames.length > 0 && inUse.get() == 0 && frames[0].data.length == frameBytes
+                && frames[0].width == width && frames[0].height == height && frames[0].format == fmt;
+        int count = capacity;
+        int reused = reusable ? Math.min(count, frames.length) : 0;   // capacity giảm → giữ lại phần đầu
+        int gen = ++generation;   // frame cũ đang bị giữ sẽ không được trả về camera mới
+        PreviewFrame[] next = new PreviewFrame[count];
+        if (reused < count) {
+            Log.d(TAG, "[attach] Cấp phát " + (count - reused) + " buffer x " + frameBytes + " bytes (" + width + "x" + height + ")");
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] data = i < reused ? frames[i].data : new byte[frameBytes];
+            next[i] = new PreviewFrame(data, width, height, fmt, gen);
+        }
+        frames = next;
+        inUse.set(0);
+        this.camera = camera;
+        this.handler = handler;
+
+        camera.setPreviewCallbackWithBuffer(null);  // xoá hàng buffer cũ của HAL
+        for (PreviewFrame frame : next) camera.addCallbackBuffer(frame.data);
+        camera.setPreviewCallbackWithBuffer(this);
+    }
+
+    /** Gỡ pool khỏi camera (camera thread). Buffer vẫn giữ lại để attach sau dùng tiếp. */
+    void detach(CameraDriver camera) {
+        generation++;
+        try {
+            camera.setPreviewCallbackWithBuffer(null);
+        } catch (Exception ignore) {
+        }
+        this.camera = null;
+        this.handler = null;
+    }
+
+    @Override
+    public void onPreviewFrame(byte[] data) {
+        PreviewFrame frame = frameFor(data);
+        if (frame == null) return;
+        framesDelivered.incrementAndGet();
+        if (inUse.incrementAndGet() >= capacity) {
+            // Không còn buffer nào xếp hàng trong HAL → frame kế tiếp sẽ bị drop
+            exhaustedCount.incrementAndGet();
+            CameraMetrics.get().onPreviewFrameDropped();
+        }
+        frame.timestampMs = SystemClock.elapsedRealtime();
+        frame.refs.set(1);
+        for (FrameListener listener : listeners) {
+            try {
+                listener.onPreviewFrame(frame);
+            } catch (Exception e) {
+                Log.e(TAG, "[onPreviewFrame] Listener lỗi: " + e.getMessage(), e);
+            }
+        }
+        frame.release();
+    }
+
+    private PreviewFrame frameFor(byte[] data) {
+        if (data == null) return null;
+        for (PreviewFrame frame : frames) {
+            if (frame.data == data) return frame;
+        }
+        return null;
+    }
+
+    private void recycle(PreviewFrame frame) {
+        if (frame.generation != generation) return;   // pool đã attach lại → để GC thu hồi
+        Handler h = handler;
+        if (h == null) return;
+        if (h.getLooper() != null && h.getLooper().isCurrentThread()) {
+            returnBuffer(frame);
+        } else {
+            h.post(() -> returnBuffer(frame));
+        }
+    }
+
+    private void returnBuffer(PreviewFrame frame) {
+        CameraDriver cam = camera;
+        if (cam == null || frame.generation != generation) return;
+        inUse.decrementAndGet();
+        cam.addCallbackBuffer(frame.data);
+    }
+
+    /** Camera thread: đổi số buffer; có hiệu lực ở lần attach() kế tiếp (caller attach lại nếu đang gắn) */
+    void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /** Camera thread: pool không gắn camera → bỏ buffer để GC thu hồi (attach sau cấp phát lại) */
+    void trimIfDetached() {
+        if (camera != null || frames.length == 0) return;
+        Log.d(TAG, "[trimIfDetached] Giải phóng " + frames.length + " buffer");
+        generation++;
+        frames = new PreviewFrame[0];
+        inUse.set(0);
+    }
+
+    boolean isAttached() {
+        return camera != null;
+    }
+
+    long framesDelivered() {
+        return framesDelivered.get();
+    }
+
+    /** Số lần pool cạn buffer (frame kế tiếp bị HAL drop) */
+    long exhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    int inUse() {
+        return inUse.get();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -1,34 +1,167 @@
 package com.reactnative.SevenMDCamera;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+
+import androidx.annotation.Nullable;
+
 import com.facebook.react.bridge.*;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import java.io.*;
 
 
-public class SevenMDCameraModule extends ReactContextBaseJavaModule {
+/**
+ * TurboModule (spec: specs/NativeSevenMDCameraModule.ts) — lazy: chỉ khởi tạo khi JS chạm tới module lần đầu
+ */
+public class SevenMDCameraModule extends NativeSevenMDCameraModuleSpec {
     private static final String TAG = "SevenMDCameraModule";
-    private static SevenMDCameraView cameraViewRef; // static ref từ view (được set trong ViewManager)
+    private static final int MIN_METRICS_INTERVAL_MS = 250;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Runnable metricsTick;   // chỉ main thread
 
     public SevenMDCameraModule(ReactApplicationContext reactContext) {
         super(reactContext);
+        initProcessState(reactContext);
     }
 
+    /**
+     * Khởi tạo cấp process, idempotent, thread bất kỳ. Module giờ lazy nên view đầu tiên
+     * (SevenMDCameraViewManager.createViewInstance) cũng gọi — camera screen có thể mở trước khi JS chạm module.
+     */
+    static void initProcessState(Context context) {
+        // Nạp capability index (mmap) trên thread nền để lần open đầu tiên không phải parse Parameters
+        CameraCapabilityIndex.get().loadAsync(context);
+        // Dựng index kho ảnh (liệt kê cacheDir một lần) trên thread nền
+        CaptureStore.get().init(context);
+        // onTrimMemory → budget JPEG / preview / ZSL; đăng ký trên main thread (TurboModule có thể init trên JS thread)
+        new Handler(Looper.getMainLooper()).post(() -> CameraMemoryPolicy.get().register(context));
+    }
+
+    // Tìm view theo React tag; không có → reject luôn để JS không bị treo promise
+    private static SevenMDCameraView resolveView(int viewTag, Promise promise) {
+        SevenMDCameraView view = CameraViewRegistry.get(viewTag);
+        if (view == null) {
+            promise.reject("E_NO_CAMERA", "No camera view with tag " + viewTag);
+        }
+        return view;
+    }
+
+    /** options: { outputs?: [{maxSide, quality?}] } — null = chỉ ảnh gốc */
     @Override
-    public String getName() {
-        return "SevenMDCameraModule";
+    public void capture(int viewTag, @Nullable ReadableMap options, Promise promise) {
+        SevenMDCameraView view = resolveView(viewTag, promise);
+        if (view == null) return;
+        view.capture(CaptureOptions.from(options), promise);
     }
 
-    // Được gọi từ View để gắn ref camera hiện tại
-    public static void setCameraViewRef(SevenMDCameraView ref) {
-        cameraViewRef = ref;
+    @Override
+    public void captureBurst(int viewTag, int count, double intervalMs, Promise promise) {
+        SevenMDCameraView view = resolveView(viewTag, promise);
+        if (view == null) return;
+        view.captureBurst(count, (long) intervalMs, promise);
     }
 
-    @ReactMethod
-    public void capture(Promise promise) {
-        if (cameraViewRef == null) {
-            promise.reject("E_NO_CAMERA", "Camera view is not attached");
-            return;
-        }
-        cameraViewRef.capture(promise);
+    @Override
+    public void startContinuousCapture(int viewTag, double intervalMs, Promise promise) {
+        SevenMDCameraView view = resolveView(viewTag, promise);
+        if (view == null) return;
+        view.startContinuousCapture((long) intervalMs, promise);
+    }
+
+    @Override
+    public void stopContinuousCapture(int viewTag, Promise promise) {
+        SevenMDCameraView view = resolveView(viewTag, promise);
+        if (view == null) return;
+        view.stopContinuousCapture(promise);
+    }
+
+    /** Dump trace ring buffer (tối đa maxEvents sự kiện gần nhất) — chỉ dựng chuỗi khi JS hỏi */
+    @Override
+    public void dumpTrace(int maxEvents, Promise promise) {
+        promise.resolve(CameraTrace.dump(maxEvents));
+    }
+
+    // region ===== Capture store =====
+
+    /** Ghim ảnh để không bị evict (vd. chưa upload xong); resolve false nếu uri không thuộc kho */
+    @Override
+    public void pinPhoto(String uri, Promise promise) {
+        CaptureStore.get().pin(uri, promise::resolve);
+    }
+
+    /** JS đã dùng xong ảnh (vd. upload xong) → xoá khỏi kho; resolve false nếu uri không thuộc kho */
+    @Override
+    public void releasePhoto(String uri, Promise promise) {
+        CaptureStore.get().release(uri, promise::resolve);
+    }
+
+    /** Budget của kho; <= 0 → giá trị mặc định (200MB / 500 ảnh) */
+    @Override
+    public void setCaptureStoreBudget(double maxBytes, int maxCount) {
+        CaptureStore.get().setBudget((long) maxBytes, maxCount);
+    }
+    // endregion
+
+    // region ===== Metrics =====
+
+    @Override
+    public void getMetrics(Promise promise) {
+        promise.resolve(CameraMetrics.get().snapshot());
+    }
+
+    @Override
+    public void resetMetrics() {
+        CameraMetrics.get().reset();
+    }
+
+    /** Phát sự kiện onMetrics mỗi intervalMs (tối thiểu 250ms) cho tới khi stopMetricsUpdates() */
+    @Override
+    public void startMetricsUpdates(double intervalMs) {
+        long period = Math.max(MIN_METRICS_INTERVAL_MS, (long) intervalMs);
+        mainHandler.post(() -> {
+            if (metricsTick != null) mainHandler.removeCallbacks(metricsTick);
+            Runnable tick = new Runnable() {
+                @Override
+                public void run() {
+                    if (metricsTick != this) return;
+                    ReactApplicationContext context = getReactApplicationContext();
+                    if (context.hasActiveReactInstance()) {
+                        context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                                .emit("onMetrics", CameraMetrics.get().snapshot());
+                    }
+                    mainHandler.postDelayed(this, period);
+                }
+            };
+            metricsTick = tick;
+            mainHandler.postDelayed(tick, period);
+            Log.d(TAG, "[startMetricsUpdates] Phát onMetrics mỗi " + period + "ms");
+        });
+    }
+
+    @Override
+    public void stopMetricsUpdates() {
+        mainHandler.post(() -> {
+            if (metricsTick != null) mainHandler.removeCallbacks(metricsTick);
+            metricsTick = null;
+        });
+    }
+
+    // NativeEventEmitter bên JS yêu cầu hai method này
+    @Override
+    public void addListener(String eventName) {
+    }
+
+    @Override
+    public void removeListeners(double count) {
+    }
+
+    @Override
+    public void invalidate() {
+        stopMetricsUpdates();
+        super.invalidate();
     }
+    // endregion
 }
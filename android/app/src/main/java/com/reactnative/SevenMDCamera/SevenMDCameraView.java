@@ -6,22 +6,31 @@ import android.hardware.Camera;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import android.view.OrientationEventListener;
 import android.view.TextureView;
 import android.widget.FrameLayout;
 
 import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.facebook.react.uimanager.UIManagerHelper;
+import com.facebook.react.uimanager.events.EventDispatcher;
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReactMethod;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import androidx.core.content.ContextCompat;
 import androidx.core.app.ActivityCompat;
 import android.app.Activity;
@@ -30,14 +39,16 @@ import android.Manifest;
 
 /**
  * SevenMDCameraView — Camera1 lifecycle theo phong cách Google Camera1.java
+ * - Gọi camera qua CameraDriver (mặc định Camera1Driver) → lifecycle chạy được với driver giả
  * - Tách openCamera / setUpPreview / startCameraPreview
  * - Quản lý SurfaceTexture đúng vòng đời
  * - Mọi thao tác camera trên background thread để tránh race/ANR
  * - Log chi tiết từng bước
  */
 @SuppressWarnings("deprecation")
-public class SevenMDCameraView extends FrameLayout implements TextureView.SurfaceTextureListener {
+public class SevenMDCameraView extends FrameLayout implements TextureView.SurfaceTextureListener, LifecycleEventListener {
     private static final String TAG = "tt                                 t";
+    private static final int TRACE_EVENTS_ON_ERROR = 64;
 
     // region ===== UI / Context =====
     private final ReactContext reactContext;
@@ -45,19 +56,90 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
     // endregion
 
     // region ===== Camera / Threading =====
-    private Camera camera;                      // Trạng thái camera
+    private CameraDriver camera;                // Handle camera (Camera1 hoặc driver cài qua CameraDrivers) — chỉ camera thread đọc/ghi
     private HandlerThread bgThread;             // Luồng nền cho thao tác camera
-    private Handler bgHandler;                  // Handler của luồng nền
+    private volatile Handler bgHandler;         // Handler của luồng nền; chỉ main ghi, null khi thread dừng / giao cho holder
+    @Nullable private volatile CaptureScheduler captureScheduler; // Hàng đợi capture, sống cùng bgThread
+    private final PreviewBufferPool previewBufferPool = new PreviewBufferPool(PreviewBufferPool.DEFAULT_CAPACITY);
+    private final Map<FrameProcessor, FrameProcessorRunner> processorRunners = new HashMap<>(); // chỉ main thread
+    @Nullable private volatile ZslRing zslRing;  // != null khi captureMode="zsl"
+    private static final long ZSL_SHARPEST_WINDOW_MS = 200;
+    private volatile boolean zslPickSharpest = false;
+    @Nullable private volatile FrameQualityAnalyzer qualityAnalyzer; // Bật khi cần chọn frame nét / phát onFrameQuality
+    @Nullable private FrameProcessorRunner qualityRunner;             // chỉ main thread
+    private volatile int frameQualityIntervalMs = 0;
+    private long lastFrameQualityEventAt = 0;                         // chỉ worker của analyzer
     // endregion
 
-    // region ===== State flags =====
-    private boolean isOpening = false;          // Đang mở camera?
-    private boolean isPreviewActive = false;    // Preview đang chạy?
-    private boolean isSurfaceReady = false;     // SurfaceTexture đã sẵn sàng?
-    private boolean surfaceWasDestroyed = false;// Surface vừa bị destroy?
-    private boolean mustReattach = false;       // Cần gắn lại preview khi surface quay lại?
+    // region ===== State =====
+    private final CameraStateMachine state = new CameraStateMachine();
+    private final AtomicBoolean restartPending = new AtomicBoolean(false); // Gộp các yêu cầu restart dư thừa
+    // Các field dưới đây chỉ camera thread đọc/ghi
+    private boolean surfaceReady = false;       // SurfaceTexture đã sẵn sàng?
+    @Nullable private SurfaceTexture previewSurface; // Surface TextureView đã giao qua listener (không hỏi lại TextureView)
     private int retryCount = 0;                 // Số lần retry open camera khi HAL bận
-    private long lastCloseTime = 0;
+    @Nullable private WarmCameraHolder.Parked adoptedWarm; // Camera nhận lại từ holder, dùng ở doOpen()
+    // endregion
+
+    // region ===== Negotiated settings =====
+    private volatile CameraSettingsNegotiator.FpsPolicy fpsPolicy = CameraSettingsNegotiator.FpsPolicy.DEFAULT;
+    private volatile int pictureMaxSide = 0;    // 0 = độ phân giải lớn nhất
+    // Các field dưới đây chỉ camera thread đọc/ghi
+    @Nullable private CameraCapabilities capabilities;                  // Của camera đang mở
+    @Nullable private CameraSettingsNegotiator.Settings appliedSettings; // Đã setParameters()
+    private int surfaceWidth = 0, surfaceHeight = 0;
+    // endregion
+
+    // region ===== Open latency =====
+    private int cameraId = 0;                   // back camera
+    private volatile CameraDrivers.Backend backend = CameraDrivers.Backend.CAMERA1;
+    private int keepWarmMs = 0;                 // > 0: giữ ấm camera sau detach để remount nhanh
+    private volatile long openRequestedAt = 0;  // Mốc đo time-to-first-frame
+    private volatile boolean awaitingFirstFrame = false;
+    private volatile long lastTimeToFirstFrameMs = -1;
+    // endregion
+
+    // region ===== Suspend (app background / view bị che) =====
+    /** Khi app vào background hoặc view bị ẩn mà không unmount */
+    enum BackgroundPolicy {
+        SUSPEND,   // dừng preview, giữ camera mở; quá suspendReleaseMs mới release
+        RELEASE,   // release camera ngay, resume = mở lại
+        NONE;      // giữ preview chạy (hành vi cũ)
+
+        static BackgroundPolicy from(@Nullable String value) {
+            if (value == null) return SUSPEND;
+            switch (value) {
+                case "release": return RELEASE;
+                case "none": return NONE;
+                default: return SUSPEND;
+            }
+        }
+    }
+
+    private volatile BackgroundPolicy backgroundPolicy = BackgroundPolicy.SUSPEND;
+    private volatile int suspendReleaseMs = 10_000;     // 0 = giữ camera mở suốt thời gian suspend
+    // Main thread
+    private boolean hostResumed = true;
+    private boolean visibleAggregated = true;
+    private boolean suspendRequested = false;
+    // Camera thread
+    private boolean suspended = false;
+    @Nullable private Runnable suspendReleaseTask;
+    private volatile long resumeRequestedAt = 0;
+    private volatile boolean awaitingResumeFrame = false;
+    private volatile boolean resumeWarm = false;
+    // endregion
+
+    // region ===== Orientation =====
+    private OrientationEventListener orientationListener;
+    private volatile int deviceOrientation = 0;  // Góc thiết bị gần nhất (độ), cập nhật trên main thread
+    // endregion
+
+    // region ===== Capture config =====
+    private PhotoWriter.FsyncPolicy fsyncPolicy = PhotoWriter.FsyncPolicy.DATA;
+    private int captureCoalesceMs = 0;                 // 0 = không coalesce
+    private int captureTimeoutMs = 10_000;
+    @Nullable private volatile BurstSession burst;     // Phiên burst/continuous đang chạy
     // endregion
 
     public SevenMDCameraView(Context context) {
@@ -72,6 +154,12 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
         textureView = new TextureView(getContext());
         addView(textureView);
         textureView.setSurfaceTextureListener(this);
+        orientationListener = new OrientationEventListener(getContext()) {
+            @Override
+            public void onOrientationChanged(int orientation) {
+                if (orientation != ORIENTATION_UNKNOWN) deviceOrientation = orientation;
+            }
+        };
         Log.d(TAG, "[init] Khởi tạo xong. TextureView đã set SurfaceTextureListener");
     }
     // endregion
@@ -96,10 +184,24 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
             Log.d(TAG, "[startBgThread] Bỏ qua: bgThread đã tồn tại");
             return;
         }
-        Log.d(TAG, "[startBgThread] Tạo HandlerThread 'CameraBackground'...");
-        bgThread = new HandlerThread("CameraBackground");
-        bgThread.start();
+        WarmCameraHolder.Parked warm = WarmCameraHolder.take(cameraId);
+        if (warm != null) {
+            Log.d(TAG, "[startBgThread] Nhận lại HandlerThread + camera đang giữ ấm");
+            bgThread = warm.thread;
+            adoptedWarm = warm;   // các post sau đó đảm bảo camera thread thấy giá trị này
+        } else {
+            Log.d(TAG, "[startBgThread] Tạo HandlerThread 'CameraBackground'...");
+            bgThread = new HandlerThread("CameraBackground");
+            bgThread.start();
+        }
         bgHandler = new Handler(bgThread.getLooper());
+        state.setOwner(bgThread);
+        suspended = false;   // thread mới (hoặc nhận lại từ holder) → các post sau thấy giá trị này
+        suspendReleaseTask = null;
+        CaptureScheduler scheduler = new CaptureScheduler(bgHandler, this::shootOnce, this::recoverAfterCaptureTimeout);
+        scheduler.setCoalesceWindowMs(captureCoalesceMs);
+        scheduler.setTimeoutMs(captureTimeoutMs);
+        captureScheduler = scheduler;
         Log.d(TAG, "[startBgThread] HandlerThread đã sẵn sàng");
     }
 
@@ -109,6 +211,8 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
             return;
         }
         Log.d(TAG, "[stopBgThread] Dừng HandlerThread an toàn...");
+        CaptureScheduler scheduler = captureScheduler;
+        captureScheduler = null;
         try {
             bgThread.quitSafely();
             bgThread.join();
@@ -116,283 +220,1028 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
         } catch (InterruptedException e) {
             Log.e(TAG, "[stopBgThread] Lỗi khi join thread: ", e);
         } finally {
+            // Thread đã dừng → settle nốt các capture còn treo, không để promise nào bị bỏ rơi
+            if (scheduler != null) scheduler.shutdown("E_CAMERA_CLOSED", "Camera view was detached");
+            abandonBurst();
+            if (!state.is(CameraStateMachine.State.CLOSED)) {
+                Log.w(TAG, "[stopBgThread] Thread dừng khi state=" + state.get() + " → ép về CLOSED");
+                state.forceClosed();
+            }
             bgThread = null;
             bgHandler = null;
             Log.d(TAG, "[stopBgThread] Đã giải phóng tham chiếu thread/handler");
         }
     }
+
+    /**
+     * Detach khi bật keepWarmMs: chuyển camera + thread cho WarmCameraHolder thay vì release.
+     * Thread không bị dừng ở đây — từ giờ holder sở hữu nó.
+     */
+    private void handOffToWarmHolder() {
+        HandlerThread thread = bgThread;
+        Handler handler = bgHandler;
+        CaptureScheduler scheduler = captureScheduler;
+        captureScheduler = null;
+        bgThread = null;
+        bgHandler = null;
+        // Giữ chỗ ngay trên main: view remount liền sau đó take() được thread này thay vì mở camera thứ hai
+        WarmCameraHolder.Parked reservation = WarmCameraHolder.reserve(thread, cameraId, keepWarmMs);
+        Log.d(TAG, "[handOffToWarmHolder] Gửi camera vào WarmCameraHolder (" + keepWarmMs + "ms)");
+
+        handler.post(() -> {
+            if (scheduler != null) scheduler.shutdown("E_CAMERA_CLOSED", "Camera view was detached");
+            abandonBurst();
+            if (!state.get().hasCamera()) {
+                WarmCameraHolder.park(reservation, null);
+                return;
+            }
+            CameraDriver cam = camera;
+            state.transition(CameraStateMachine.State.CLOSING);
+            try { cam.stopPreview(); } catch (Exception ignore) {}
+            previewBufferPool.detach(cam);
+            camera = null;
+            capabilities = null;
+            appliedSettings = null;
+            state.transition(CameraStateMachine.State.CLOSED);
+            WarmCameraHolder.park(reservation, cam);
+        });
+    }
+
+    /** Main thread → camera thread. Mọi thay đổi trạng thái camera đều đi qua đây. */
+    private boolean postCameraEvent(Runnable event) {
+        return postCameraEventDelayed(event, 0);
+    }
+
+    private boolean postCameraEventDelayed(Runnable event, long delayMs) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // Camera thread / thread khác: không tự start thread — view có thể đã detach, thread mới sẽ rò rỉ
+            boolean posted = postToCameraThread(event, delayMs);
+            if (!posted) Log.d(TAG, "[postCameraEvent] Camera thread đã dừng → bỏ event");
+            return posted;
+        }
+        if (bgHandler == null) {
+            Log.d(TAG, "[postCameraEvent] bgHandler == null → startBgThread()");
+            startBgThread();
+        }
+        return bgHandler.postDelayed(event, delayMs);
+    }
+
+    /**
+     * Post lên camera thread từ thread bất kỳ (kể cả chính camera thread), không tự start thread.
+     * Main có thể vừa null bgHandler (stopBgThread / handOffToWarmHolder) hoặc looper đã quit →
+     * trả false để caller settle / dọn dẹp, thay vì NPE hoặc task rơi mất im lặng.
+     */
+    private boolean postToCameraThread(Runnable task, long delayMs) {
+        Handler handler = bgHandler;
+        if (handler == null) return false;
+        return handler.postDelayed(task, delayMs);
+    }
+
+    /** Yêu cầu gắn lại + start preview; nhiều yêu cầu liên tiếp chỉ chạy một lần */
+    private void requestRestartPreview() {
+        if (!restartPending.compareAndSet(false, true)) {
+            Log.d(TAG, "[requestRestartPreview] Đã có restart đang chờ → gộp");
+            return;
+        }
+        if (!postCameraEvent(this::doRestartPreview)) restartPending.set(false);   // không thì mọi restart sau bị gộp mất
+    }
     // endregion
 
-    // region ===== Camera Lifecycle (Google-style) =====
+    // region ===== Camera Lifecycle (Google-style, chạy trên camera thread) =====
 
-    /** B1: Mở camera trên bg thread (không block UI) */
-    private void openCameraSafe() {
-        if (!ensureCameraPermission()) {
-            Log.w(TAG, "[openCameraSafe] Permission not ready, abort openCamera.");
+    /** B1: Mở camera. Gọi dư thừa khi đang/đã mở sẽ bị bỏ qua nhờ state machine. */
+    private void doOpen() {
+        if (!state.is(CameraStateMachine.State.CLOSED)) {
+            Log.d(TAG, "[doOpen] Bỏ qua: state=" + state.get());
             return;
         }
-        long sinceClose = System.currentTimeMillis() - lastCloseTime;
-        if (sinceClose < 1000) {
-            Log.w(TAG, "[openCameraSafe] Camera vừa đóng " + sinceClose + "ms trước → hoãn reopen");
-            new Handler(Looper.getMainLooper()).postDelayed(this::openCameraSafe, 1000 - sinceClose);
+        if (suspended) {
+            Log.d(TAG, "[doOpen] Bỏ qua: đang suspend, resume sẽ mở lại");
             return;
         }
-
-        if (camera != null || isOpening) {
-            Log.w(TAG, "[openCameraSafe] Bỏ qua: camera!=null(" + (camera != null) + "), isOpening=" + isOpening);
+        if (!ensureCameraPermission()) {
+            Log.w(TAG, "[doOpen] Permission not ready, abort openCamera.");
             return;
         }
-        if (bgHandler == null) {
-            Log.d(TAG, "[openCameraSafe] bgHandler == null → startBgThread()");
-            startBgThread();
+        WarmCameraHolder.Parked warm = adoptedWarm;
+        adoptedWarm = null;
+        if (warm != null && warm.camera == null) warm = null;   // view cũ không có camera → open bình thường
+        // View trước vừa detach và đang release camera trên thread của nó → mở ngay khi release xong
+        Handler self = bgHandler;
+        if (self == null) {
+            Log.d(TAG, "[doOpen] Bỏ qua: view đã dừng camera thread");
+            return;
+        }
+        if (warm == null && WarmCameraHolder.runAfterPendingReleases(self, this::doOpen)) {
+            Log.d(TAG, "[doOpen] Có camera đang release → chờ release xong rồi mở");
+            return;
         }
-        isOpening = true;
-        Log.d(TAG, "[openCameraSafe] Gửi yêu cầu mở camera lên bg thread...");
 
-        bgHandler.post(() -> {
-            Log.d(TAG, "[openCameraSafe/bg] Bắt đầu mở camera (Camera.open(0))...");
-            try {
-                camera = Camera.open(0); // back camera
-                if (camera == null) {
-                    Log.e(TAG, "[openCameraSafe/bg] Camera.open() trả về null");
-                    emitError("Camera.open() returned null");
-                    return;
-                }
-                Log.d(TAG, "[openCameraSafe/bg] Camera.open() thành công, chuyển sang setUpPreview()");
-                setUpPreview(); // B2
-                Log.d(TAG, "[openCameraSafe/bg] setUpPreview() xong, chuyển sang startCameraPreview()");
-                startCameraPreview(); // B3
+        state.transition(CameraStateMachine.State.OPENING);
+        CameraTrace.record(CameraTrace.EV_OPEN_BEGIN, cameraId, warm != null ? 1 : 0);
+        try {
+            if (warm != null) {
+                Log.d(TAG, "[doOpen] Dùng lại camera giữ ấm, bỏ qua open()");
+                camera = warm.camera;
+            } else {
+                Log.d(TAG, "[doOpen] Bắt đầu mở camera (CameraDrivers.open(" + cameraId + ", " + backend + "))...");
+                camera = CameraDrivers.open(getContext(), cameraId, backend);
+            }
+            if (camera == null) {
+                Log.e(TAG, "[doOpen] open() trả về null");
+                state.transition(CameraStateMachine.State.CLOSED);
+                emitError("Camera.open() returned null");
+                return;
+            }
+            CameraDriver opened = camera;
+            opened.setErrorCallback(message -> onCameraError(opened, message));   // camera giữ ấm: trỏ lại view này
+            state.transition(CameraStateMachine.State.OPEN);
+            retryCount = 0;
+            loadCapabilities();
+            appliedSettings = null;
+            Log.d(TAG, "[doOpen] open() thành công, chuyển sang setUpPreview()");
+            setUpPreview(); // B2
+            Log.d(TAG, "[doOpen] setUpPreview() xong, chuyển sang startCameraPreview()");
+            startCameraPreview(); // B3
 
-                retryCount = 0;
-                emitCameraReady();
-                Log.d(TAG, "✅ [openCameraSafe/bg] Camera mở + preview đã start thành công");
+            long openMs = state.enteredAt(CameraStateMachine.State.OPEN) - state.enteredAt(CameraStateMachine.State.OPENING);
+            CameraTrace.record(CameraTrace.EV_OPEN_END, cameraId, openMs);
+            if (warm == null) CameraMetrics.get().openLatency.record(openMs);   // warm open ~0ms, không tính
+            emitCameraReady(warm != null, openMs);
+            Log.d(TAG, "✅ [doOpen] Camera mở xong sau " + openMs + "ms (warm=" + (warm != null) + "), state=" + state.get());
 
-            } catch (Exception e) {
-                String msg = (e.getMessage() != null ? e.getMessage() : "unknown");
-                Log.e(TAG, "❌ [openCameraSafe/bg] Lỗi mở camera: " + msg, e);
+        } catch (Exception e) {
+            String msg = (e.getMessage() != null ? e.getMessage() : "unknown");
+            Log.e(TAG, "❌ [doOpen] Lỗi mở camera: " + msg, e);
+            CameraTrace.record(CameraTrace.EV_OPEN_FAIL, cameraId, retryCount);
 
-                if (msg.contains("Fail to connect to camera service") && retryCount < 3) {
+            if (camera == null) {
+                state.transition(CameraStateMachine.State.CLOSED);
+                if (msg.contains("Fail to connect to camera service") && retryCount < 4) {
                     retryCount++;
-                    Log.w(TAG, "[openCameraSafe/bg] Camera service bận, sẽ retry sau 1s... (lần " + retryCount + ")");
-                    int delay = 1200 + retryCount * 300; // tăng dần 1.2s → 1.5s → 1.8s
-                    new Handler(Looper.getMainLooper()).postDelayed(this::openCameraSafe, delay);
-                } else {
-                    emitError("openCamera failed: " + msg);
+                    CameraMetrics.get().onOpenRetry();
+                    int delay = 100 << (retryCount - 1); // backoff ngắn 100 → 200 → 400 → 800ms
+                    Log.w(TAG, "[doOpen] Camera service bận, sẽ retry sau " + delay + "ms (lần " + retryCount + ")");
+                    if (!postToCameraThread(this::doOpen, delay)) {
+                        Log.d(TAG, "[doOpen] Camera thread đã dừng → bỏ retry");
+                    }
+                    return;
                 }
-
-            } finally {
-                isOpening = false;
-                Log.d(TAG, "[openCameraSafe/bg] Kết thúc openCamera, isOpening=false");
             }
-        });
+            CameraMetrics.get().onOpenFailed();
+            emitError("openCamera failed: " + msg);
+        }
+    }
+
+    /**
+     * Camera thread: camera mất sau khi đã mở (bị client khác thu hồi, camera service chết...) → báo JS,
+     * release rồi mở lại; client kia còn giữ camera thì doOpen() đi đường retry "service bận".
+     */
+    private void onCameraError(CameraDriver source, String message) {
+        if (camera != source || !state.get().hasCamera()) {
+            Log.d(TAG, "[onCameraError] Bỏ qua lỗi của camera đã đóng / đã giao cho holder: " + message);
+            return;
+        }
+        Log.e(TAG, "❌ [onCameraError] " + message + " → đóng và mở lại, state=" + state.get());
+        emitError("Camera error: " + message);
+        doClose();
+        retryCount = 0;
+        doOpen();
     }
 
     /** B2: Gắn đích preview (Camera → SurfaceTexture) như setUpPreview() trong Camera1.java */
     private void setUpPreview() throws IOException {
         Log.d(TAG, "[setUpPreview] Bắt đầu...");
-        if (camera == null) {
-            Log.w(TAG, "[setUpPreview] Bỏ qua: camera == null");
+        if (!state.get().hasCamera()) {
+            Log.w(TAG, "[setUpPreview] Bỏ qua: state=" + state.get());
             return;
         }
-        SurfaceTexture surface = textureView.getSurfaceTexture();
-        Log.d(TAG, "[setUpPreview] Lấy SurfaceTexture từ TextureView: " + (surface != null));
-        if (surface == null) {
-            Log.w(TAG, "[setUpPreview] SurfaceTexture null → không thể setPreviewTexture ngay");
-            mustReattach = true;
+        SurfaceTexture surface = previewSurface;
+        Log.d(TAG, "[setUpPreview] SurfaceTexture từ TextureView: " + (surface != null));
+        if (surface == null || !surfaceReady) {
+            Log.w(TAG, "[setUpPreview] Surface chưa sẵn sàng → chờ onSurfaceTextureAvailable gắn lại");
             return;
         }
+        applyNegotiatedSettings();
         camera.setPreviewTexture(surface);
         Log.d(TAG, "[setUpPreview] Đã setPreviewTexture(surface).");
+        Handler self = bgHandler;
+        if (previewBufferPool.hasListeners() && self != null) {
+            previewBufferPool.attach(camera, self);
+            Log.d(TAG, "[setUpPreview] Đã gắn PreviewBufferPool (setPreviewCallbackWithBuffer)");
+        }
+    }
+
+    /**
+     * Capability từ index trên đĩa nếu có (không round trip HAL); chưa có → parse Parameters một lần rồi lưu.
+     * Index lưu theo Camera1 — backend khác đọc thẳng driver (Camera2 đọc CameraCharacteristics, không mở HAL).
+     */
+    private void loadCapabilities() {
+        if (!"camera1".equals(camera.backend())) {
+            capabilities = camera.readCapabilities();
+            return;
+        }
+        CameraCapabilityIndex index = CameraCapabilityIndex.get();
+        CameraCapabilities cached = index.capabilities(cameraId);
+        if (cached != null) {
+            capabilities = cached;
+            return;
+        }
+        capabilities = camera.readCapabilities();
+        index.put(cameraId, capabilities);
+        Log.d(TAG, "[loadCapabilities] Parse Parameters của camera " + cameraId + " và lưu vào index");
+    }
+
+    /** Negotiate lại theo kích thước surface hiện tại; chỉ setParameters() khi kết quả đổi. Preview phải đang dừng. */
+    private void applyNegotiatedSettings() {
+        CameraSettingsNegotiator.Settings next = negotiateSettings();
+        if (next == null || next.equals(appliedSettings)) return;
+        try {
+            camera.applySettings(next);
+            appliedSettings = next;
+            Log.d(TAG, "[applyNegotiatedSettings] " + next);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "[applyNegotiatedSettings] applySettings() lỗi: " + e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    private CameraSettingsNegotiator.Settings negotiateSettings() {
+        if (capabilities == null) return null;
+        return CameraSettingsNegotiator.negotiate(capabilities, surfaceWidth, surfaceHeight, effectivePictureMaxSide(), fpsPolicy);
+    }
+
+    /** pictureMaxSide của JS, bị CameraMemoryPolicy hạ thêm khi thiếu RAM; 0 = không giới hạn */
+    private int effectivePictureMaxSide() {
+        int requested = pictureMaxSide;
+        int cap = CameraMemoryPolicy.get().pictureMaxSideCap();
+        if (cap <= 0) return requested;
+        return requested <= 0 ? cap : Math.min(requested, cap);
+    }
+
+    /** Camera thread: co/giãn preview pool, ZSL ring và picture size theo mức bộ nhớ hiện tại */
+    private void applyMemoryBudget() {
+        CameraMemoryPolicy policy = CameraMemoryPolicy.get();
+        ZslRing ring = zslRing;
+        if (ring != null) ring.setActiveSlots(policy.zslSlotCount());
+        int buffers = policy.previewBufferCount();
+        if (buffers != previewBufferPool.capacity()) {
+            previewBufferPool.setCapacity(buffers);
+            Handler self = bgHandler;
+            if (previewBufferPool.isAttached() && state.get().hasCamera() && self != null) previewBufferPool.attach(camera, self);
+        }
+        if (policy.level() == CameraMemoryPolicy.Level.CRITICAL) previewBufferPool.trimIfDetached();
+        renegotiateIfChanged();   // picture size mới có hiệu lực ở lần restart preview kế tiếp
+    }
+
+    private final CameraMemoryPolicy.Listener memoryListener = level -> {
+        Handler handler = bgHandler;
+        if (handler != null) handler.post(this::applyMemoryBudget);
+    };
+
+    /** Camera thread: restart preview chỉ khi negotiate cho kết quả khác lần trước */
+    private void renegotiateIfChanged() {
+        if (!state.get().hasCamera()) return;
+        CameraSettingsNegotiator.Settings next = negotiateSettings();
+        if (next == null || next.equals(appliedSettings)) {
+            Log.d(TAG, "[renegotiateIfChanged] Không đổi → giữ preview đang chạy");
+            return;
+        }
+        requestRestartPreview();
     }
 
-    /** B3: Start preview, giống startCameraPreview() của Camera1.java */
+    /** B3: Start preview, giống startCameraPreview() của Camera1.java. OPEN → PREVIEWING */
     private void startCameraPreview() {
         Log.d(TAG, "[startCameraPreview] Bắt đầu...");
-        if (camera == null) {
-            Log.w(TAG, "[startCameraPreview] Bỏ qua: camera == null");
+        if (!state.is(CameraStateMachine.State.OPEN)) {
+            Log.d(TAG, "[startCameraPreview] Bỏ qua: state=" + state.get());
             return;
         }
-        if (isPreviewActive) {
-            Log.d(TAG, "[startCameraPreview] Preview đã chạy → bỏ qua");
+        if (!surfaceReady) {
+            Log.d(TAG, "[startCameraPreview] Bỏ qua: surface chưa sẵn sàng");
+            return;
+        }
+        if (suspended) {
+            Log.d(TAG, "[startCameraPreview] Bỏ qua: đang suspend");
             return;
         }
         try {
             camera.startPreview();
-            isPreviewActive = true;
-            Log.d(TAG, "▶️ [startCameraPreview] camera.startPreview() OK, isPreviewActive=true");
+            state.transition(CameraStateMachine.State.PREVIEWING);
+            Log.d(TAG, "▶️ [startCameraPreview] camera.startPreview() OK");
         } catch (Exception e) {
-            isPreviewActive = false;
             Log.e(TAG, "⛔ [startCameraPreview] Lỗi startPreview: " + e.getMessage(), e);
         }
     }
 
+    /** PREVIEWING → OPEN */
+    private void stopCameraPreview() {
+        if (!state.is(CameraStateMachine.State.PREVIEWING)) return;
+        ZslRing ring = zslRing;
+        if (ring != null) ring.clear();   // frame cũ không còn khớp với những gì người dùng thấy
+        try {
+            camera.stopPreview();
+        } catch (Exception e) {
+            Log.e(TAG, "[stopCameraPreview] stopPreview() lỗi: " + e.getMessage());
+        }
+        state.transition(CameraStateMachine.State.OPEN);
+    }
+
     /** Tái gắn preview và khởi động lại khi surface được recreate (học từ updateSurface+start của Camera1) */
-    private void restartPreviewIfNeeded() {
-        Log.d(TAG, "[restartPreviewIfNeeded] Bắt đầu...");
-        if (camera == null) {
-            Log.d(TAG, "[restartPreviewIfNeeded] camera == null → openCameraSafe()");
-            openCameraSafe();
-            return;
+    private void doRestartPreview() {
+        restartPending.set(false);
+        CameraTrace.record(CameraTrace.EV_RESTART_PREVIEW, state.get().ordinal(), 0);
+        Log.d(TAG, "[doRestartPreview] Bắt đầu, state=" + state.get());
+        switch (state.get()) {
+            case CLOSED:
+                doOpen();
+                return;
+            case CAPTURING:
+                // JPEG callback sẽ tự start lại preview
+                Log.d(TAG, "[doRestartPreview] Đang chụp → để capture callback restart");
+                return;
+            case OPEN:
+            case PREVIEWING:
+                stopCameraPreview();
+                try {
+                    setUpPreview();
+                } catch (Exception e) {
+                    Log.e(TAG, "[doRestartPreview] Lỗi setUpPreview(): " + e.getMessage(), e);
+                }
+                startCameraPreview();
+                Log.d(TAG, "[doRestartPreview] Hoàn tất restart preview, state=" + state.get());
+                return;
+            default:
+                Log.d(TAG, "[doRestartPreview] Bỏ qua: state=" + state.get());
         }
-        if (bgHandler == null) {
-            Log.d(TAG, "[restartPreviewIfNeeded] bgHandler == null → startBgThread()");
-            startBgThread();
+    }
+
+    /** Giải phóng camera an toàn (tương tự stop()+release trong Camera1) */
+    private void doClose() {
+        Log.d(TAG, "[doClose] Bắt đầu đóng camera, state=" + state.get());
+        if (!state.get().hasCamera()) {
+            Log.d(TAG, "[doClose] Bỏ qua: không có camera");
+            return;
         }
-        bgHandler.post(() -> {
-            Log.d(TAG, "[restartPreviewIfNeeded/bg] Dừng preview (nếu đang chạy)...");
+        state.transition(CameraStateMachine.State.CLOSING);
+        CameraTrace.record(CameraTrace.EV_CLOSE, cameraId, 0);
+        try {
+            Log.d(TAG, "[doClose] stopPreview() nếu cần...");
             try { camera.stopPreview(); } catch (Exception ignore) {}
-            isPreviewActive = false;
 
-            Log.d(TAG, "[restartPreviewIfNeeded/bg] Gọi setUpPreview() để gắn lại surface...");
+            Log.d(TAG, "[doClose] clear preview callback...");
+            previewBufferPool.detach(camera);
+
+            Log.d(TAG, "[doClose] release camera...");
+            WarmCameraHolder.beginRelease();
             try {
-                setUpPreview();
-            } catch (Exception e) {
-                Log.e(TAG, "[restartPreviewIfNeeded/bg] Lỗi setUpPreview(): " + e.getMessage(), e);
+                camera.release();
+            } finally {
+                WarmCameraHolder.endRelease();
             }
-
-            Log.d(TAG, "[restartPreviewIfNeeded/bg] Gọi startCameraPreview()...");
-            startCameraPreview();
-            Log.d(TAG, "[restartPreviewIfNeeded/bg] Hoàn tất restart preview.");
-        });
+            Log.d(TAG, "🛑 [doClose] Camera released cleanly");
+        } catch (Exception e) {
+            Log.e(TAG, "⛔ [doClose] Lỗi khi release camera: " + e.getMessage(), e);
+        } finally {
+            camera = null;
+            capabilities = null;
+            appliedSettings = null;
+            ZslRing ring = zslRing;
+            if (ring != null) ring.clear();
+            state.transition(CameraStateMachine.State.CLOSED);
+            // Camera đã release → shot đang chờ JPEG không bao giờ xong; settle ngay thay vì chờ timeout
+            CaptureScheduler scheduler = captureScheduler;
+            if (scheduler != null) scheduler.abortInFlight("E_CAMERA_CLOSED", "Camera was closed during capture");
+            closeBurst();
+        }
     }
 
-    /** Giải phóng camera an toàn (tương tự stop()+release trong Camera1) */
-    private void closeCameraSafe() {
-        lastCloseTime = System.currentTimeMillis();
-        Log.d(TAG, "[closeCameraSafe] Bắt đầu đóng camera...");
-        if (camera == null) {
-            Log.d(TAG, "[closeCameraSafe] Bỏ qua: camera == null");
+    /** Camera thread: app background / view bị ẩn → dừng preview, giữ handle (hoặc release theo policy) */
+    private void doSuspend(boolean releaseNow, int releaseAfterMs) {
+        if (suspended) return;
+        suspended = true;
+        awaitingResumeFrame = false;
+        CameraTrace.record(CameraTrace.EV_SUSPEND, state.get().ordinal(), releaseNow ? 1 : 0);
+        Log.d(TAG, "[doSuspend] state=" + state.get() + ", releaseNow=" + releaseNow + ", releaseAfterMs=" + releaseAfterMs);
+        if (releaseNow) {
+            doClose();
             return;
         }
-        if (bgHandler == null) {
-            Log.d(TAG, "[closeCameraSafe] bgHandler == null → startBgThread() tạm để dọn dẹp");
-            startBgThread();
+        stopCameraPreview();   // CAPTURING: JPEG callback thấy suspended và không start lại preview
+        if (releaseAfterMs > 0 && state.get().hasCamera()) {
+            Runnable task = () -> {
+                suspendReleaseTask = null;
+                if (!suspended) return;
+                Log.d(TAG, "[doSuspend] Suspend quá " + releaseAfterMs + "ms → release camera");
+                doClose();
+            };
+            suspendReleaseTask = postToCameraThread(task, releaseAfterMs) ? task : null;
         }
-        bgHandler.post(() -> {
-            try {
-                Log.d(TAG, "[closeCameraSafe/bg] stopPreview() nếu cần...");
-                try { camera.stopPreview(); } catch (Exception ignore) {}
-                isPreviewActive = false;
-
-                Log.d(TAG, "[closeCameraSafe/bg] clear preview callback...");
-                try { camera.setPreviewCallback(null); } catch (Exception ignore) {}
+    }
 
-                Log.d(TAG, "[closeCameraSafe/bg] release camera...");
-                camera.release();
-                Log.d(TAG, "🛑 [closeCameraSafe/bg] Camera released cleanly");
-            } catch (Exception e) {
-                Log.e(TAG, "⛔ [closeCameraSafe/bg] Lỗi khi release camera: " + e.getMessage(), e);
-            } finally {
-                camera = null;
-                Log.d(TAG, "[closeCameraSafe/bg] Đặt camera=null, isPreviewActive=false");
-            }
-        });
+    /** Camera thread: start lại preview trên camera đang giữ (không reopen); đã bị release thì mở lại */
+    private void doResume() {
+        if (!suspended) return;
+        suspended = false;
+        if (suspendReleaseTask != null) {
+            // bgHandler == null: task vẫn có thể chạy trên thread đã giao cho holder, nhưng thấy !suspended và bỏ qua
+            Handler handler = bgHandler;
+            if (handler != null) handler.removeCallbacks(suspendReleaseTask);
+            suspendReleaseTask = null;
+        }
+        boolean warm = state.get().hasCamera();
+        resumeWarm = warm;
+        awaitingResumeFrame = true;   // onSurfaceTextureUpdated đo resume → frame đầu tiên
+        CameraTrace.record(CameraTrace.EV_RESUME, warm ? 1 : 0, 0);
+        Log.d(TAG, "[doResume] warm=" + warm + ", state=" + state.get());
+        doRestartPreview();
     }
     // endregion
 
     // region ===== Capture =====
-    @ReactMethod
     public void capture(Promise promise) {
-        Log.d(TAG, "[capture] Bắt đầu chụp...");
-        if (camera == null) {
-            Log.e(TAG, "[capture] Bỏ qua: camera == null");
+        capture(CaptureOptions.DEFAULT, promise);
+    }
+
+    public void capture(CaptureOptions options, Promise promise) {
+        Log.d(TAG, "[capture] Nhận yêu cầu chụp → xếp vào CaptureScheduler");
+        if (!state.get().hasCamera()) {
+            Log.e(TAG, "[capture] Bỏ qua: camera chưa mở, state=" + state.get());
             emitError("capture() called but camera == null");
+            promise.reject("E_NO_CAMERA", "Camera is not open");
+            return;
+        }
+        CaptureScheduler scheduler = captureScheduler;
+        if (scheduler == null) {
+            promise.reject("E_CAMERA_CLOSED", "Camera thread is not running");
+            return;
+        }
+        scheduler.submit(promise, options);
+    }
+
+    /**
+     * Camera thread (CaptureScheduler, shot đang chạy bị timeout): HAL không trả JPEG nên state kẹt ở CAPTURING.
+     * Đóng rồi mở lại để về PREVIEWING trước khi request kế tiếp chạy; JPEG muộn của driver cũ bị bỏ sau release().
+     */
+    private void recoverAfterCaptureTimeout() {
+        if (!state.is(CameraStateMachine.State.CAPTURING)) return;   // ZSL / đã có callback → không kẹt
+        Log.w(TAG, "[recoverAfterCaptureTimeout] Shot không trả kết quả → đóng và mở lại camera");
+        emitError("Capture timed out, reopening camera");
+        doClose();
+        doOpen();
+    }
+
+    /** capture() từ view command: không có promise JS → lỗi báo qua onError, ảnh qua onPictureSaved */
+    void captureFromCommand() {
+        capture(new PromiseImpl(
+                args -> Log.d(TAG, "[captureFromCommand] Chụp xong (kết quả đã gửi qua onPictureSaved)"),
+                args -> {
+                    Object info = args.length > 0 ? args[0] : null;
+                    String message = info instanceof ReadableMap && ((ReadableMap) info).hasKey("message")
+                            ? ((ReadableMap) info).getString("message") : "capture command failed";
+                    emitError(message);
+                }));
+    }
+
+    /** Chạy trên bg thread (do CaptureScheduler gọi): một takePicture() (hoặc một frame ZSL) → một file */
+    private void shootOnce(CaptureOptions options, long requestedAtMs, CaptureScheduler.ShotCallback callback) {
+        if (!state.get().hasCamera()) {
+            callback.onFailed("E_NO_CAMERA", "Camera closed before capture", null);
             return;
         }
+        if (burst != null || state.is(CameraStateMachine.State.CAPTURING)) {
+            callback.onFailed("E_CAPTURE_BUSY", "Another capture is in progress", null);
+            return;
+        }
+        if (!state.is(CameraStateMachine.State.PREVIEWING)) {
+            callback.onFailed("E_NOT_READY", "Preview is not running", null);
+            return;
+        }
+        if (shootFromZsl(options, requestedAtMs, callback)) return;
+        state.transition(CameraStateMachine.State.CAPTURING);
+        long shutterAt = SystemClock.elapsedRealtime();
+        int exifOrientation = exifOrientationForShot();   // theo góc thiết bị lúc bấm chụp
+        CameraTrace.record(CameraTrace.EV_CAPTURE_BEGIN, 0, exifOrientation);
         try {
-            camera.takePicture(null, null, (data, cam) -> {
-                Log.d(TAG, "[capture/callback] Nhận dữ liệu ảnh, bắt đầu lưu...");
-                File file = new File(getContext().getCacheDir(),
-                        "photo_" + System.currentTimeMillis() + ".jpg");
-                try (FileOutputStream fos = new FileOutputStream(file)) {
-                    fos.write(data);
-                    fos.flush();
-                    Log.d(TAG, "[capture/callback] Lưu ảnh OK: " + file.getAbsolutePath());
-
-                    WritableMap map = Arguments.createMap();
-                    map.putString("uri", "file://" + file.getAbsolutePath());
-
-                    promise.resolve(map);
-                    Log.d(TAG, "📸 [capture/callback] Capture result: " + map.toString());
-                    
-                    emitPictureSaved(map);
-                    Log.d(TAG, "📸 [capture/callback] Emit onPictureSaved");
-                    return;
-                } catch (IOException e) {
-                    Log.e(TAG, "⛔ [capture/callback] Lỗi lưu ảnh: " + e.getMessage(), e);
-                    emitError("Error saving picture: " + e.getMessage());
-                    promise.reject(e);
+            CameraDriver cam = camera;
+            cam.takePicture(new CameraDriver.PictureCallback() {
+                @Override
+                public void onPictureTaken(byte[] data) {
+                    long jpegAt = SystemClock.elapsedRealtime();
+                    CameraTrace.record(CameraTrace.EV_JPEG, data.length, jpegAt - shutterAt);
+                    CameraMetrics.get().shutterToJpeg.record(jpegAt - shutterAt);
+                    restartPreviewAfterCapture(cam);
+
+                    saveCapture(data, options, exifOrientation, jpegAt, callback);
                 }
 
-                try {
-                    Log.d(TAG, "[capture/callback] restart preview sau chụp...");
-                    cam.startPreview();
-                    isPreviewActive = true;
-                } catch (Exception ex) {
-                    isPreviewActive = false;
-                    Log.e(TAG, "⛔ [capture/callback] Failed to restart preview: " + ex.getMessage(), ex);
-                    promise.reject(ex);
+                @Override
+                public void onPictureFailed(String reason) {
+                    restartPreviewAfterCapture(cam);
+                    callback.onFailed("E_CAPTURE_FAILED", reason, null);
                 }
             });
         } catch (Exception e) {
+            state.transition(CameraStateMachine.State.PREVIEWING);
             Log.e(TAG, "⛔ [capture] Lỗi takePicture(): " + e.getMessage(), e);
             emitError("capture() failed: " + e.getMessage());
-            promise.reject(e);
+            callback.onFailed("E_CAPTURE_FAILED", "takePicture failed: " + e.getMessage(), e);
         }
     }
-    // endregion
 
-    // region ===== TextureView Callbacks (Google Camera1 lifecycle) =====
-    @Override
-    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
-        if(camera != null) {
-            Log.d(TAG, "[onSurfaceTextureAvailable] da co camera roi, return...");
-            return;
+    /**
+     * JPEG đã có (takePicture hoặc ZSL) → ghi file + thumbnail + outputs song song; callback khi tất cả xong.
+     * Thread bất kỳ.
+     */
+    private void saveCapture(byte[] data, CaptureOptions options, int exifOrientation, long jpegAt,
+                             CaptureScheduler.ShotCallback callback) {
+        File photoFile = newPhotoFile();
+        File thumbFile = CaptureStore.get().thumbnailFileFor(photoFile);
+        // Thumbnail chạy song song với việc ghi file; promise resolve khi cả hai xong
+        ThumbnailGenerator.Job thumbJob = ThumbnailGenerator.get().submit(data, thumbFile, exifOrientation);
+        // outputs: fan-out song song từ cùng byte[] JPEG, không chờ file gốc ghi xong
+        OutputDeriver.Job outputsJob = options.outputs.isEmpty() ? null
+                : OutputDeriver.get().submit(getContext(), data, options.outputs, exifOrientation);
+        boolean accepted = PhotoWriter.getInstance().write(photoFile, data, exifOrientation, fsyncPolicy, new PhotoWriter.Callback() {
+            @Override
+            public void onWritten(File written, long bytes) {
+                long writeMs = SystemClock.elapsedRealtime() - jpegAt;
+                CameraTrace.record(CameraTrace.EV_WRITE_DONE, bytes, writeMs);
+                CameraMetrics.get().onPhotoWritten(bytes, writeMs);
+                CaptureStore.get().commit(written, bytes);
+                String uri = "file://" + written.getAbsolutePath();
+                thumbJob.whenDone(thumbnail -> {
+                    if (outputsJob == null) {
+                        deliver(new CaptureResult(uri, thumbnail));
+                        return;
+                    }
+                    outputsJob.whenDone(outputs -> deliver(new CaptureResult(uri, thumbnail, outputs)));
+                });
+            }
+
+            private void deliver(CaptureResult result) {
+                callback.onSaved(result);
+                emitPictureSaved(result.toWritableMap());
+            }
+
+            @Override
+            public void onError(File failed, Exception e) {
+                thumbJob.whenDone(thumbnail -> deleteQuietly(thumbFile));
+                emitError("Error saving picture: " + e.getMessage());
+                callback.onFailed("E_SAVE_FAILED", "Error saving picture: " + e.getMessage(), e);
+            }
+        });
+        if (!accepted) {
+            CameraTrace.record(CameraTrace.EV_WRITE_DROPPED, data.length, 0);
+            CameraMetrics.get().onCaptureDropped();
+            thumbJob.whenDone(thumbnail -> deleteQuietly(thumbFile));
+            emitError("Error saving picture: writer queue full");
+            callback.onFailed("E_WRITER_BUSY", "Photo writer queue is full", null);
         }
-        Log.d(TAG, "[onSurfaceTextureAvailable] Surface có sẵn: w=" + width + ", h=" + height);
-        surfaceWasDestroyed = false;
-        isSurfaceReady = true;
+    }
 
-        // Theo Google: nếu surface quay lại sau khi destroy → start()/restart preview
-        startBgThread();
-        Log.d(TAG, "[onSurfaceTextureAvailable] Đợi 300–500ms cho surface ổn định rồi gắn preview...");
-        bgHandler.postDelayed(() -> {
-            if (surfaceWasDestroyed) {
-                Log.w(TAG, "[onSurfaceTextureAvailable] Bỏ qua, surface vừa bị destroy lại");
-                return;
+    /**
+     * Camera thread: ZSL — lấy preview frame gần lúc bấm nhất trong ring và nén trên worker,
+     * không qua takePicture() nên preview không dừng. false = ring chưa có frame → chụp thường.
+     */
+    private boolean shootFromZsl(CaptureOptions options, long requestedAtMs, CaptureScheduler.ShotCallback callback) {
+        ZslRing ring = zslRing;
+        if (ring == null) return false;
+        FrameQualityAnalyzer analyzer = qualityAnalyzer;
+        ZslRing.Slot slot = zslPickSharpest && analyzer != null
+                ? ring.acquireSharpest(requestedAtMs, ZSL_SHARPEST_WINDOW_MS, analyzer)
+                : ring.acquireClosest(requestedAtMs);
+        if (slot == null) return false;
+        long shutterAt = SystemClock.elapsedRealtime();
+        int exifOrientation = exifOrientationForShot();
+        CameraTrace.record(CameraTrace.EV_CAPTURE_BEGIN, 2, shutterAt - slot.timestampMs);
+        ZslRing.encodeAsync(slot, ZslRing.JPEG_QUALITY, new ZslRing.EncodeCallback() {
+            @Override
+            public void onEncoded(byte[] jpeg) {
+                long jpegAt = SystemClock.elapsedRealtime();
+                CameraTrace.record(CameraTrace.EV_JPEG, jpeg.length, jpegAt - shutterAt);
+                CameraMetrics.get().shutterToJpeg.record(jpegAt - shutterAt);
+                saveCapture(jpeg, options, exifOrientation, jpegAt, callback);
             }
-            if (camera == null) {
-                Log.d(TAG, "[onSurfaceTextureAvailable] camera==null → openCameraSafe()");
-                openCameraSafe();
-            } else {
-                Log.d(TAG, "[onSurfaceTextureAvailable] camera!=null → restartPreviewIfNeeded()");
-                restartPreviewIfNeeded();
+
+            @Override
+            public void onEncodeFailed(Exception e) {
+                Log.e(TAG, "⛔ [zsl] Lỗi nén frame: " + e.getMessage(), e);
+                emitError("ZSL capture failed: " + e.getMessage());
+                callback.onFailed("E_CAPTURE_FAILED", "ZSL encode failed: " + e.getMessage(), e);
             }
-        }, 500);
+        });
+        return true;
+    }
+
+    /**
+     * Sau takePicture() Camera1 tự dừng preview → start lại ngay khi có JPEG, không chờ ghi file. CAPTURING → PREVIEWING.
+     * Camera2 preview không dừng → startPreview() là no-op, chỉ đổi state.
+     */
+    private void restartPreviewAfterCapture(CameraDriver cam) {
+        if (!state.is(CameraStateMachine.State.CAPTURING)) return;   // camera đã bị đóng giữa chừng
+        if (suspended) {
+            state.transition(CameraStateMachine.State.OPEN);        // resume sẽ start lại preview
+            return;
+        }
+        try {
+            cam.startPreview();
+            state.transition(CameraStateMachine.State.PREVIEWING);
+        } catch (Exception ex) {
+            state.transition(CameraStateMachine.State.OPEN);
+            Log.e(TAG, "⛔ [capture/callback] Failed to restart preview: " + ex.getMessage(), ex);
+            emitError("Failed to restart preview: " + ex.getMessage());
+        }
+    }
+
+    private File newPhotoFile() {
+        return CaptureStore.get().newFile(getContext());
+    }
+
+    /** Camera thread: EXIF Orientation cho shot sắp chụp, từ CameraInfo (index, không gọi HAL) + góc thiết bị */
+    private int exifOrientationForShot() {
+        int sensorOrientation;
+        boolean front;
+        CameraCapabilityIndex.Entry entry = CameraCapabilityIndex.get().entry(cameraId);
+        if (entry != null) {
+            sensorOrientation = entry.orientation;
+            front = entry.facing == Camera.CameraInfo.CAMERA_FACING_FRONT;
+        } else {
+            Camera.CameraInfo info = new Camera.CameraInfo();
+            Camera.getCameraInfo(cameraId, info);
+            sensorOrientation = info.orientation;
+            front = info.facing == Camera.CameraInfo.CAMERA_FACING_FRONT;
+        }
+        int rotation = ExifOrientationPatcher.jpegRotation(sensorOrientation, front, deviceOrientation);
+        return ExifOrientationPatcher.exifOrientationForDegrees(rotation);
+    }
+
+    private static void deleteQuietly(File file) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    void setFsyncPolicy(@Nullable String policy) {
+        fsyncPolicy = PhotoWriter.FsyncPolicy.from(policy);
+    }
+
+    void setCaptureCoalesceMs(int ms) {
+        captureCoalesceMs = ms;
+        CaptureScheduler scheduler = captureScheduler;
+        if (scheduler != null) scheduler.setCoalesceWindowMs(ms);
+    }
+
+    /** "takePicture" (mặc định, full quality) | "zsl" (frame preview gần lúc bấm nhất, không shutter lag). Main thread. */
+    void setCaptureMode(@Nullable String mode) {
+        boolean zsl = "zsl".equals(mode);
+        ZslRing current = zslRing;
+        if (zsl == (current != null)) return;
+        if (zsl) {
+            ZslRing ring = new ZslRing(ZslRing.DEFAULT_CAPACITY);
+            zslRing = ring;
+            addPreviewFrameListener(ring);
+            int slots = CameraMemoryPolicy.get().zslSlotCount();
+            Handler handler = bgHandler;
+            if (slots < ZslRing.DEFAULT_CAPACITY && handler != null) handler.post(() -> ring.setActiveSlots(slots));
+        } else {
+            zslRing = null;
+            removePreviewFrameListener(current);
+        }
+        Log.d(TAG, "[setCaptureMode] captureMode=" + (zsl ? "zsl" : "takePicture"));
+    }
+
+    void setZslSelection(@Nullable String selection) {
+        zslPickSharpest = "sharpest".equals(selection);
+        updateQualityAnalyzer();
+    }
+
+    void setFrameQualityIntervalMs(int ms) {
+        frameQualityIntervalMs = Math.max(0, ms);
+        updateQualityAnalyzer();
+    }
+
+    /** Main thread: bật/tắt FrameQualityAnalyzer theo props; chạy qua FrameProcessorRunner như processor ngoài */
+    private void updateQualityAnalyzer() {
+        boolean needed = zslPickSharpest || frameQualityIntervalMs > 0;
+        if (needed == (qualityAnalyzer != null)) return;
+        if (needed) {
+            FrameQualityAnalyzer analyzer = new FrameQualityAnalyzer();
+            analyzer.setListener(this::onFrameQuality);
+            qualityAnalyzer = analyzer;
+            qualityRunner = new FrameProcessorRunner(analyzer);
+            addPreviewFrameListener(qualityRunner);
+        } else {
+            disposeQualityAnalyzer();
+        }
+    }
+
+    private void disposeQualityAnalyzer() {
+        FrameQualityAnalyzer analyzer = qualityAnalyzer;
+        if (analyzer == null) return;
+        qualityAnalyzer = null;
+        removePreviewFrameListener(qualityRunner);
+        qualityRunner.close();
+        qualityRunner = null;
+        analyzer.shutdown();
+    }
+
+    /** Worker của analyzer: phát onFrameQuality, giới hạn theo frameQualityIntervalMs */
+    private void onFrameQuality(long timestampMs, double sharpness, double meanLuma, double darkFraction, double brightFraction) {
+        int interval = frameQualityIntervalMs;
+        if (interval <= 0 || timestampMs - lastFrameQualityEventAt < interval) return;
+        lastFrameQualityEventAt = timestampMs;
+        WritableMap event = Arguments.createMap();
+        event.putDouble("timestampMs", timestampMs);
+        event.putDouble("sharpness", sharpness);
+        event.putDouble("meanLuma", meanLuma);
+        event.putDouble("darkFraction", darkFraction);
+        event.putDouble("brightFraction", brightFraction);
+        sendEvent("onFrameQuality", event);
+    }
+
+    /** ViewManager.onDropViewInstance: giải phóng worker không gắn với vòng đời attach/detach */
+    void dispose() {
+        disposeQualityAnalyzer();
+    }
+
+    void setCaptureTimeoutMs(int ms) {
+        captureTimeoutMs = ms;
+        CaptureScheduler scheduler = captureScheduler;
+        if (scheduler != null) scheduler.setTimeoutMs(ms);
+    }
+    // endregion
+
+    // region ===== Burst / Continuous =====
+
+    /** Chụp liên tiếp count ảnh, mỗi shot cách nhau tối thiểu intervalMs */
+    public void captureBurst(int count, long intervalMs, Promise promise) {
+        if (count <= 0) {
+            promise.reject("E_INVALID_ARGUMENT", "count must be > 0");
+            return;
+        }
+        startBurst(new BurstSession(count, intervalMs, promise), promise);
+    }
+
+    /** Chụp liên tục đến khi stopContinuousCapture(); promise resolve ngay khi bắt đầu */
+    public void startContinuousCapture(long intervalMs, Promise promise) {
+        if (startBurst(new BurstSession(0, intervalMs, null), promise)) {
+            promise.resolve(null);
+        }
+    }
+
+    /** Dừng continuous/burst; resolve {uris, results, captured, dropped} khi các file đang ghi xong */
+    public void stopContinuousCapture(Promise promise) {
+        BurstSession session = burst;
+        if (session == null) {
+            promise.reject("E_NOT_CAPTURING", "No burst or continuous capture is running");
+            return;
+        }
+        Log.d(TAG, "[stopContinuousCapture] Yêu cầu dừng phiên chụp liên tiếp");
+        session.stop(promise);
+        session.settleIfDone();
+    }
+
+    private boolean startBurst(BurstSession session, Promise promise) {
+        if (!state.get().hasCamera()) {
+            promise.reject("E_NO_CAMERA", "Camera is not open");
+            return false;
+        }
+        if (state.is(CameraStateMachine.State.CAPTURING) || burst != null) {
+            promise.reject("E_CAPTURE_BUSY", "Another capture is in progress");
+            return false;
+        }
+        Log.d(TAG, "[startBurst] count=" + session.count + ", intervalMs=" + session.intervalMs);
+        burst = session;
+        if (!postToCameraThread(() -> shootNextInBurst(session), 0)) {
+            burst = null;
+            promise.reject("E_NO_CAMERA", "Camera thread is not running");
+            return false;
+        }
+        return true;
+    }
+
+    /** Chạy trên bg thread: bắn shot kế tiếp, hoặc kết thúc phiên */
+    private void shootNextInBurst(BurstSession session) {
+        if (burst != session) return;
+        if (!session.shouldShootMore() || !state.get().hasCamera()) {
+            finishBurst(session);
+            return;
+        }
+        if (!state.is(CameraStateMachine.State.PREVIEWING)) {
+            Log.w(TAG, "[burst] Preview không chạy (state=" + state.get() + ") → dừng phiên");
+            burst = null;
+            session.fail("E_NOT_READY", "Preview stopped during burst");
+            return;
+        }
+        session.lastShutterAt = System.currentTimeMillis();
+
+        // Backpressure: writer đầy thì bỏ slot này luôn, không tạo thêm byte[] JPEG
+        if (PhotoWriter.getInstance().isSaturated()) {
+            CameraTrace.record(CameraTrace.EV_WRITE_DROPPED, 0, 1);
+            CameraMetrics.get().onCaptureDropped();
+            session.onSkipped();
+            scheduleNextInBurst(session);
+            return;
+        }
+
+        session.onShutter();
+        state.transition(CameraStateMachine.State.CAPTURING);
+        long shutterAt = SystemClock.elapsedRealtime();
+        int exifOrientation = exifOrientationForShot();
+        CameraTrace.record(CameraTrace.EV_CAPTURE_BEGIN, 1, exifOrientation);
+        try {
+            CameraDriver cam = camera;
+            cam.takePicture(new CameraDriver.PictureCallback() {
+                @Override
+                public void onPictureTaken(byte[] data) {
+                    long jpegAt = SystemClock.elapsedRealtime();
+                    CameraTrace.record(CameraTrace.EV_JPEG, data.length, jpegAt - shutterAt);
+                    CameraMetrics.get().shutterToJpeg.record(jpegAt - shutterAt);
+                    session.onPictureTaken();
+                    restartPreviewAfterCapture(cam);
+                    // Pipeline: xếp lịch shot kế tiếp ngay, việc ghi file chạy song song
+                    scheduleNextInBurst(session);
+
+                    // Cùng đường ghi với capture(): file + thumbnail, onPictureSaved cùng dạng kết quả
+                    session.onWriteQueued();
+                    saveCapture(data, CaptureOptions.DEFAULT, exifOrientation, jpegAt, new CaptureScheduler.ShotCallback() {
+                        @Override
+                        public void onSaved(CaptureResult result) {
+                            session.onWritten(result);
+                            session.settleIfDone();
+                        }
+
+                        @Override
+                        public void onFailed(String code, String message, @Nullable Throwable cause) {
+                            session.onWriteFailed();
+                            session.settleIfDone();
+                        }
+                    });
+                }
+
+                @Override
+                public void onPictureFailed(String reason) {
+                    // Shot mất nhưng burst vẫn đi tiếp như khi bị drop
+                    CameraMetrics.get().onCaptureDropped();
+                    session.onShotFailed();
+                    restartPreviewAfterCapture(cam);
+                    scheduleNextInBurst(session);
+                }
+            });
+        } catch (Exception e) {
+            state.transition(CameraStateMachine.State.PREVIEWING);
+            Log.e(TAG, "⛔ [burst] Lỗi takePicture(): " + e.getMessage(), e);
+            burst = null;
+            emitError("captureBurst failed: " + e.getMessage());
+            session.fail("E_CAPTURE_FAILED", "takePicture failed: " + e.getMessage());
+        }
+    }
+
+    private void scheduleNextInBurst(BurstSession session) {
+        long elapsed = System.currentTimeMillis() - session.lastShutterAt;
+        if (!postToCameraThread(() -> shootNextInBurst(session), Math.max(0, session.intervalMs - elapsed))) {
+            if (burst == session) burst = null;
+            session.fail("E_NO_CAMERA", "Camera thread stopped during burst");
+        }
+    }
+
+    /** Thread camera dừng / giao cho holder: phiên burst đang chạy không còn ai bắn tiếp → reject ngay */
+    private void abandonBurst() {
+        BurstSession session = burst;
+        if (session == null) return;
+        burst = null;
+        session.fail("E_CAMERA_CLOSED", "Camera view was detached");
+    }
+
+    /**
+     * Camera thread, camera vừa đóng: kết thúc phiên burst đang chạy. Promise resolve với các file đã chụp
+     * khi các lượt ghi còn lại xong; burst = null → capture() / startBurst() sau đó không còn bị E_CAPTURE_BUSY.
+     */
+    private void closeBurst() {
+        BurstSession session = burst;
+        if (session == null) return;
+        Log.d(TAG, "[closeBurst] Camera đóng giữa phiên chụp liên tiếp → kết thúc phiên");
+        burst = null;
+        session.onCameraClosed();
+        session.settleIfDone();
+    }
+
+    private void finishBurst(BurstSession session) {
+        Log.d(TAG, "[finishBurst] Kết thúc phiên chụp liên tiếp");
+        if (burst == session) burst = null;
+        session.stop(null);
+        session.settleIfDone();
+    }
+    // endregion
+
+    // region ===== Preview frames =====
+
+    /** Đăng ký nhận preview frame (NV21, buffer mượn từ pool — không cấp phát theo frame) */
+    public void addPreviewFrameListener(PreviewBufferPool.FrameListener listener) {
+        boolean first = !previewBufferPool.hasListeners();
+        previewBufferPool.addListener(listener);
+        Handler handler = bgHandler;
+        if (first && handler != null) {
+            handler.post(() -> {
+                if (state.get().hasCamera() && previewBufferPool.hasListeners()) previewBufferPool.attach(camera, handler);
+            });
+        }
+    }
+
+    public void removePreviewFrameListener(PreviewBufferPool.FrameListener listener) {
+        previewBufferPool.removeListener(listener);
+        Handler handler = bgHandler;
+        if (!previewBufferPool.hasListeners() && handler != null) {
+            handler.post(() -> {
+                if (state.get().hasCamera() && !previewBufferPool.hasListeners()) previewBufferPool.detach(camera);
+            });
+        }
+    }
+
+    PreviewBufferPool getPreviewBufferPool() {
+        return previewBufferPool;
+    }
+
+    private final FrameProcessorRegistry.Observer processorObserver = new FrameProcessorRegistry.Observer() {
+        @Override
+        public void onProcessorAdded(FrameProcessor processor) {
+            post(() -> attachFrameProcessor(processor));
+        }
+
+        @Override
+        public void onProcessorRemoved(FrameProcessor processor) {
+            post(() -> detachFrameProcessor(processor));
+        }
+    };
+
+    /** Main thread: mỗi processor một runner (worker thread riêng) nghe từ pool */
+    private void attachFrameProcessor(FrameProcessor processor) {
+        if (processorRunners.containsKey(processor)) return;
+        Log.d(TAG, "[attachFrameProcessor] " + processor.getName() + ", targetFps=" + processor.getTargetFps());
+        FrameProcessorRunner runner = new FrameProcessorRunner(processor);
+        processorRunners.put(processor, runner);
+        addPreviewFrameListener(runner);
+    }
+
+    private void detachFrameProcessor(FrameProcessor processor) {
+        FrameProcessorRunner runner = processorRunners.remove(processor);
+        if (runner == null) return;
+        Log.d(TAG, "[detachFrameProcessor] " + processor.getName());
+        removePreviewFrameListener(runner);
+        runner.close();
+    }
+
+    private void attachFrameProcessors() {
+        FrameProcessorRegistry.addObserver(processorObserver);
+        for (FrameProcessor processor : FrameProcessorRegistry.snapshot()) attachFrameProcessor(processor);
+    }
+
+    private void detachFrameProcessors() {
+        FrameProcessorRegistry.removeObserver(processorObserver);
+        for (FrameProcessor processor : new ArrayList<>(processorRunners.keySet())) detachFrameProcessor(processor);
+    }
+    // endregion
+
+    // region ===== TextureView Callbacks (Google Camera1 lifecycle) =====
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        Log.d(TAG, "[onSurfaceTextureAvailable] Surface có sẵn: w=" + width + ", h=" + height + ", state=" + state.get());
+        CameraTrace.record(CameraTrace.EV_SURFACE_AVAILABLE, width, height);
+        markOpenRequested();
+        // Theo Google: nếu surface quay lại sau khi destroy → start()/restart preview.
+        // Không chờ cố định: event surfaceReady và restart được xử lý tuần tự trên camera thread.
+        postCameraEvent(() -> {
+            surfaceReady = true;
+            previewSurface = surface;
+            surfaceWidth = width;
+            surfaceHeight = height;
+        });
+        requestRestartPreview();   // CLOSED → mở camera; OPEN/PREVIEWING → gắn lại surface
     }
 
     @Override
     public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
-        Log.d(TAG, "[onSurfaceTextureSizeChanged] Kích thước mới: w=" + width + ", h=" + height + ". Sẽ gắn lại preview.");
-        // Giống tinh thần updateSurface() của Camera1: chỉ cần gắn lại preview là được.
-        restartPreviewIfNeeded();
+        Log.d(TAG, "[onSurfaceTextureSizeChanged] Kích thước mới: w=" + width + ", h=" + height + " → negotiate lại");
+        CameraTrace.record(CameraTrace.EV_SURFACE_SIZE, width, height);
+        // Giống tinh thần updateSurface() của Camera1, nhưng chỉ gắn lại preview khi preview size thực sự đổi
+        postCameraEvent(() -> {
+            surfaceWidth = width;
+            surfaceHeight = height;
+            renegotiateIfChanged();
+        });
     }
 
     @Override
     public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
         Log.d(TAG, "[onSurfaceTextureDestroyed] Surface bị destroy → chỉ dừng preview, KHÔNG release camera ngay");
-        surfaceWasDestroyed = true;
-        isSurfaceReady = false;
-
-        if (camera != null && bgHandler != null) {
-            bgHandler.post(() -> {
-                try {
-                    camera.stopPreview();
-                    isPreviewActive = false;
-                    Log.d(TAG, "[onSurfaceTextureDestroyed/bg] stopPreview() OK, giữ camera mở để restart sau");
-                } catch (Exception e) {
-                    Log.e(TAG, "[onSurfaceTextureDestroyed/bg] stopPreview() lỗi: " + e.getMessage());
-                }
+        CameraTrace.record(CameraTrace.EV_SURFACE_DESTROYED, 0, 0);
+        Handler handler = bgHandler;
+        if (handler != null) {
+            handler.post(() -> {
+                surfaceReady = false;
+                previewSurface = null;
+                stopCameraPreview();
+                Log.d(TAG, "[onSurfaceTextureDestroyed/bg] Đã dừng preview, giữ camera mở để restart sau, state=" + state.get());
             });
         }
         return true; // vẫn giữ surface release logic
@@ -400,13 +1249,26 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
 
     @Override
     public void onSurfaceTextureUpdated(SurfaceTexture surface) {
-        // Khi khung hình đầu tiên render → đảm bảo preview đang chạy
-        if (!isPreviewActive && camera != null && isSurfaceReady) {
-            Log.d(TAG, "[onSurfaceTextureUpdated] Nhận frame đầu tiên nhưng isPreviewActive=false → restartPreviewIfNeeded()");
-            restartPreviewIfNeeded();
-        } else {
-            Log.d(TAG, "[onSurfaceTextureUpdated] Frame cập nhật. isPreviewActive=" + isPreviewActive
-                    + ", camera=" + (camera != null) + ", isSurfaceReady=" + isSurfaceReady);
+        // Gọi mỗi frame (30 lần/giây) → không Log, không nối chuỗi; chỉ trace primitive
+        CameraStateMachine.State current = state.get();
+        if (CameraTrace.VERBOSE) CameraTrace.record(CameraTrace.EV_FRAME, current.ordinal(), 0);
+        CameraMetrics.get().onPreviewFrame();
+        if (awaitingFirstFrame && current == CameraStateMachine.State.PREVIEWING) {
+            awaitingFirstFrame = false;
+            lastTimeToFirstFrameMs = SystemClock.elapsedRealtime() - openRequestedAt;
+            CameraTrace.record(CameraTrace.EV_FIRST_FRAME, lastTimeToFirstFrameMs, 0);
+            CameraMetrics.get().timeToFirstFrame.record(lastTimeToFirstFrameMs);
+        }
+        if (awaitingResumeFrame && current == CameraStateMachine.State.PREVIEWING) {
+            awaitingResumeFrame = false;
+            long resumeMs = SystemClock.elapsedRealtime() - resumeRequestedAt;
+            CameraTrace.record(CameraTrace.EV_RESUME_FRAME, resumeMs, resumeWarm ? 1 : 0);
+            CameraMetrics.get().resumeLatency.record(resumeMs);
+            emitPreviewResumed(resumeWarm, resumeMs);
+        }
+        if (current == CameraStateMachine.State.OPEN) {
+            // Khung hình đầu tiên render → đảm bảo preview đang chạy
+            requestRestartPreview();
         }
     }
     // endregion
@@ -416,11 +1278,27 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
         Log.d(TAG, "[onAttachedToWindow] View attach vào window. Khởi động bg thread nếu cần.");
-        Log.d(TAG, "[debug] onAttachedToWindow() gọi lại, camera=" + (camera != null));
+        Log.d(TAG, "[debug] onAttachedToWindow() gọi lại, state=" + state.get());
         startBgThread();
+        reactContext.addLifecycleEventListener(this);
+        CameraMemoryPolicy.get().addListener(memoryListener);
+        postCameraEvent(this::applyMemoryBudget);   // mức có thể đã đổi trong lúc view detach
+        updateSuspension();
+        attachFrameProcessors();
+        if (orientationListener.canDetectOrientation()) orientationListener.enable();
         if (textureView != null && textureView.isAvailable()) {
             Log.d(TAG, "[onAttachedToWindow] Texture đã available → đảm bảo preview.");
-            if (camera == null) openCameraSafe(); else restartPreviewIfNeeded();
+            markOpenRequested();
+            SurfaceTexture surface = textureView.getSurfaceTexture();
+            int width = textureView.getWidth();
+            int height = textureView.getHeight();
+            postCameraEvent(() -> {
+                surfaceReady = true;
+                previewSurface = surface;
+                surfaceWidth = width;
+                surfaceHeight = height;
+            });
+            requestRestartPreview();
         }
     }
 
@@ -428,34 +1306,198 @@ public class SevenMDCameraView extends FrameLayout implements TextureView.Surfac
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
         Log.d(TAG, "[onDetachedFromWindow] View detach khỏi window → đóng camera + dừng thread.");
-        closeCameraSafe();
+        detachFrameProcessors();
+        reactContext.removeLifecycleEventListener(this);
+        CameraMemoryPolicy.get().removeListener(memoryListener);
+        suspendRequested = false;
+        orientationListener.disable();
+        awaitingFirstFrame = false;
+        if (keepWarmMs > 0 && bgHandler != null && state.get().hasCamera()) {
+            handOffToWarmHolder();
+            return;
+        }
+        Handler handler = bgHandler;
+        if (handler != null) handler.post(this::doClose);
         stopBgThread();
     }
+
+    /** Mốc bắt đầu đo time-to-first-frame (chỉ khi camera chưa mở) */
+    private void markOpenRequested() {
+        if (awaitingFirstFrame || state.is(CameraStateMachine.State.PREVIEWING)) return;
+        openRequestedAt = SystemClock.elapsedRealtime();
+        awaitingFirstFrame = true;
+    }
+
+    /** Trạng thái vòng đời hiện tại (đọc từ thread bất kỳ; JVM test / soak dùng để chờ) */
+    CameraStateMachine.State cameraState() {
+        return state.get();
+    }
+
+    /** Thời gian từ lúc yêu cầu mở tới frame preview đầu tiên; -1 nếu chưa đo được */
+    long getLastTimeToFirstFrameMs() {
+        return lastTimeToFirstFrameMs;
+    }
+
+    void setKeepWarmMs(int ms) {
+        keepWarmMs = Math.max(0, ms);
+    }
+
+    void setCameraId(int id) {
+        if (id == cameraId) return;
+        cameraId = id;
+        Handler handler = bgHandler;
+        if (handler == null) return;
+        Log.d(TAG, "[setCameraId] Đổi sang camera " + id + " → mở lại");
+        handler.post(() -> {
+            if (!state.get().hasCamera()) return;
+            doClose();
+            doOpen();
+        });
+    }
+
+    /** "camera1" (mặc định) | "camera2"; đổi khi camera đang mở → đóng và mở lại bằng backend mới */
+    void setBackend(@Nullable String value) {
+        CameraDrivers.Backend next = CameraDrivers.Backend.from(value);
+        if (next == backend) return;
+        backend = next;
+        Handler handler = bgHandler;
+        if (handler == null) return;
+        Log.d(TAG, "[setBackend] Đổi sang " + next + " → mở lại");
+        handler.post(() -> {
+            if (!state.get().hasCamera()) return;
+            doClose();
+            doOpen();
+        });
+    }
+
+    /** "back" | "front" → cameraId, tra trong CameraCapabilityIndex (không mở HAL) */
+    void setFacing(@Nullable String facing) {
+        if (facing == null) return;
+        int wanted = "front".equals(facing) ? Camera.CameraInfo.CAMERA_FACING_FRONT : Camera.CameraInfo.CAMERA_FACING_BACK;
+        int id = CameraCapabilityIndex.get().findCameraId(wanted);
+        if (id < 0) {
+            // Index chưa load xong → hỏi thẳng CameraInfo
+            Camera.CameraInfo info = new Camera.CameraInfo();
+            for (int i = 0; i < Camera.getNumberOfCameras() && id < 0; i++) {
+                Camera.getCameraInfo(i, info);
+                if (info.facing == wanted) id = i;
+            }
+        }
+        if (id < 0) {
+            emitError("No camera with facing " + facing);
+            return;
+        }
+        setCameraId(id);
+    }
+
+    void setFpsPolicy(@Nullable String policy) {
+        fpsPolicy = CameraSettingsNegotiator.FpsPolicy.from(policy);
+        Handler handler = bgHandler;
+        if (handler != null) handler.post(this::renegotiateIfChanged);
+    }
+
+    void setPictureMaxSide(int maxSide) {
+        pictureMaxSide = Math.max(0, maxSide);
+        Handler handler = bgHandler;
+        if (handler != null) handler.post(this::renegotiateIfChanged);
+    }
+    // endregion
+
+    // region ===== App lifecycle / visibility (main thread) =====
+    @Override
+    public void onHostResume() {
+        hostResumed = true;
+        updateSuspension();
+    }
+
+    @Override
+    public void onHostPause() {
+        hostResumed = false;
+        updateSuspension();
+    }
+
+    @Override
+    public void onHostDestroy() {
+        Log.d(TAG, "[onHostDestroy] Activity destroy → release camera");
+        WarmCameraHolder.releaseParked();
+        Handler handler = bgHandler;
+        if (handler != null) handler.post(this::doClose);
+    }
+
+    /** View hoặc tổ tiên đổi visibility (vd. màn hình camera bị screen khác che nhưng không unmount) */
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        visibleAggregated = isVisible;
+        updateSuspension();
+    }
+
+    private void updateSuspension() {
+        BackgroundPolicy policy = backgroundPolicy;
+        boolean shouldSuspend = (!hostResumed || !visibleAggregated) && policy != BackgroundPolicy.NONE;
+        if (shouldSuspend == suspendRequested || bgHandler == null) return;
+        suspendRequested = shouldSuspend;
+        if (shouldSuspend) {
+            boolean releaseNow = policy == BackgroundPolicy.RELEASE;
+            int releaseAfterMs = suspendReleaseMs;
+            postCameraEvent(() -> doSuspend(releaseNow, releaseAfterMs));
+        } else {
+            resumeRequestedAt = SystemClock.elapsedRealtime();
+            postCameraEvent(this::doResume);
+        }
+    }
+
+    void setBackgroundPolicy(@Nullable String policy) {
+        backgroundPolicy = BackgroundPolicy.from(policy);
+        updateSuspension();
+    }
+
+    void setSuspendReleaseMs(int ms) {
+        suspendReleaseMs = Math.max(0, ms);
+    }
     // endregion
 
     // region ===== React Events =====
-    private void emitCameraReady() {
+    private void emitCameraReady(boolean warm, long openMs) {
         Log.d(TAG, "[emitCameraReady] Phát sự kiện onCameraReady → RN");
         WritableMap event = Arguments.createMap();
         event.putString("status", "ready");
+        event.putBoolean("warm", warm);
+        event.putDouble("openMs", openMs);
+        event.putString("backend", camera.backend());
         sendEvent("onCameraReady", event);
     }
 
     private void emitError(String message) {
         Log.e(TAG, "[emitError] error=" + message);
+        CameraTrace.record(CameraTrace.EV_ERROR, 0, 0);
         WritableMap event = Arguments.createMap();
         event.putString("error", message);
+        // Chuỗi sự kiện dẫn tới lỗi — chỉ dựng chuỗi ở đây, không bao giờ ở đường nóng
+        if (CameraTrace.ENABLED) event.putString("trace", CameraTrace.dump(TRACE_EVENTS_ON_ERROR));
         sendEvent("onError", event);
     }
 
+    private void emitPreviewResumed(boolean warm, long resumeMs) {
+        WritableMap event = Arguments.createMap();
+        event.putBoolean("warm", warm);
+        event.putDouble("resumeMs", resumeMs);
+        sendEvent("onPreviewResumed", event);
+    }
+
     private void emitPictureSaved(WritableMap data) {
-        Log.d(TAG, "[emitPictureSaved] Phát sự kiện onPictureSaved → RN, uri=" + data.getString("uri"));
         sendEvent("onPictureSaved", data);
     }
 
+    /** Thread bất kỳ; EventDispatcher của Fabric thay cho RCTEventEmitter (chỉ còn qua interop layer) */
     private void sendEvent(String eventName, @Nullable WritableMap event) {
-        Log.d(TAG, "[sendEvent] event=" + eventName + ", hasData=" + (event != null));
-        reactContext.getJSModule(RCTEventEmitter.class).receiveEvent(getId(), eventName, event);
+        if (getId() == NO_ID) return;   // view chưa có React tag (vd. JVM test dựng trực tiếp) → không ai nhận
+        EventDispatcher dispatcher = UIManagerHelper.getEventDispatcherForReactTag(reactContext, getId());
+        if (dispatcher == null) {
+            Log.w(TAG, "[sendEvent] Không có EventDispatcher cho view " + getId() + " → bỏ " + eventName);
+            return;
+        }
+        dispatcher.dispatchEvent(new CameraEvent(UIManagerHelper.getSurfaceId(this), getId(), eventName, event));
     }
     // endregion
 }
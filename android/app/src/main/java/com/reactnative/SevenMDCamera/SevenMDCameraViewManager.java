@@ -1,5 +1,7 @@
 package com.reactnative.SevenMDCamera;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -7,17 +9,26 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.uimanager.SimpleViewManager;
 import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.ViewManagerDelegate;
 import com.facebook.react.uimanager.annotations.ReactProp;
+import com.facebook.react.viewmanagers.SevenMDCameraManagerDelegate;
+import com.facebook.react.viewmanagers.SevenMDCameraManagerInterface;
 import java.util.Map;
 import java.util.HashMap;
 
 /**
  * React Native ViewManager cho SevenMDCameraView (Camera1)
+ * Fabric component (spec: specs/SevenMDCameraNativeComponent.ts): prop / command đi qua delegate do codegen sinh,
+ * setter ở đây implement SevenMDCameraManagerInterface.
  */
-public class SevenMDCameraViewManager extends SimpleViewManager<SevenMDCameraView> {
+public class SevenMDCameraViewManager extends SimpleViewManager<SevenMDCameraView>
+        implements SevenMDCameraManagerInterface<SevenMDCameraView> {
+    private static final String TAG = "SevenMDCameraViewManager";
+    static final String REACT_CLASS = "SevenMDCamera";
     private static final int COMMAND_CAPTURE = 1;
 
     private final ReactApplicationContext reactContext;
+    private final ViewManagerDelegate<SevenMDCameraView> delegate = new SevenMDCameraManagerDelegate<>(this);
 
     public SevenMDCameraViewManager(ReactApplicationContext reactContext) {
         this.reactContext = reactContext;
@@ -26,15 +37,35 @@ public class SevenMDCameraViewManager extends SimpleViewManager<SevenMDCameraVie
     @NonNull
     @Override
     public String getName() {
-        return "SevenMDCamera";
+        return REACT_CLASS;
+    }
+
+    @Override
+    protected ViewManagerDelegate<SevenMDCameraView> getDelegate() {
+        return delegate;
     }
 
     @NonNull
     @Override
     protected SevenMDCameraView createViewInstance(@NonNull ThemedReactContext reactContext) {
-        SevenMDCameraView view = new SevenMDCameraView(reactContext);
-        SevenMDCameraModule.setCameraViewRef(view);
-        return view;
+        // TurboModule lazy → camera screen có thể mount trước khi JS chạm module
+        SevenMDCameraModule.initProcessState(reactContext);
+        return new SevenMDCameraView(reactContext);
+    }
+
+    /**
+     * Được gọi sau khi view đã có React tag → đăng ký vào registry
+     */
+    @Override
+    protected void addEventEmitters(@NonNull ThemedReactContext reactContext, @NonNull SevenMDCameraView view) {
+        CameraViewRegistry.register(view);
+    }
+
+    @Override
+    public void onDropViewInstance(@NonNull SevenMDCameraView view) {
+        CameraViewRegistry.unregister(view);
+        view.dispose();
+        super.onDropViewInstance(view);
     }
 
     /**
@@ -48,6 +79,24 @@ public class SevenMDCameraViewManager extends SimpleViewManager<SevenMDCameraVie
         return map;
     }
 
+    /**
+     * Lệnh từ JS (Commands.takePhoto / UIManager.dispatchViewManagerCommand), tới thẳng view không qua module.
+     * Không có promise → kết quả trả qua onPictureSaved / onError
+     */
+    @Override
+    public void receiveCommand(@NonNull SevenMDCameraView view, String commandId, @Nullable ReadableArray args) {
+        if ("1".equals(commandId)) {   // COMMAND_CAPTURE dạng số (API cũ)
+            takePhoto(view);
+            return;
+        }
+        delegate.receiveCommand(view, commandId, args);
+    }
+
+    @Override
+    public void takePhoto(SevenMDCameraView view) {
+        view.captureFromCommand();
+    }
+
   
     /**
      * Các event native gửi sang JS
@@ -56,21 +105,141 @@ public class SevenMDCameraViewManager extends SimpleViewManager<SevenMDCameraVie
     @Override
     public Map getExportedCustomDirectEventTypeConstants() {
         Map<String, Map<String, String>> events = new HashMap<>();
-        events.put("onCameraReady", Map.of("registrationName", "onCameraReady"));
-        events.put("onPictureSaved", Map.of("registrationName", "onPictureSaved"));
-        events.put("onError", Map.of("registrationName", "onError"));
+        for (String name : new String[]{"onCameraReady", "onPictureSaved", "onError", "onFrameQuality", "onPreviewResumed"}) {
+            events.put(CameraEvent.topLevelName(name), Map.of("registrationName", name));
+        }
         return (Map) events;
     }
 
     /**
-     * Các props (nếu cần trong tương lai)
+     * Các props
      */
     @ReactProp(name = "cameraId", defaultInt = 0)
+    @Override
     public void setCameraId(SevenMDCameraView view, int cameraId) {
-        // Bạn có thể mở rộng để chọn camera trước/sau
+        view.setCameraId(cameraId);
+    }
+
+    /**
+     * "back" | "front" — chọn camera theo hướng, ưu tiên hơn cameraId
+     */
+    @ReactProp(name = "facing")
+    @Override
+    public void setFacing(SevenMDCameraView view, @Nullable String facing) {
+        view.setFacing(facing);
+    }
+
+    /**
+     * "camera1" (mặc định) | "camera2" — Camera2 giữ session + ImageReader, chụp không dừng preview;
+     * máy LEGACY hoặc Camera2 lỗi tự lùi về Camera1 (xem backend trong onCameraReady)
+     */
+    @ReactProp(name = "backend")
+    @Override
+    public void setBackend(SevenMDCameraView view, @Nullable String backend) {
+        view.setBackend(backend);
+    }
+
+    /**
+     * Chính sách fps preview: "default" | "fixed30" | "batterySaver" (15 fps)
+     */
+    @ReactProp(name = "fpsPolicy")
+    @Override
+    public void setFpsPolicy(SevenMDCameraView view, @Nullable String policy) {
+        view.setFpsPolicy(policy);
+    }
+
+    /**
+     * Cạnh dài tối đa của ảnh chụp (px), 0 = lớn nhất camera hỗ trợ
+     */
+    @ReactProp(name = "pictureMaxSide", defaultInt = 0)
+    @Override
+    public void setPictureMaxSide(SevenMDCameraView view, int maxSide) {
+        view.setPictureMaxSide(maxSide);
+    }
+
+    /**
+     * Chính sách fsync khi ghi ảnh: "none" | "data" (mặc định) | "full"
+     */
+    @ReactProp(name = "fsyncPolicy")
+    @Override
+    public void setFsyncPolicy(SevenMDCameraView view, @Nullable String policy) {
+        view.setFsyncPolicy(policy);
+    }
+
+    /**
+     * ZSL chọn frame nào: "closest" (mặc định, gần lúc bấm nhất) | "sharpest" (nét nhất trong ±zslWindowMs)
+     */
+    @ReactProp(name = "zslSelection")
+    @Override
+    public void setZslSelection(SevenMDCameraView view, @Nullable String selection) {
+        view.setZslSelection(selection);
+    }
+
+    /**
+     * Chu kỳ (ms) phát onFrameQuality {sharpness, meanLuma, darkFraction, brightFraction}; 0 = tắt
+     */
+    @ReactProp(name = "frameQualityIntervalMs", defaultInt = 0)
+    @Override
+    public void setFrameQualityIntervalMs(SevenMDCameraView view, int ms) {
+        view.setFrameQualityIntervalMs(ms);
+    }
+
+    /**
+     * "takePicture" (mặc định, full quality) | "zsl" (lấy preview frame gần lúc bấm nhất, không shutter lag)
+     */
+    @ReactProp(name = "captureMode")
+    @Override
+    public void setCaptureMode(SevenMDCameraView view, @Nullable String mode) {
+        view.setCaptureMode(mode);
+    }
+
+    /**
+     * Gộp các capture() đến trong cửa sổ này (ms) thành một shot; 0 = tắt
+     */
+    @ReactProp(name = "captureCoalesceMs", defaultInt = 0)
+    @Override
+    public void setCaptureCoalesceMs(SevenMDCameraView view, int ms) {
+        view.setCaptureCoalesceMs(ms);
+    }
+
+    /**
+     * Timeout cho mỗi capture() (ms); hết hạn → reject E_CAPTURE_TIMEOUT
+     */
+    @ReactProp(name = "captureTimeoutMs", defaultInt = 10000)
+    @Override
+    public void setCaptureTimeoutMs(SevenMDCameraView view, int ms) {
+        view.setCaptureTimeoutMs(ms);
+    }
+
+    /**
+     * Giữ ấm camera (ms) sau khi view unmount để lần mount kế tiếp dùng lại, 0 = release ngay
+     */
+    @ReactProp(name = "keepWarmMs", defaultInt = 0)
+    @Override
+    public void setKeepWarmMs(SevenMDCameraView view, int ms) {
+        view.setKeepWarmMs(ms);
+    }
+
+    /**
+     * Khi app vào background / view bị ẩn: "suspend" (mặc định, dừng preview, giữ camera) | "release" | "none"
+     */
+    @ReactProp(name = "backgroundPolicy")
+    @Override
+    public void setBackgroundPolicy(SevenMDCameraView view, @Nullable String policy) {
+        view.setBackgroundPolicy(policy);
+    }
+
+    /**
+     * Suspend quá lâu (ms) thì release camera để app khác dùng được; 0 = giữ suốt thời gian suspend
+     */
+    @ReactProp(name = "suspendReleaseMs", defaultInt = 10000)
+    @Override
+    public void setSuspendReleaseMs(SevenMDCameraView view, int ms) {
+        view.setSuspendReleaseMs(ms);
     }
 
     @ReactProp(name = "autoStart", defaultBoolean = true)
+    @Override
     public void setAutoStart(SevenMDCameraView view, boolean autoStart) {
         // Hiện chưa cần — chỉ placeholder để tương lai mở rộng
     }
@@ -1,22 +1,74 @@
 package com.reactnative.SevenMDCamera;
 
-import com.facebook.react.ReactPackage;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.BaseReactPackage;
+import com.facebook.react.ViewManagerOnDemandReactPackage;
 import com.facebook.react.bridge.NativeModule;
-import com.facebook.react.uimanager.ViewManager;
 import com.facebook.react.bridge.ReactApplicationContext;
-import java.util.Arrays;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
+import com.facebook.react.uimanager.ViewManager;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Package lazy: không tạo module / view manager lúc khởi động React host
+ * - SevenMDCameraModule là TurboModule (needsEagerInit = false) → tạo khi JS gọi tới lần đầu
+ * - SevenMDCameraViewManager tạo theo tên khi Fabric gặp component "SevenMDCamera" lần đầu
+ */
+public class SevenMDPackage extends BaseReactPackage implements ViewManagerOnDemandReactPackage {
+  /**
+   * Đăng ký FrameProcessor cho mọi SevenMDCameraView (kể cả view đang mở).
+   * Gọi từ native code, ví dụ trong MainApplication.onCreate().
+   */
+  public static void registerFrameProcessor(FrameProcessor processor) {
+    FrameProcessorRegistry.register(processor);
+  }
+
+  public static void unregisterFrameProcessor(FrameProcessor processor) {
+    FrameProcessorRegistry.unregister(processor);
+  }
+
+  @Nullable
+  @Override
+  public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+    if (SevenMDCameraModule.NAME.equals(name)) return new SevenMDCameraModule(reactContext);
+    return null;
+  }
+
+  @Override
+  public ReactModuleInfoProvider getReactModuleInfoProvider() {
+    return () -> {
+      Map<String, ReactModuleInfo> infos = new HashMap<>();
+      infos.put(SevenMDCameraModule.NAME, new ReactModuleInfo(
+          SevenMDCameraModule.NAME,
+          SevenMDCameraModule.class.getName(),
+          false,   // canOverrideExistingModule
+          false,   // needsEagerInit
+          false,   // isCxxModule
+          true));  // isTurboModule
+      return infos;
+    };
+  }
+
+  @Override
+  public Collection<String> getViewManagerNames(ReactApplicationContext reactContext) {
+    return Collections.singletonList(SevenMDCameraViewManager.REACT_CLASS);
+  }
 
-public class SevenMDPackage implements ReactPackage {
-  @Override public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-    List<NativeModule> modules = new ArrayList<>();
-    modules.add(new SevenMDCameraModule(reactContext)); // ✅ đăng ký module ở đây
-    return modules;
+  @Nullable
+  @Override
+  public ViewManager<?, ?> createViewManager(ReactApplicationContext reactContext, String viewManagerName) {
+    if (SevenMDCameraViewManager.REACT_CLASS.equals(viewManagerName)) return new SevenMDCameraViewManager(reactContext);
+    return null;
   }
 
-  @Override public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-    return Arrays.<ViewManager>asList(new SevenMDCameraViewManager(reactContext));
+  @Override
+  public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+    return Collections.singletonList(new SevenMDCameraViewManager(reactContext));
   }
 }
@@ -0,0 +1,189 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThumbnailGenerator — thumbnail nhỏ cho mỗi ảnh chụp, chạy song song với việc ghi file
+ * - Ưu tiên thumbnail EXIF nhúng sẵn trong JPEG: chỉ copy byte, không decode
+ * - Không có → decode subsample (inSampleSize luỹ thừa 2, RGB_565) rồi nén lại
+ * - Thumbnail được gắn cùng EXIF Orientation với ảnh gốc; width/height trả về theo chiều hiển thị
+ * - Worker pool riêng, hàng đợi có giới hạn; pool đầy → bỏ thumbnail, ảnh chính không bị ảnh hưởng
+ */
+final class ThumbnailGenerator {
+    private static final String TAG = "ThumbnailGenerator";
+    static final int TARGET_SIDE = 256;          // cạnh dài tối thiểu của thumbnail decode
+    private static final int JPEG_QUALITY = 80;
+    private static final int QUEUE_CAPACITY = 4;
+
+    /** Thumbnail đã ghi ra file */
+    static final class Thumbnail {
+        final String uri;
+        final int width;
+        final int height;
+
+        Thumbnail(String uri, int width, int height) {
+            this.uri = uri;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    interface Listener {
+        /** thumbnail == null: không tạo được (pool đầy / lỗi decode) */
+        void onThumbnail(@Nullable Thumbnail thumbnail);
+    }
+
+    /** Job đang chạy; whenDone() gọi listener ngay nếu đã xong, hoặc khi xong (trên worker) */
+    static final class Job {
+        private boolean done;
+        @Nullable private Thumbnail result;
+        @Nullable private Listener listener;
+
+        void whenDone(Listener l) {
+            Thumbnail r;
+            synchronized (this) {
+                if (!done) {
+                    listener = l;
+                    return;
+                }
+                r = result;
+            }
+            l.onThumbnail(r);
+        }
+
+        private void complete(@Nullable Thumbnail thumbnail) {
+            Listener l;
+            synchronized (this) {
+                done = true;
+                result = thumbnail;
+                l = listener;
+                listener = null;
+            }
+            if (l != null) l.onThumbnail(thumbnail);
+        }
+    }
+
+    private static final ThumbnailGenerator instance = new ThumbnailGenerator();
+
+    private final ThreadPoolExecutor executor;
+
+    private ThumbnailGenerator() {
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "ThumbnailGenerator");
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    static ThumbnailGenerator get() {
+        return instance;
+    }
+
+    /**
+     * Xếp job tạo thumbnail từ JPEG trong bộ nhớ; luôn trả Job (pool đầy → Job xong ngay với null)
+     * @param exifOrientation EXIF Orientation 1..8 của ảnh gốc; 0 = không gắn
+     */
+    Job submit(byte[] jpeg, File target, int exifOrientation) {
+        Job job = new Job();
+        if (!CameraMemoryPolicy.get().thumbnailsEnabled()) {
+            job.complete(null);   // thiếu RAM: không giữ thêm tham chiếu tới JPEG + bitmap decode
+            return job;
+        }
+        try {
+            executor.execute(() -> job.complete(generate(jpeg, target, exifOrientation)));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "[submit] Pool đầy → bỏ thumbnail " + target.getName());
+            job.complete(null);
+        }
+        return job;
+    }
+
+    @Nullable
+    private static Thumbnail generate(byte[] jpeg, File target, int exifOrientation) {
+        try {
+            Thumbnail embedded = fromExif(jpeg, target, exifOrientation);
+            return embedded != null ? embedded : fromSubsampledDecode(jpeg, target, exifOrientation);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "[generate] Lỗi tạo thumbnail: " + e.getMessage(), e);
+            //noinspection ResultOfMethodCallIgnored
+            target.delete();
+            return null;
+        }
+    }
+
+    /** Thumbnail JPEG nhúng trong APP1 — copy nguyên byte, chỉ đọc bounds */
+    @Nullable
+    private static Thumbnail fromExif(byte[] jpeg, File target, int exifOrientation) throws IOException {
+        ExifInterface exif = new ExifInterface(new ByteArrayInputStream(jpeg));
+        if (!exif.hasThumbnail()) return null;
+        byte[] thumb = exif.getThumbnailBytes();
+        if (thumb == null) return null;
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(thumb, 0, thumb.length, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;   // thumbnail không phải JPEG (vd. TIFF)
+        writeOriented(target, thumb, exifOrientation);
+        return thumbnail(target, bounds.outWidth, bounds.outHeight, exifOrientation);
+    }
+
+    @Nullable
+    private static Thumbnail fromSubsampledDecode(byte[] jpeg, File target, int exifOrientation) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSizeFor(Math.max(options.outWidth, options.outHeight), TARGET_SIDE);
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (bitmap == null) return null;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            writeOriented(target, out.toByteArray(), exifOrientation);
+            return thumbnail(target, bitmap.getWidth(), bitmap.getHeight(), exifOrientation);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static void writeOriented(File target, byte[] thumb, int exifOrientation) throws IOException {
+        byte[] bytes = ExifOrientationPatcher.toByteArray(ExifOrientationPatcher.patch(thumb, exifOrientation));
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            out.write(bytes);
+        }
+    }
+
+    /** Orientation 5..8 xoay 90°/270° → đổi chỗ width/height cho đúng chiều hiển thị */
+    private static Thumbnail thumbnail(File target, int width, int height, int exifOrientation) {
+        boolean swap = exifOrientation >= 5 && exifOrientation <= 8;
+        return new Thumbnail("file://" + target.getAbsolutePath(), swap ? height : width, swap ? width : height);
+    }
+
+    /** inSampleSize luỹ thừa 2 lớn nhất mà cạnh dài sau decode vẫn >= target */
+    static int sampleSizeFor(int longSide, int target) {
+        int sample = 1;
+        while (longSide / (sample * 2) >= target) sample *= 2;
+        return sample;
+    }
+}
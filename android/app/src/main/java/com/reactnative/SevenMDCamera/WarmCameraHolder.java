@@ -0,0 +1,178 @@
+package com.reactnative.SevenMDCamera;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WarmCameraHolder — giữ camera "ấm" cấp process giữa các lần unmount/remount
+ * - View detach: camera + HandlerThread sở hữu nó được gửi vào đây thay vì release
+ * - View mới mount trong idleMs: nhận lại nguyên camera + thread, bỏ qua release+open
+ * - Hết idleMs không ai nhận → release camera, dừng thread
+ *
+ * Camera1 gửi callback về Looper của thread đã open() → phải chuyển giao cả thread.
+ * Chỗ giữ được đặt đồng bộ trên main (reserve) trước khi camera thread dừng preview (park): view remount
+ * ngay sau đó take() được thread luôn, mọi post của nó chạy sau park() trên cùng Looper nên thấy camera.
+ * Đồng thời theo dõi các lần release đang chạy để open() chờ theo sự kiện, không sleep cố định.
+ */
+final class WarmCameraHolder {
+    private static final String TAG = "WarmCameraHolder";
+
+    static final class Parked {
+        /** Chỉ đọc/ghi trên thread; null tới khi park() chạy, hoặc view cũ không có camera để giữ */
+        @Nullable CameraDriver camera;
+        final HandlerThread thread;
+        final int cameraId;
+        final long idleMs;
+        final long parkedAt;
+        @Nullable private Runnable releaseTask;
+
+        private Parked(HandlerThread thread, int cameraId, long idleMs, long parkedAt) {
+            this.thread = thread;
+            this.cameraId = cameraId;
+            this.idleMs = idleMs;
+            this.parkedAt = parkedAt;
+        }
+    }
+
+    @Nullable private static Parked parked;
+    private static int releasesInFlight = 0;
+    private static final List<Runnable> afterRelease = new ArrayList<>();
+
+    private WarmCameraHolder() {
+    }
+
+    /**
+     * Main thread, ngay khi view detach: giữ chỗ cho thread (camera tới sau qua park()).
+     * Chỗ đang giữ trước đó (nếu có) bị release.
+     */
+    static Parked reserve(HandlerThread thread, int cameraId, long idleMs) {
+        Parked next = new Parked(thread, cameraId, idleMs, System.currentTimeMillis());
+        Parked previous;
+        synchronized (WarmCameraHolder.class) {
+            previous = parked;
+            parked = next;
+        }
+        if (previous != null) releaseAsync(previous);
+        return next;
+    }
+
+    /**
+     * Thread của reservation: gửi camera vào (null = view cũ không có camera). Đã bị take() → view mới dùng
+     * camera này ở doOpen() (post sau trên cùng Looper); đã bị release → releaseNow() xếp sau sẽ release.
+     */
+    static void park(Parked reservation, @Nullable CameraDriver camera) {
+        reservation.camera = camera;
+        boolean held;
+        synchronized (WarmCameraHolder.class) {
+            held = parked == reservation;
+            if (held && camera == null) parked = null;
+        }
+        if (!held) return;
+        if (camera == null) {
+            Log.d(TAG, "[park] Không có camera để giữ ấm → dừng thread");
+            reservation.thread.quitSafely();
+            return;
+        }
+        reservation.releaseTask = () -> {
+            synchronized (WarmCameraHolder.class) {
+                if (parked != reservation) return;   // đã có view nhận lại
+                parked = null;
+            }
+            Log.d(TAG, "[park] Hết " + reservation.idleMs + "ms không ai nhận → release camera " + reservation.cameraId);
+            releaseNow(reservation);
+        };
+        new Handler(reservation.thread.getLooper()).postDelayed(reservation.releaseTask, reservation.idleMs);
+        Log.d(TAG, "[park] Giữ ấm camera " + reservation.cameraId + " trong " + reservation.idleMs + "ms");
+    }
+
+    /**
+     * Nhận lại thread (+ camera) đang giữ ấm (main thread); null nếu không có hoặc khác cameraId.
+     * park() có thể chưa chạy → chỉ đọc Parked.camera trong task post lên thread đã nhận.
+     */
+    @Nullable
+    static Parked take(int cameraId) {
+        Parked p;
+        Runnable releaseTask;
+        synchronized (WarmCameraHolder.class) {
+            p = parked;
+            if (p == null || p.cameraId != cameraId) return null;
+            parked = null;
+            releaseTask = p.releaseTask;
+        }
+        if (releaseTask != null) new Handler(p.thread.getLooper()).removeCallbacks(releaseTask);
+        Log.d(TAG, "[take] Tái sử dụng camera " + cameraId + " (giữ ấm " + (System.currentTimeMillis() - p.parkedAt) + "ms)");
+        return p;
+    }
+
+    /** Release ngay camera đang giữ (vd. app vào background) */
+    static void releaseParked() {
+        Parked p;
+        synchronized (WarmCameraHolder.class) {
+            p = parked;
+            parked = null;
+        }
+        if (p != null) releaseAsync(p);
+    }
+
+    private static void releaseAsync(Parked p) {
+        new Handler(p.thread.getLooper()).post(() -> releaseNow(p));
+    }
+
+    /** Chạy trên thread của camera: release rồi dừng thread */
+    private static void releaseNow(Parked p) {
+        if (p.camera == null) {
+            p.thread.quitSafely();
+            return;
+        }
+        beginRelease();
+        try {
+            p.camera.release();
+        } catch (Exception e) {
+            Log.e(TAG, "[releaseNow] Lỗi release: " + e.getMessage(), e);
+        } finally {
+            endRelease();
+            p.thread.quitSafely();
+        }
+    }
+
+    // region ===== Theo dõi release đang chạy =====
+
+    /** Gọi ngay trước CameraDriver.release() (thread bất kỳ) */
+    static void beginRelease() {
+        synchronized (WarmCameraHolder.class) {
+            releasesInFlight++;
+        }
+    }
+
+    /** Gọi ngay sau CameraDriver.release(); chạy các open đang chờ */
+    static void endRelease() {
+        List<Runnable> ready = null;
+        synchronized (WarmCameraHolder.class) {
+            releasesInFlight--;
+            if (releasesInFlight == 0 && !afterRelease.isEmpty()) {
+                ready = new ArrayList<>(afterRelease);
+                afterRelease.clear();
+            }
+        }
+        if (ready != null) for (Runnable r : ready) r.run();
+    }
+
+    /**
+     * Nếu có camera đang release ở thread khác → hẹn chạy action (post lên handler) khi xong và trả true.
+     * Không có release nào → trả false, caller tự chạy ngay.
+     */
+    static boolean runAfterPendingReleases(Handler handler, Runnable action) {
+        synchronized (WarmCameraHolder.class) {
+            if (releasesInFlight == 0) return false;
+            afterRelease.add(() -> handler.post(action));
+            return true;
+        }
+    }
+    // endregion
+}
@@ -0,0 +1,152 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ZslRing — zero-shutter-lag: giữ N preview frame gần nhất để capture() không phải chờ takePicture()
+ * - Slot cấp phát sẵn, chỉ cấp phát lại khi preview size đổi; frame của pool được copy vào rồi trả ngay
+ *   (không giữ buffer của pool → HAL không bị cạn buffer)
+ * - onPreviewFrame() và acquire*() chạy trên camera thread; slot đang encode bị khoá, writer bỏ qua
+ * - Nén (YuvImage.compressToJpeg) chạy trên worker riêng; slot được mở khoá ngay khi nén xong
+ */
+final class ZslRing implements PreviewBufferPool.FrameListener {
+    static final int DEFAULT_CAPACITY = 4;
+    static final int JPEG_QUALITY = 95;
+
+    interface EncodeCallback {
+        /** Thread của encoder */
+        void onEncoded(byte[] jpeg);
+
+        void onEncodeFailed(Exception e);
+    }
+
+    private static final ExecutorService encoder = Executors.newSingleThreadExecutor(r -> new Thread(r, "ZslEncoder"));
+
+    static final class Slot {
+        @Nullable byte[] data;
+        int width;
+        int height;
+        int format;
+        long timestampMs;      // 0 = trống
+        private final AtomicBoolean locked = new AtomicBoolean(false);
+    }
+
+    private final Slot[] slots;
+    private int next = 0;   // chỉ camera thread
+    private int active;     // chỉ camera thread; số slot đang nhận frame (CameraMemoryPolicy thu nhỏ khi thiếu RAM)
+
+    ZslRing(int capacity) {
+        slots = new Slot[Math.max(2, capacity)];
+        for (int i = 0; i < slots.length; i++) slots[i] = new Slot();
+        active = slots.length;
+    }
+
+    @Override
+    public void onPreviewFrame(PreviewBufferPool.PreviewFrame frame) {
+        if (frame.format != ImageFormat.NV21) return;   // YuvImage chỉ nén được NV21/YUY2
+        for (int n = 0; n < active; n++) {
+            Slot slot = slots[(next + n) % active];
+            if (slot.locked.get()) continue;
+            if (slot.data == null || slot.data.length != frame.data.length) slot.data = new byte[frame.data.length];
+            System.arraycopy(frame.data, 0, slot.data, 0, frame.data.length);
+            slot.width = frame.width;
+            slot.height = frame.height;
+            slot.format = frame.format;
+            slot.timestampMs = frame.timestampMs;
+            next = (next + n + 1) % active;
+            return;
+        }
+    }
+
+    /** Camera thread: khoá slot có timestamp gần tapMs nhất (ưu tiên frame không muộn hơn tapMs); null nếu ring trống */
+    @Nullable
+    Slot acquireClosest(long tapMs) {
+        Slot best = null;
+        long bestScore = Long.MAX_VALUE;
+        for (Slot slot : slots) {
+            if (slot.timestampMs == 0 || slot.locked.get()) continue;
+            long delta = slot.timestampMs - tapMs;
+            // Frame sau cú chạm bị phạt gấp đôi: người dùng bấm khi đã thấy khung hình mong muốn
+            long score = delta <= 0 ? -delta : delta * 2;
+            if (score < bestScore) {
+                bestScore = score;
+                best = slot;
+            }
+        }
+        if (best != null) best.locked.set(true);
+        return best;
+    }
+
+    /**
+     * Camera thread: khoá slot nét nhất (theo FrameQualityAnalyzer) trong khoảng ±windowMs quanh tapMs.
+     * Không slot nào trong cửa sổ đã được chấm điểm → quay về acquireClosest().
+     */
+    @Nullable
+    Slot acquireSharpest(long tapMs, long windowMs, FrameQualityAnalyzer analyzer) {
+        Slot best = null;
+        double bestScore = -1;
+        for (Slot slot : slots) {
+            if (slot.timestampMs == 0 || slot.locked.get()) continue;
+            if (Math.abs(slot.timestampMs - tapMs) > windowMs) continue;
+            double score = analyzer.sharpnessAt(slot.timestampMs);
+            if (!Double.isNaN(score) && score > bestScore) {
+                bestScore = score;
+                best = slot;
+            }
+        }
+        if (best == null) return acquireClosest(tapMs);
+        best.locked.set(true);
+        return best;
+    }
+
+    /** Nén slot đã acquire trên worker rồi mở khoá slot; gọi từ camera thread */
+    static void encodeAsync(Slot slot, int quality, EncodeCallback callback) {
+        encoder.execute(() -> {
+            byte[] jpeg;
+            try {
+                jpeg = encode(slot, quality);
+            } catch (RuntimeException e) {
+                callback.onEncodeFailed(e);
+                return;
+            } finally {
+                slot.locked.set(false);
+            }
+            callback.onEncoded(jpeg);
+        });
+    }
+
+    /** Camera thread: chỉ dùng count slot đầu; slot bị tắt (không đang nén) được bỏ buffer ngay */
+    void setActiveSlots(int count) {
+        int n = Math.max(1, Math.min(slots.length, count));
+        if (n == active) return;
+        for (int i = n; i < slots.length; i++) {
+            Slot slot = slots[i];
+            if (slot.locked.get()) continue;   // đang nén: encoder vẫn cần data; frame mới sẽ không ghi vào nữa
+            slot.timestampMs = 0;
+            slot.data = null;
+        }
+        active = n;
+        next = 0;
+    }
+
+    /** Camera thread: bỏ các frame cũ (preview dừng / camera đổi) */
+    void clear() {
+        for (Slot slot : slots) slot.timestampMs = 0;   // slot đang nén vẫn nén xong, chỉ không được chọn lại
+    }
+
+    private static byte[] encode(Slot slot, int quality) {
+        YuvImage image = new YuvImage(slot.data, slot.format, slot.width, slot.height, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(slot.width * slot.height / 4);
+        image.compressToJpeg(new Rect(0, 0, slot.width, slot.height), quality, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactnative.SevenMDCamera;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/** BurstSession settle đúng một lần; lỗi giữa phiên vẫn trả về ảnh đã ghi */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class BurstSessionTest {
+
+    private static CaptureResult shot(int i) {
+        return new CaptureResult("file:///cache/photo_" + i + ".jpg", null);
+    }
+
+    @Test
+    public void completedBurstResolvesWithCaptureShapedResults() {
+        Promise promise = mock(Promise.class);
+        BurstSession session = new BurstSession(2, 0, promise);
+        for (int i = 0; i < 2; i++) {
+            session.onShutter();
+            session.onPictureTaken();
+            session.onWriteQueued();
+            session.onWritten(shot(i));
+            session.settleIfDone();
+        }
+
+        ArgumentCaptor<WritableMap> result = ArgumentCaptor.forClass(WritableMap.class);
+        verify(promise).resolve(result.capture());
+        assertEquals(2, result.getValue().getInt("captured"));
+        assertEquals(2, result.getValue().getArray("results").size());
+        assertEquals("file:///cache/photo_1.jpg", result.getValue().getArray("uris").getString(1));
+    }
+
+    @Test
+    public void failureWaitsForPendingWritesAndRejectsWithWrittenUris() {
+        Promise promise = mock(Promise.class);
+        BurstSession session = new BurstSession(5, 0, promise);
+        session.onShutter();
+        session.onPictureTaken();
+        session.onWriteQueued();          // shot 1 đang ghi
+        session.onShutter();              // shot 2: takePicture() ném
+
+        session.fail("E_CAPTURE_FAILED", "takePicture failed");
+        verify(promise, never()).reject(anyString(), anyString(), any(WritableMap.class));
+
+        session.onWritten(shot(1));
+        session.settleIfDone();
+
+        ArgumentCaptor<WritableMap> userInfo = ArgumentCaptor.forClass(WritableMap.class);
+        verify(promise).reject(eq("E_CAPTURE_FAILED"), eq("takePicture failed"), userInfo.capture());
+        assertEquals(1, userInfo.getValue().getInt("captured"));
+        assertEquals(1, userInfo.getValue().getInt("dropped"));
+        assertEquals("file:///cache/photo_1.jpg", userInfo.getValue().getArray("uris").getString(0));
+        verify(promise, never()).resolve(any());
+    }
+}
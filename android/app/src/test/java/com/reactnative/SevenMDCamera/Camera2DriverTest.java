@@ -0,0 +1,193 @@
+package com.reactnative.SevenMDCamera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureFailure;
+import android.hardware.camera2.CaptureRequest;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Camera2Driver trên CameraDevice / CameraCaptureSession giả (Mockito): hợp đồng đồng bộ của open(),
+ * session giữ suốt vòng đời, still capture không dừng preview, mất device sau khi mở → ErrorCallback.
+ * Test gọi driver từ main → owner là main looper, callback driver về sau shadowOf(main).idle().
+ */
+@RunWith(RobolectricTestRunner.class)
+public class Camera2DriverTest {
+    private static final String CAMERA_ID = "0";
+
+    private CameraManager manager;
+    private CameraDevice device;
+    private CameraCaptureSession session;
+    private CaptureRequest.Builder builder;
+    private final AtomicReference<CameraDevice.StateCallback> deviceCallback = new AtomicReference<>();
+    private final AtomicReference<Object> lastTag = new AtomicReference<>();
+    private SurfaceTexture surface;
+    private CameraDriver driver;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = mock(CameraManager.class);
+        device = mock(CameraDevice.class);
+        session = mock(CameraCaptureSession.class);
+        builder = mock(CaptureRequest.Builder.class);
+        CaptureRequest request = mock(CaptureRequest.class);
+        surface = new SurfaceTexture(0);
+
+        when(manager.getCameraCharacteristics(CAMERA_ID)).thenReturn(mock(CameraCharacteristics.class));
+        when(device.createCaptureRequest(anyInt())).thenReturn(builder);
+        when(builder.build()).thenReturn(request);
+        doAnswer(invocation -> {
+            lastTag.set(invocation.getArgument(0));
+            return null;
+        }).when(builder).setTag(any());
+        when(request.getTag()).thenAnswer(invocation -> lastTag.get());
+        doAnswer(invocation -> {
+            CameraCaptureSession.StateCallback callback = invocation.getArgument(1);
+            callback.onConfigured(session);
+            return null;
+        }).when(device).createCaptureSession(anyList(), any(), any());
+    }
+
+    @After
+    public void tearDown() {
+        if (driver != null) driver.release();
+        surface.release();
+    }
+
+    /** HAL trả về ngay trong openCamera(): onOpened, hoặc onError(code) nếu code != 0 */
+    private void halAnswersOpenWith(int errorCode) throws Exception {
+        doAnswer(invocation -> {
+            CameraDevice.StateCallback callback = invocation.getArgument(1);
+            deviceCallback.set(callback);
+            if (errorCode == 0) callback.onOpened(device);
+            else callback.onError(device, errorCode);
+            return null;
+        }).when(manager).openCamera(eq(CAMERA_ID), any(CameraDevice.StateCallback.class), any());
+    }
+
+    private CameraDriver openPreviewing() throws Exception {
+        halAnswersOpenWith(0);
+        driver = Camera2Driver.open(manager, CAMERA_ID);
+        driver.setPreviewTexture(surface);
+        driver.startPreview();
+        return driver;
+    }
+
+    @Test
+    public void sessionIsCreatedOnceAndReusedAcrossPreviewRestarts() throws Exception {
+        CameraDriver camera = openPreviewing();
+
+        camera.stopPreview();
+        camera.startPreview();
+
+        verify(device, times(1)).createCaptureSession(anyList(), any(), any());
+        verify(session, times(1)).stopRepeating();
+        verify(session, times(2)).setRepeatingRequest(any(), any(), any());
+        assertEquals("camera2", camera.backend());
+    }
+
+    @Test
+    public void stillCaptureKeepsRepeatingPreviewAndReportsFailure() throws Exception {
+        CameraDriver camera = openPreviewing();
+        List<String> failures = new ArrayList<>();
+
+        camera.takePicture(new CameraDriver.PictureCallback() {
+            @Override
+            public void onPictureTaken(byte[] jpeg) {
+                fail("không có JPEG khi capture lỗi");
+            }
+
+            @Override
+            public void onPictureFailed(String reason) {
+                failures.add(reason);
+            }
+        });
+        ArgumentCaptor<CaptureRequest> still = ArgumentCaptor.forClass(CaptureRequest.class);
+        ArgumentCaptor<CameraCaptureSession.CaptureCallback> callback = ArgumentCaptor.forClass(CameraCaptureSession.CaptureCallback.class);
+        verify(session).capture(still.capture(), callback.capture(), any());
+        verify(session, never()).stopRepeating();
+
+        CaptureFailure failure = mock(CaptureFailure.class);
+        when(failure.getReason()).thenReturn(CaptureFailure.REASON_ERROR);
+        callback.getValue().onCaptureFailed(session, still.getValue(), failure);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(1, failures.size());
+        camera.startPreview();   // preview chưa từng dừng → không gửi lại repeating request
+        verify(session, times(1)).setRepeatingRequest(any(), any(), any());
+    }
+
+    @Test
+    public void cameraInUseWhileOpeningIsReportedAsServiceBusy() throws Exception {
+        halAnswersOpenWith(CameraDevice.StateCallback.ERROR_CAMERA_IN_USE);
+
+        try {
+            Camera2Driver.open(manager, CAMERA_ID);
+            fail("open() phải ném khi camera đang bị client khác giữ");
+        } catch (RuntimeException e) {
+            assertEquals(Camera2Driver.SERVICE_BUSY, e.getMessage());   // view retry theo chuỗi này
+        }
+        verify(device).close();
+    }
+
+    @Test
+    public void disconnectAfterOpenIsForwardedToErrorCallback() throws Exception {
+        CameraDriver camera = openPreviewing();
+        List<String> errors = new ArrayList<>();
+        camera.setErrorCallback(errors::add);
+
+        deviceCallback.get().onDisconnected(device);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(1, errors.size());
+        verify(device).close();
+        try {
+            camera.startPreview();
+            fail("driver không dùng được sau khi mất device");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("disconnected"));
+        }
+    }
+
+    @Test
+    public void errorAfterReleaseIsNotForwarded() throws Exception {
+        CameraDriver camera = openPreviewing();
+        List<String> errors = new ArrayList<>();
+        camera.setErrorCallback(errors::add);
+
+        camera.release();
+        deviceCallback.get().onError(device, CameraDevice.StateCallback.ERROR_CAMERA_DEVICE);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertTrue(errors.isEmpty());
+    }
+}
@@ -0,0 +1,49 @@
+package com.reactnative.SevenMDCamera;
+
+import static com.reactnative.SevenMDCamera.CameraTestSupport.await;
+import static org.junit.Assert.assertNotNull;
+
+import android.app.Application;
+import android.hardware.Camera;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowCamera;
+
+/** put() từ nhiều camera thread và trước khi load xong không làm mất entry */
+@RunWith(RobolectricTestRunner.class)
+public class CameraCapabilityIndexTest {
+    private static final int CAMERAS = 8;
+
+    @Test
+    public void concurrentAndEarlyPutsAreAllKept() throws InterruptedException {
+        Application app = ApplicationProvider.getApplicationContext();
+        for (int id = 0; id < CAMERAS; id++) {
+            Camera.CameraInfo info = new Camera.CameraInfo();
+            info.facing = id % 2;
+            ShadowCamera.addCameraInfo(id, info);
+        }
+        CameraCapabilityIndex index = CameraCapabilityIndex.get();
+        CameraCapabilities caps = FakeCameraDriver.defaultCapabilities();
+
+        index.put(0, caps);   // cold start: camera mở trước khi index load xong
+        index.loadAsync(app);
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < threads.length; t++) {
+            int first = 1 + t;
+            threads[t] = new Thread(() -> {
+                for (int id = first; id < CAMERAS; id += 2) index.put(id, caps);
+            }, "put-" + t);
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        await("index load xong", index::isLoaded);
+
+        for (int id = 0; id < CAMERAS; id++) {
+            assertNotNull("camera " + id, index.capabilities(id));
+        }
+    }
+}
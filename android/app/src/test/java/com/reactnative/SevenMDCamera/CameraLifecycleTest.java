@@ -0,0 +1,219 @@
+package com.reactnative.SevenMDCamera;
+
+import static com.reactnative.SevenMDCamera.CameraTestSupport.await;
+import static com.reactnative.SevenMDCamera.CameraTestSupport.awaitState;
+import static com.reactnative.SevenMDCamera.CameraTestSupport.cameraThreadAlive;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Application;
+import android.graphics.SurfaceTexture;
+import android.hardware.Camera;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowCamera;
+
+/**
+ * Vòng đời SevenMDCameraView trên FakeCameraDriver: open / close / suspend / đổi camera / retry khi HAL bận /
+ * camera bị thu hồi sau khi mở.
+ * Camera thread thật, driver giả → chạy trên JVM (CI Linux, không cần thiết bị).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class CameraLifecycleTest {
+    private FakeCameraDriver.Config driver;
+    private ReactApplicationContext reactContext;
+    private FrameLayout host;
+    private SurfaceTexture surface;
+
+    @Before
+    public void setUp() {
+        Application app = ApplicationProvider.getApplicationContext();
+        shadowOf(app).grantPermissions(Manifest.permission.CAMERA);
+        addCameraInfo(0, Camera.CameraInfo.CAMERA_FACING_BACK);
+        addCameraInfo(1, Camera.CameraInfo.CAMERA_FACING_FRONT);
+        driver = new FakeCameraDriver.Config();
+        driver.pictureLatencyMs = 20;
+        FakeCameraDriver.install(driver);
+        reactContext = new ReactApplicationContext(app);
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        host = new FrameLayout(activity);
+        activity.setContentView(host);
+        surface = new SurfaceTexture(0);
+    }
+
+    @After
+    public void tearDown() {
+        host.removeAllViews();
+        WarmCameraHolder.releaseParked();
+        FakeCameraDriver.uninstall();
+        surface.release();
+    }
+
+    private static void addCameraInfo(int id, int facing) {
+        Camera.CameraInfo info = new Camera.CameraInfo();
+        info.facing = facing;
+        info.orientation = 90;
+        ShadowCamera.addCameraInfo(id, info);
+    }
+
+    /** Mount view + giao surface như TextureView, chờ tới PREVIEWING */
+    private SevenMDCameraView mount() {
+        SevenMDCameraView view = new SevenMDCameraView(reactContext);
+        host.addView(view, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        view.onSurfaceTextureAvailable(surface, 1280, 720);
+        awaitState(view, CameraStateMachine.State.PREVIEWING);
+        return view;
+    }
+
+    @Test
+    public void surfaceAvailableOpensCameraAndStartsPreview() {
+        mount();
+
+        assertEquals(1, driver.opens.get());
+        assertEquals(0, driver.releases.get());
+    }
+
+    @Test
+    public void detachReleasesCameraAndStopsCameraThread() {
+        SevenMDCameraView view = mount();
+
+        host.removeView(view);   // stopBgThread() join camera thread → đã xong khi trả về
+
+        assertEquals(CameraStateMachine.State.CLOSED, view.cameraState());
+        assertEquals(1, driver.releases.get());
+        assertFalse(cameraThreadAlive());
+        assertEquals(0, driver.useAfterRelease.get());
+    }
+
+    @Test
+    public void hostPauseSuspendsPreviewAndResumeReusesOpenCamera() {
+        SevenMDCameraView view = mount();
+
+        view.onHostPause();
+        awaitState(view, CameraStateMachine.State.OPEN);
+        assertEquals(0, driver.releases.get());
+
+        view.onHostResume();
+        awaitState(view, CameraStateMachine.State.PREVIEWING);
+        assertEquals("resume không được mở lại camera", 1, driver.opens.get());
+    }
+
+    @Test
+    public void releasePolicyClosesOnPauseAndReopensOnResume() {
+        SevenMDCameraView view = mount();
+        view.setBackgroundPolicy("release");
+
+        view.onHostPause();
+        awaitState(view, CameraStateMachine.State.CLOSED);
+        assertEquals(1, driver.releases.get());
+
+        view.onHostResume();
+        awaitState(view, CameraStateMachine.State.PREVIEWING);
+        assertEquals(2, driver.opens.get());
+    }
+
+    @Test
+    public void switchingCameraIdReleasesOldCameraAndOpensNewOne() {
+        SevenMDCameraView view = mount();
+
+        view.setCameraId(1);
+        await("camera 1 mở xong", () -> driver.opens.get() == 2 && view.cameraState() == CameraStateMachine.State.PREVIEWING);
+
+        assertEquals(1, driver.releases.get());
+        assertEquals(0, driver.useAfterRelease.get());
+    }
+
+    @Test
+    public void busyServiceIsRetriedUntilOpen() {
+        driver.failNextOpens.set(2);
+
+        mount();
+
+        assertEquals(2, driver.failedOpens.get());
+        assertEquals(1, driver.opens.get());
+    }
+
+    @Test
+    public void evictedCameraIsReleasedAndReopened() {
+        SevenMDCameraView view = mount();
+
+        assertTrue(FakeCameraDriver.evict(0));
+        await("mở lại sau khi bị thu hồi", () -> driver.opens.get() == 2 && view.cameraState() == CameraStateMachine.State.PREVIEWING);
+
+        assertEquals(1, driver.evictions.get());
+        assertEquals(1, driver.releases.get());
+        assertEquals(0, driver.useAfterRelease.get());
+    }
+
+    @Test
+    public void evictionWhileAnotherClientHoldsCameraGoesThroughBusyRetry() {
+        SevenMDCameraView view = mount();
+        driver.failNextOpens.set(2);   // client kia chưa nhả camera ngay
+
+        FakeCameraDriver.evict(0);
+        await("mở lại sau retry", () -> driver.opens.get() == 2 && view.cameraState() == CameraStateMachine.State.PREVIEWING);
+
+        assertEquals(2, driver.failedOpens.get());
+    }
+
+    @Test
+    public void requestQueuedBehindTimedOutShotRunsAfterCameraRecovers() {
+        SevenMDCameraView view = mount();
+        view.setCaptureTimeoutMs(500);
+        driver.pictureLatencyMs = 60_000;     // HAL "treo": JPEG của shot đầu không bao giờ về
+        CameraTestSupport.Settlements first = new CameraTestSupport.Settlements();
+        CameraTestSupport.Settlements queued = new CameraTestSupport.Settlements();
+
+        view.capture(first.newPromise());
+        awaitState(view, CameraStateMachine.State.CAPTURING);
+        driver.pictureLatencyMs = 20;         // chỉ áp cho takePicture() sau
+        view.capture(queued.newPromise());
+
+        await("shot đầu timeout", () -> first.settled() == 1);
+        assertEquals("E_CAPTURE_TIMEOUT", first.lastRejectCode);
+        await("request xếp sau chạy xong", () -> queued.settled() == 1);
+        assertEquals("request sau không được nhận E_CAPTURE_BUSY", 1, queued.resolved.get());
+        assertEquals(2, driver.opens.get());
+        assertEquals(1, driver.releases.get());
+        assertEquals(0, driver.useAfterRelease.get());
+    }
+
+    @Test
+    public void closingDuringCaptureSettlesPromiseAndFreesQueue() {
+        SevenMDCameraView view = mount();
+        view.setCaptureTimeoutMs(0);          // không có timeout cứu: chỉ doClose() được settle
+        driver.pictureLatencyMs = 60_000;     // JPEG không về trước khi camera đóng
+        CameraTestSupport.Settlements settlements = new CameraTestSupport.Settlements();
+
+        view.capture(settlements.newPromise());
+        awaitState(view, CameraStateMachine.State.CAPTURING);
+        view.setCameraId(1);                  // doClose() giữa lúc chụp rồi mở camera 1
+
+        await("promise bị reject", () -> settlements.settled() == 1);
+        assertEquals("E_CAMERA_CLOSED", settlements.lastRejectCode);
+
+        driver.pictureLatencyMs = 20;
+        awaitState(view, CameraStateMachine.State.PREVIEWING);
+        view.capture(settlements.newPromise());
+        await("capture sau khi đổi camera", () -> settlements.settled() == 2);
+        assertEquals(1, settlements.resolved.get());
+        assertEquals(0, settlements.doubleSettled.get());
+    }
+}
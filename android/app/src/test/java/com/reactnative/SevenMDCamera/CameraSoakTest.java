@@ -0,0 +1,218 @@
+package com.reactnative.SevenMDCamera;
+
+import static com.reactnative.SevenMDCamera.CameraTestSupport.await;
+import static com.reactnative.SevenMDCamera.CameraTestSupport.cameraThreadAlive;
+import static com.reactnative.SevenMDCamera.CameraTestSupport.idleFor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Application;
+import android.graphics.SurfaceTexture;
+import android.hardware.Camera;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowCamera;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Soak / stress vòng đời SevenMDCameraView trên FakeCameraDriver
+ * - Mỗi bước chọn ngẫu nhiên theo seed (tái lập được): attach/detach (kể cả remount view mới), surface
+ *   available/destroyed/size changed, host pause/resume, ẩn/hiện, đổi keepWarmMs, lỗi open tiêm vào,
+ *   capture()/captureBurst() từ một thread khác main (như native modules thread)
+ * - Hết số bước: detach + dispose, release camera giữ ấm, chờ drain rồi kiểm:
+ *   · không còn HandlerThread "CameraBackground" nào sống
+ *   · mọi promise capture đã settle đúng một lần
+ *   · driver không bị gọi sau release()
+ *   · p99 openLatency không vượt MAX_OPEN_P99_MS
+ *
+ * Chạy dài hơn / seed khác: ./gradlew :app:testDebugUnitTest -Psoak.steps=5000 -Psoak.seed=7
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class CameraSoakTest {
+    private static final String TAG = "CameraSoak";
+    private static final int MAX_STEP_DELAY_MS = 20;     // khoảng giữa hai bước (đồng hồ giả): 0..MAX_STEP_DELAY_MS
+    private static final long MAX_OPEN_P99_MS = 500;
+
+    private enum Op {
+        ATTACH, DETACH, REMOUNT,
+        SURFACE_AVAILABLE, SURFACE_SIZE_CHANGED, SURFACE_DESTROYED,
+        HOST_PAUSE, HOST_RESUME, HIDE, SHOW,
+        KEEP_WARM, FAIL_OPEN,
+        CAPTURE, BURST
+    }
+
+    private final long seed = Long.getLong("soak.seed", 42);
+    private final int steps = Integer.getInteger("soak.steps", 1000);
+    private final Random random = new Random(seed);
+    private final CameraTestSupport.Settlements settlements = new CameraTestSupport.Settlements();
+    private final ExecutorService captureThread = Executors.newSingleThreadExecutor(r -> new Thread(r, "soak-capture"));
+
+    private FakeCameraDriver.Config driver;
+    private ReactApplicationContext reactContext;
+    private FrameLayout host;
+    private SurfaceTexture surface;
+    private SevenMDCameraView view;
+    private int submitted;
+
+    @Before
+    public void setUp() {
+        Application app = ApplicationProvider.getApplicationContext();
+        shadowOf(app).grantPermissions(Manifest.permission.CAMERA);
+        Camera.CameraInfo info = new Camera.CameraInfo();
+        info.facing = Camera.CameraInfo.CAMERA_FACING_BACK;
+        info.orientation = 90;
+        ShadowCamera.addCameraInfo(0, info);
+        driver = new FakeCameraDriver.Config();
+        driver.openLatencyMs = 10;
+        driver.startPreviewLatencyMs = 2;
+        driver.pictureLatencyMs = 20;
+        driver.jpegBytes = 64 * 1024;
+        FakeCameraDriver.install(driver);
+        CameraMetrics.get().reset();
+        reactContext = new ReactApplicationContext(app);
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        host = new FrameLayout(activity);
+        activity.setContentView(host);
+        surface = new SurfaceTexture(0);
+    }
+
+    @After
+    public void tearDown() {
+        captureThread.shutdownNow();
+        host.removeAllViews();
+        WarmCameraHolder.releaseParked();
+        FakeCameraDriver.uninstall();
+        surface.release();
+    }
+
+    @Test
+    public void randomizedLifecycleLeavesNoLeaksOrUnsettledPromises() throws InterruptedException {
+        Log.i(TAG, "[soak] seed=" + seed + ", steps=" + steps);
+        view = new SevenMDCameraView(reactContext);
+        host.addView(view, matchParent());
+
+        for (int step = 1; step <= steps; step++) {
+            Op op = Op.values()[random.nextInt(Op.values().length)];
+            try {
+                perform(op);
+            } catch (RuntimeException e) {
+                // Exception ở đây là crash thật của app (main thread) → dừng ngay, kèm bước tái lập
+                throw new AssertionError("step " + step + " " + op + " threw (seed=" + seed + ")", e);
+            }
+            idleFor(Duration.ofMillis(random.nextInt(MAX_STEP_DELAY_MS + 1)));
+        }
+
+        // Teardown: detach + dispose; keepWarmMs > 0 để thread + camera trong holder → release ngay để kiểm rò rỉ
+        if (view.getParent() != null) host.removeView(view);
+        view.dispose();
+        view = null;
+        captureThread.shutdown();
+        assertTrue("capture thread không dừng", captureThread.awaitTermination(CameraTestSupport.TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        WarmCameraHolder.releaseParked();
+
+        await("mọi promise settle (seed=" + seed + ")", () -> settlements.settled() >= submitted);
+        await("camera thread dừng hết (seed=" + seed + ")", () -> !cameraThreadAlive());
+
+        String report = "seed=" + seed + " captures=" + submitted
+                + " (resolved=" + settlements.resolved.get() + ", rejected=" + settlements.rejected.get() + ")";
+        Log.i(TAG, "[soak] " + report);
+        assertEquals(report, submitted, settlements.settled());
+        assertEquals(report, 0, settlements.doubleSettled.get());
+        assertEquals(report, 0, driver.useAfterRelease.get());
+        assertFalse(report, cameraThreadAlive());
+        long openP99Ms = CameraMetrics.get().openLatency.percentile(0.99);
+        if (openP99Ms > MAX_OPEN_P99_MS) fail("open p99 " + openP99Ms + "ms > " + MAX_OPEN_P99_MS + "ms (" + report + ")");
+    }
+
+    private void perform(Op op) {
+        boolean attached = view.getParent() != null;
+        switch (op) {
+            case ATTACH:
+                if (!attached) host.addView(view, matchParent());
+                break;
+            case DETACH:
+                if (attached) host.removeView(view);
+                break;
+            case REMOUNT:
+                // Như ViewManager.onDropViewInstance + createViewInstance: view cũ bỏ hẳn, view mới mount
+                if (attached) host.removeView(view);
+                view.dispose();
+                view = new SevenMDCameraView(reactContext);
+                host.addView(view, matchParent());
+                break;
+            case SURFACE_AVAILABLE:
+                view.onSurfaceTextureAvailable(surface, randomSide(), randomSide());
+                break;
+            case SURFACE_SIZE_CHANGED:
+                view.onSurfaceTextureSizeChanged(surface, randomSide(), randomSide());
+                break;
+            case SURFACE_DESTROYED:
+                view.onSurfaceTextureDestroyed(surface);
+                break;
+            case HOST_PAUSE:
+                view.onHostPause();
+                break;
+            case HOST_RESUME:
+                view.onHostResume();
+                break;
+            case HIDE:
+                view.setVisibility(View.INVISIBLE);
+                break;
+            case SHOW:
+                view.setVisibility(View.VISIBLE);
+                break;
+            case KEEP_WARM:
+                view.setKeepWarmMs(random.nextBoolean() ? 0 : 200 + random.nextInt(800));
+                break;
+            case FAIL_OPEN:
+                driver.failNextOpens.set(1 + random.nextInt(3));
+                break;
+            case CAPTURE: {
+                SevenMDCameraView target = view;
+                submitted++;
+                captureThread.execute(() -> target.capture(settlements.newPromise()));
+                break;
+            }
+            case BURST: {
+                SevenMDCameraView target = view;
+                int count = 1 + random.nextInt(3);
+                submitted++;
+                captureThread.execute(() -> target.captureBurst(count, 0, settlements.newPromise()));
+                break;
+            }
+        }
+    }
+
+    private static ViewGroup.LayoutParams matchParent() {
+        return new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+    }
+
+    private int randomSide() {
+        return 320 + random.nextInt(1600);
+    }
+}
@@ -0,0 +1,102 @@
+package com.reactnative.SevenMDCamera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Bảng chuyển trạng thái của CameraStateMachine: hợp lệ thì đổi, không hợp lệ / sai thread thì giữ nguyên */
+@RunWith(RobolectricTestRunner.class)
+public class CameraStateMachineTest {
+
+    @Test
+    public void followsOpenPreviewCaptureCloseLifecycle() {
+        CameraStateMachine state = new CameraStateMachine();
+
+        assertTrue(state.transition(CameraStateMachine.State.OPENING));
+        assertTrue(state.transition(CameraStateMachine.State.OPEN));
+        assertTrue(state.transition(CameraStateMachine.State.PREVIEWING));
+        assertTrue(state.transition(CameraStateMachine.State.CAPTURING));
+        assertTrue(state.transition(CameraStateMachine.State.PREVIEWING));
+        assertTrue(state.transition(CameraStateMachine.State.CLOSING));
+        assertTrue(state.transition(CameraStateMachine.State.CLOSED));
+        assertEquals(CameraStateMachine.State.CLOSED, state.get());
+    }
+
+    @Test
+    public void rejectsInvalidTransitionsAndKeepsState() {
+        CameraStateMachine state = new CameraStateMachine();
+
+        assertFalse(state.transition(CameraStateMachine.State.PREVIEWING));
+        assertEquals(CameraStateMachine.State.CLOSED, state.get());
+
+        state.transition(CameraStateMachine.State.OPENING);
+        state.transition(CameraStateMachine.State.OPEN);
+        state.transition(CameraStateMachine.State.PREVIEWING);
+        assertFalse("phải qua CLOSING", state.transition(CameraStateMachine.State.CLOSED));
+        assertEquals(CameraStateMachine.State.PREVIEWING, state.get());
+    }
+
+    @Test
+    public void suspendAndCaptureAbortReturnToOpen() {
+        CameraStateMachine state = new CameraStateMachine();
+        state.transition(CameraStateMachine.State.OPENING);
+        state.transition(CameraStateMachine.State.OPEN);
+        state.transition(CameraStateMachine.State.PREVIEWING);
+
+        assertTrue(state.transition(CameraStateMachine.State.CAPTURING));
+        assertTrue("suspend giữa lúc chụp", state.transition(CameraStateMachine.State.OPEN));
+        assertTrue(state.get().hasCamera());
+    }
+
+    @Test
+    public void failedOpenGoesBackToClosed() {
+        CameraStateMachine state = new CameraStateMachine();
+        state.transition(CameraStateMachine.State.OPENING);
+
+        assertTrue(state.transition(CameraStateMachine.State.CLOSED));
+        assertFalse(state.get().hasCamera());
+    }
+
+    @Test
+    public void rejectsTransitionFromNonOwnerThread() {
+        CameraStateMachine state = new CameraStateMachine();
+        state.setOwner(new Thread("CameraBackground"));
+
+        assertFalse(state.transition(CameraStateMachine.State.OPENING));
+        assertEquals(CameraStateMachine.State.CLOSED, state.get());
+    }
+
+    @Test
+    public void forceClosedResetsFromAnyState() {
+        CameraStateMachine state = new CameraStateMachine();
+        state.transition(CameraStateMachine.State.OPENING);
+        state.transition(CameraStateMachine.State.OPEN);
+
+        state.forceClosed();
+
+        assertEquals(CameraStateMachine.State.CLOSED, state.get());
+        assertTrue(state.transition(CameraStateMachine.State.OPENING));
+    }
+
+    @Test
+    public void listenerSeesOnlyAcceptedTransitions() {
+        CameraStateMachine state = new CameraStateMachine();
+        List<String> seen = new ArrayList<>();
+        state.setListener((from, to, atMs, elapsedInFromMs) -> seen.add(from + ">" + to));
+
+        state.transition(CameraStateMachine.State.OPENING);
+        state.transition(CameraStateMachine.State.CAPTURING);   // không hợp lệ
+        state.transition(CameraStateMachine.State.OPEN);
+        state.transition(CameraStateMachine.State.OPEN);        // cùng trạng thái: không phát
+
+        assertEquals(Arrays.asList("CLOSED>OPENING", "OPENING>OPEN"), seen);
+    }
+}
@@ -0,0 +1,93 @@
+package com.reactnative.SevenMDCamera;
+
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.facebook.react.bridge.Promise;
+
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tiện ích chung cho JVM test vòng đời camera
+ * - Camera thread là HandlerThread thật; main looper (PAUSED) và đồng hồ giả do test tự đẩy
+ * - Promise giả đếm resolve / reject / settle hai lần (PromiseImpl cần native để reject)
+ */
+final class CameraTestSupport {
+    static final long TIMEOUT_MS = 5000;
+    private static final Duration TICK = Duration.ofMillis(5);
+
+    private CameraTestSupport() {
+    }
+
+    /**
+     * Chạy main looper và đẩy đồng hồ giả theo từng nhịp tới khi condition đúng.
+     * postDelayed trên camera thread (retry, frame giả, suspend-release) chỉ chạy khi đồng hồ giả tiến.
+     */
+    static void await(String what, BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Hết " + TIMEOUT_MS + "ms chờ: " + what);
+            idleFor(TICK);
+        }
+    }
+
+    /** Chạy main looper, đẩy đồng hồ giả thêm duration và nhường camera thread một nhịp thật */
+    static void idleFor(Duration duration) {
+        shadowOf(Looper.getMainLooper()).idleFor(duration);
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void awaitState(SevenMDCameraView view, CameraStateMachine.State expected) {
+        await("state " + expected + " (đang " + view.cameraState() + ")", () -> view.cameraState() == expected);
+    }
+
+    static boolean cameraThreadAlive() {
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && "CameraBackground".equals(t.getName())) return true;
+        }
+        return false;
+    }
+
+    /** Đếm kết quả của một hoặc nhiều promise (thread bất kỳ) */
+    static final class Settlements {
+        final AtomicInteger resolved = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger doubleSettled = new AtomicInteger();
+        volatile String lastRejectCode;
+
+        /** Promise giả: resolve(...) / mọi overload reject(...) đều được đếm, settle lần hai bị ghi nhận */
+        Promise newPromise() {
+            AtomicBoolean settled = new AtomicBoolean();
+            return Mockito.mock(Promise.class, invocation -> {
+                String method = invocation.getMethod().getName();
+                boolean resolve = method.equals("resolve");
+                if (!resolve && !method.equals("reject")) return null;
+                if (!settled.compareAndSet(false, true)) {
+                    doubleSettled.incrementAndGet();
+                } else if (resolve) {
+                    resolved.incrementAndGet();
+                } else {
+                    Object first = invocation.getArguments().length > 0 ? invocation.getArgument(0) : null;
+                    if (first instanceof String) lastRejectCode = (String) first;
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        int settled() {
+            return resolved.get() + rejected.get();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactnative.SevenMDCamera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** dump() chạy song song với writer không bao giờ in dòng ghép từ hai sự kiện khác nhau */
+@RunWith(RobolectricTestRunner.class)
+public class CameraTraceTest {
+
+    @Test
+    public void dumpDuringConcurrentWritesSkipsTornSlots() throws InterruptedException {
+        Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            int writer = t;
+            writers[t] = new Thread(() -> {
+                // a == b cho mọi sự kiện → dòng nào lệch là slot bị đọc giữa hai lần ghi
+                for (long n = 0; n < 200_000; n++) {
+                    long v = n * writers.length + writer;
+                    CameraTrace.record(CameraTrace.EV_FRAME, v, v);
+                }
+            }, "trace-" + t);
+            writers[t].start();
+        }
+        while (writers[0].isAlive() || writers[1].isAlive()) checkedLines(CameraTrace.dump(1024));
+        for (Thread w : writers) w.join();
+        assertTrue("dump() phải trả về sự kiện", checkedLines(CameraTrace.dump(1024)) > 0);
+    }
+
+    private static int checkedLines(String dump) {
+        int lines = 0;
+        for (String line : dump.split("\n")) {
+            if (line.isEmpty()) continue;
+            int a = line.indexOf(" a="), b = line.indexOf(" b=");
+            assertEquals(line, line.substring(a + 3, b), line.substring(b + 3));
+            lines++;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,42 @@
+package com.reactnative.SevenMDCamera;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.ImageFormat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Pass bị huỷ (interrupt) giữa lúc phân tích không làm kẹt barrier của pass sau */
+@RunWith(RobolectricTestRunner.class)
+public class FrameQualityAnalyzerTest {
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+
+    @Test
+    public void passAfterInterruptedPassCompletes() throws InterruptedException {
+        FrameQualityAnalyzer analyzer = new FrameQualityAnalyzer();
+        byte[] frame = new byte[WIDTH * HEIGHT * 3 / 2];
+        new Random(7).nextBytes(frame);
+        AtomicBoolean keptInterrupt = new AtomicBoolean();
+
+        Thread worker = new Thread(() -> {
+            // Cờ interrupt bật sẵn → barrier.wait() ném ngay khi còn stripe đang chạy
+            Thread.currentThread().interrupt();
+            analyzer.process(frame, WIDTH, HEIGHT, ImageFormat.NV21, 1);
+            keptInterrupt.set(Thread.interrupted());
+            analyzer.process(frame, WIDTH, HEIGHT, ImageFormat.NV21, 2);
+        }, "FrameProcessor");
+        worker.start();
+        worker.join(5_000);
+
+        assertFalse("pass sau kẹt ở barrier", worker.isAlive());
+        assertTrue("process() phải giữ lại cờ interrupt", keptInterrupt.get());
+        assertFalse(Double.isNaN(analyzer.sharpnessAt(2)));
+        analyzer.shutdown();
+    }
+}
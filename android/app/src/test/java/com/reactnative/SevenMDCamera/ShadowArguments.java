@@ -0,0 +1,29 @@
+package com.reactnative.SevenMDCamera;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+/**
+ * Arguments.createMap/createArray trên JVM: bản gốc tạo WritableNative* (cần libreactnativejni).
+ * Shadow áp cho mọi thread (camera thread, writer...), khác mockStatic chỉ áp cho thread gọi.
+ * Dùng kèm @Config(instrumentedPackages = "com.facebook.react.bridge").
+ */
+@Implements(Arguments.class)
+public class ShadowArguments {
+
+    @Implementation
+    protected static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    @Implementation
+    protected static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+}
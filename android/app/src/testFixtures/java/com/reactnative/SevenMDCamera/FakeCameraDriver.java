@@ -0,0 +1,330 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FakeCameraDriver — CameraDriver giả, xác định (test fixture cho JVM/Robolectric test ở src/test)
+ * - Độ trễ open / startPreview / takePicture cấu hình được; open() chặn thread gọi như Camera.open()
+ * - Lỗi tiêm được: N lần open() tới ném "Fail to connect to camera service"; mở trùng cameraId cũng ném như HAL
+ * - Preview: frame NV21 tổng hợp (gradient dịch theo frame) giao qua hàng buffer như setPreviewCallbackWithBuffer;
+ *   hết buffer → frame bị bỏ, giống HAL
+ * - takePicture(): dừng preview như Camera1, trả JPEG hợp lệ (đệm COM segment tới jpegBytes nếu cấu hình)
+ * - evict(cameraId): camera đang mở bị thu hồi → ErrorCallback, như Camera1 CAMERA_ERROR_EVICTED / Camera2 onDisconnected
+ *
+ * Callback về Looper của thread đã open() (không có Looper → main), đúng hợp đồng Camera1.
+ * Cài: FakeCameraDriver.install(config) trước khi view mở camera; uninstall() để quay về Camera1.
+ */
+final class FakeCameraDriver implements CameraDriver {
+    private static final String TAG = "FakeCameraDriver";
+    static final String SERVICE_BUSY = "Fail to connect to camera service";
+
+    /** Cấu hình dùng chung cho mọi driver do factory tạo; đổi được giữa các lần open() */
+    static final class Config {
+        volatile long openLatencyMs = 0;
+        volatile long startPreviewLatencyMs = 0;
+        volatile long pictureLatencyMs = 150;
+        volatile int previewFps = 30;
+        volatile int jpegBytes = 0;                 // 0 = JPEG tối thiểu (vài trăm byte)
+        volatile CameraCapabilities capabilities = defaultCapabilities();
+        /** Số lần open() tiếp theo sẽ ném SERVICE_BUSY (mô phỏng HAL bận sau khi app khác vừa release) */
+        final AtomicInteger failNextOpens = new AtomicInteger();
+
+        // Thống kê cho assertion / benchmark
+        final AtomicInteger opens = new AtomicInteger();
+        final AtomicInteger failedOpens = new AtomicInteger();
+        final AtomicInteger releases = new AtomicInteger();
+        final AtomicInteger pictures = new AtomicInteger();
+        final AtomicInteger framesDelivered = new AtomicInteger();
+        final AtomicInteger framesDropped = new AtomicInteger();
+        final AtomicInteger evictions = new AtomicInteger();
+        final AtomicInteger useAfterRelease = new AtomicInteger();   // gọi vào driver sau release() — luôn là bug của view
+    }
+
+    // Camera1: mỗi cameraId chỉ một client
+    private static final Map<Integer, FakeCameraDriver> openDrivers = new HashMap<>();
+
+    private final Config config;
+    private final int cameraId;
+    private final Handler handler;
+    private final ArrayDeque<byte[]> buffers = new ArrayDeque<>();   // chỉ thread của handler
+
+    @Nullable private CameraSettingsNegotiator.Settings settings;
+    @Nullable private PreviewCallback previewCallback;
+    @Nullable private volatile ErrorCallback errorCallback;
+    @Nullable private SurfaceTexture surface;
+    @Nullable private byte[] pattern;   // NV21 gốc + 256 byte để dịch theo frame
+    private boolean previewing;
+    private boolean released;
+    private int frameIndex;
+
+    private final Runnable frameTick = this::deliverFrame;
+
+    private FakeCameraDriver(Config config, int cameraId, Looper looper) {
+        this.config = config;
+        this.cameraId = cameraId;
+        this.handler = new Handler(looper);
+    }
+
+    static Config install() {
+        Config config = new Config();
+        install(config);
+        return config;
+    }
+
+    static void install(Config config) {
+        CameraDrivers.setFactory(cameraId -> open(config, cameraId));
+    }
+
+    static void uninstall() {
+        CameraDrivers.setFactory(null);
+    }
+
+    private static CameraDriver open(Config config, int cameraId) {
+        if (config.openLatencyMs > 0) SystemClock.sleep(config.openLatencyMs);
+        if (config.failNextOpens.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            config.failedOpens.incrementAndGet();
+            throw new RuntimeException(SERVICE_BUSY);
+        }
+        Looper looper = Looper.myLooper();
+        FakeCameraDriver driver = new FakeCameraDriver(config, cameraId, looper != null ? looper : Looper.getMainLooper());
+        synchronized (openDrivers) {
+            if (openDrivers.containsKey(cameraId)) {
+                config.failedOpens.incrementAndGet();
+                throw new RuntimeException(SERVICE_BUSY);
+            }
+            openDrivers.put(cameraId, driver);
+        }
+        config.opens.incrementAndGet();
+        Log.d(TAG, "[open] camera " + cameraId);
+        return driver;
+    }
+
+    /**
+     * Client khác lấy mất camera đang mở: driver báo ErrorCallback trên Looper của nó và không dùng được nữa
+     * (nhưng vẫn giữ cameraId tới khi release(), như HAL).
+     * @return false nếu không có driver nào đang mở cameraId
+     */
+    static boolean evict(int cameraId) {
+        FakeCameraDriver driver;
+        synchronized (openDrivers) {
+            driver = openDrivers.get(cameraId);
+        }
+        if (driver == null) return false;
+        driver.handler.post(driver::deliverEviction);
+        return true;
+    }
+
+    private void deliverEviction() {
+        if (released) return;
+        previewing = false;
+        handler.removeCallbacksAndMessages(null);   // frame / JPEG đang chờ không bao giờ tới
+        config.evictions.incrementAndGet();
+        ErrorCallback callback = errorCallback;
+        if (callback != null) callback.onCameraError("Camera evicted by a higher-priority client");
+    }
+
+    @Override
+    public String backend() {
+        return "fake";
+    }
+
+    // region ===== Parameters =====
+    @Override
+    public CameraCapabilities readCapabilities() {
+        checkNotReleased();
+        return config.capabilities;
+    }
+
+    @Override
+    public void applySettings(CameraSettingsNegotiator.Settings next) {
+        checkNotReleased();
+        if (previewing) throw new RuntimeException("setParameters failed");   // HAL từ chối đổi size khi đang preview
+        settings = next;
+    }
+
+    @Override
+    public int[] previewSize() {
+        if (settings != null) return new int[]{settings.previewWidth, settings.previewHeight};
+        int[] first = config.capabilities.previewSizes[0];
+        return new int[]{first[0], first[1]};
+    }
+
+    @Override
+    public int previewFormat() {
+        return ImageFormat.NV21;
+    }
+    // endregion
+
+    // region ===== Preview =====
+    @Override
+    public void setPreviewTexture(SurfaceTexture surface) {
+        checkNotReleased();
+        this.surface = surface;
+    }
+
+    @Override
+    public void startPreview() {
+        checkNotReleased();
+        if (previewing) return;
+        if (config.startPreviewLatencyMs > 0) SystemClock.sleep(config.startPreviewLatencyMs);
+        previewing = true;
+        handler.removeCallbacks(frameTick);
+        handler.postDelayed(frameTick, frameIntervalMs());
+    }
+
+    @Override
+    public void stopPreview() {
+        checkNotReleased();
+        previewing = false;
+        handler.removeCallbacks(frameTick);
+    }
+
+    @Override
+    public void setPreviewCallbackWithBuffer(@Nullable PreviewCallback callback) {
+        checkNotReleased();
+        previewCallback = callback;
+        if (callback == null) buffers.clear();
+    }
+
+    @Override
+    public void addCallbackBuffer(byte[] buffer) {
+        checkNotReleased();
+        buffers.addLast(buffer);
+    }
+
+    private void deliverFrame() {
+        if (!previewing || released) return;
+        handler.postDelayed(frameTick, frameIntervalMs());
+        PreviewCallback callback = previewCallback;
+        if (callback == null) return;
+        byte[] buffer = buffers.pollFirst();
+        if (buffer == null) {
+            config.framesDropped.incrementAndGet();
+            return;
+        }
+        fillFrame(buffer);
+        config.framesDelivered.incrementAndGet();
+        callback.onPreviewFrame(buffer);
+    }
+
+    /** Gradient Y dịch 1 pixel mỗi frame, UV xám — đủ để analyzer thấy nội dung thay đổi */
+    private void fillFrame(byte[] buffer) {
+        if (pattern == null || pattern.length != buffer.length + 256) {
+            int[] size = previewSize();
+            int width = size[0];
+            int ySize = size[0] * size[1];
+            pattern = new byte[buffer.length + 256];
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = i < ySize + 256 ? (byte) ((i % width) + (i / width)) : (byte) 128;
+            }
+        }
+        System.arraycopy(pattern, frameIndex++ & 0xFF, buffer, 0, buffer.length);
+    }
+
+    private long frameIntervalMs() {
+        return 1000L / Math.max(1, config.previewFps);
+    }
+    // endregion
+
+    @Override
+    public void takePicture(PictureCallback callback) {
+        checkNotReleased();
+        if (!previewing) throw new RuntimeException("takePicture failed");
+        stopPreview();   // Camera1: preview dừng cho tới khi startPreview() lại
+        byte[] jpeg = syntheticJpeg(config.jpegBytes);
+        handler.postDelayed(() -> {
+            if (released) return;
+            config.pictures.incrementAndGet();
+            callback.onPictureTaken(jpeg);
+        }, config.pictureLatencyMs);
+    }
+
+    @Override
+    public void setErrorCallback(@Nullable ErrorCallback callback) {
+        checkNotReleased();
+        errorCallback = callback;
+    }
+
+    @Override
+    public void release() {
+        if (released) return;
+        released = true;
+        previewing = false;
+        errorCallback = null;
+        handler.removeCallbacksAndMessages(null);
+        buffers.clear();
+        surface = null;
+        synchronized (openDrivers) {
+            openDrivers.remove(cameraId);
+        }
+        config.releases.incrementAndGet();
+        Log.d(TAG, "[release] camera " + cameraId);
+    }
+
+    private void checkNotReleased() {
+        if (!released) return;
+        config.useAfterRelease.incrementAndGet();
+        Log.e(TAG, "[checkNotReleased] camera " + cameraId + " bị dùng sau release()", new Throwable());
+        throw new RuntimeException("Camera is being used after Camera.release() was called");
+    }
+
+    // region ===== Dữ liệu tổng hợp =====
+
+    static CameraCapabilities defaultCapabilities() {
+        return new CameraCapabilities(
+                new int[][]{{1920, 1080}, {1280, 720}, {640, 480}},
+                new int[][]{{4032, 3024}, {1920, 1080}},
+                new int[][]{{15000, 30000}, {30000, 30000}},
+                new int[]{ImageFormat.NV21});
+    }
+
+    // JPEG xám 16x16 hợp lệ, decode được bằng BitmapFactory / ImageIO
+    private static final String MINIMAL_JPEG_HEX =
+            "ffd8ffe000104a46494600010200000100010000ffdb004300080606070605080707070909080a0c140d0c0b0b0c1912130f14"
+            + "1d1a1f1e1d1a1c1c20242e2720222c231c1c2837292c30313434341f27393d38323c2e333432ffc0000b0800100010010111"
+            + "00ffc4001f0000010501010101010100000000000000000102030405060708090a0bffc400b5100002010303020403050504"
+            + "040000017d01020300041105122131410613516107227114328191a1082342b1c11552d1f02433627282090a161718191a25"
+            + "262728292a3435363738393a434445464748494a535455565758595a636465666768696a737475767778797a838485868788"
+            + "898a92939495969798999aa2a3a4a5a6a7a8a9aab2b3b4b5b6b7b8b9bac2c3c4c5c6c7c8c9cad2d3d4d5d6d7d8d9dae1e2e3"
+            + "e4e5e6e7e8e9eaf1f2f3f4f5f6f7f8f9faffda0008010100003f00f37d1f47fbbf2d7a068fa3fddf968d1f47fbbf2d7a068f"
+            + "a3fddf96bfffd9";
+
+    /** JPEG tối thiểu, đệm bằng COM segment (FFFE) ngay sau APP0 tới ~targetBytes để mô phỏng kích thước ảnh thật */
+    static byte[] syntheticJpeg(int targetBytes) {
+        byte[] base = new byte[MINIMAL_JPEG_HEX.length() / 2];
+        for (int i = 0; i < base.length; i++) {
+            base[i] = (byte) Integer.parseInt(MINIMAL_JPEG_HEX.substring(i * 2, i * 2 + 2), 16);
+        }
+        int padding = targetBytes - base.length;
+        if (padding < 4) return base;
+        int headerEnd = 2 + 2 + ((base[4] & 0xFF) << 8 | (base[5] & 0xFF));   // SOI + APP0
+        ByteArrayOutputStream out = new ByteArrayOutputStream(targetBytes);
+        out.write(base, 0, headerEnd);
+        while (padding >= 4) {
+            int payload = Math.min(padding - 4, 0xFFFF - 2);
+            int length = payload + 2;
+            out.write(0xFF);
+            out.write(0xFE);
+            out.write(length >> 8);
+            out.write(length & 0xFF);
+            for (int i = 0; i < payload; i++) out.write('x');
+            padding -= payload + 4;
+        }
+        out.write(base, headerEnd, base.length - headerEnd);
+        return out.toByteArray();
+    }
+    // endregion
+}
@@ -0,0 +1,99 @@
+package com.reactnative.SevenMDCamera;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Dữ liệu đầu vào tổng hợp, xác định (seed cố định) để số đo so sánh được giữa các lần chạy / release
+ */
+final class BenchmarkData {
+    private static final long SEED = 0x5EED_7D;
+
+    private BenchmarkData() {
+    }
+
+    /** "1920x1080" → {1920, 1080} */
+    static int[] parseSize(String size) {
+        int x = size.indexOf('x');
+        return new int[]{Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1))};
+    }
+
+    /**
+     * JPEG (JFIF, chưa có Exif) từ ảnh nhiễu + gradient → kích thước file gần ảnh camera thật
+     * (nhiễu thuần nén rất kém, ảnh phẳng nén quá tốt; trộn hai thứ cho ~1 bit/pixel)
+     */
+    static byte[] jpeg(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(SEED);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int base = (x * 255 / width + y * 255 / height) / 2;
+                int v = Math.max(0, Math.min(255, base + random.nextInt(48) - 24));
+                row[x] = v << 16 | (255 - v) << 8 | (v ^ 0x55);
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(width * height / 3);
+        try {
+            ImageIO.write(image, "jpg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /** JPEG đã có APP1/Exif với tag Orientation — giống JPEG HAL trả về (patch chỉ thay 10 byte của entry) */
+    static byte[] jpegWithOrientation(int width, int height) {
+        return ExifOrientationPatcher.toByteArray(ExifOrientationPatcher.patch(jpeg(width, height), 1));
+    }
+
+    /** JPEG có APP1/Exif nhưng IFD0 chỉ có tag Make, thiếu Orientation (patch phải dựng lại IFD0) */
+    static byte[] jpegWithExifWithoutOrientation(int width, int height) {
+        byte[] plain = jpeg(width, height);
+        // TIFF big-endian: header 8 byte, IFD0 một entry Make (ASCII, 4 byte inline), next IFD = 0
+        byte[] tiff = {
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x0F, 0, 2, 0, 0, 0, 4, 'F', 'A', 'K', 0,
+                0, 0, 0, 0,
+        };
+        int segmentLength = 2 + 6 + tiff.length;
+        byte[] app1 = new byte[2 + segmentLength];
+        app1[0] = (byte) 0xFF;
+        app1[1] = (byte) 0xE1;
+        app1[2] = (byte) (segmentLength >> 8);
+        app1[3] = (byte) segmentLength;
+        System.arraycopy(new byte[]{'E', 'x', 'i', 'f', 0, 0}, 0, app1, 4, 6);
+        System.arraycopy(tiff, 0, app1, 10, tiff.length);
+
+        // Chèn sau SOI + APP0 (JFIF) như bố cục của encoder thật
+        int insertAt = 2;
+        if ((plain[2] & 0xFF) == 0xFF && (plain[3] & 0xFF) == 0xE0) {
+            insertAt = 4 + ((plain[4] & 0xFF) << 8 | (plain[5] & 0xFF));
+        }
+        byte[] out = new byte[plain.length + app1.length];
+        System.arraycopy(plain, 0, out, 0, insertAt);
+        System.arraycopy(app1, 0, out, insertAt, app1.length);
+        System.arraycopy(plain, insertAt, out, insertAt + app1.length, plain.length - insertAt);
+        return out;
+    }
+
+    /** Frame NV21: Y gradient + nhiễu (có cạnh cho Laplacian), UV xám */
+    static byte[] nv21(int width, int height) {
+        byte[] frame = new byte[width * height * 3 / 2];
+        Random random = new Random(SEED);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                frame[y * width + x] = (byte) (((x + y) & 0xFF) ^ random.nextInt(32));
+            }
+        }
+        for (int i = width * height; i < frame.length; i++) frame[i] = (byte) 128;
+        return frame;
+    }
+}
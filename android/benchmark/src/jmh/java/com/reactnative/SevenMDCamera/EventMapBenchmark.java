@@ -0,0 +1,52 @@
+package com.reactnative.SevenMDCamera;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dựng map sự kiện gửi sang JS: CameraMetrics.snapshot() (onMetrics, mỗi chu kỳ startMetricsUpdates)
+ * và LatencyHistogram.toWritableMap(). Map là JavaOnlyMap (shim) → chỉ đo phần Java, không gồm JNI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventMapBenchmark {
+    private LatencyHistogram histogram;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        histogram = new LatencyHistogram();
+        CameraMetrics metrics = CameraMetrics.get();
+        metrics.reset();
+        for (int i = 0; i < 1000; i++) {
+            long ms = 20 + random.nextInt(400);
+            histogram.record(ms);
+            metrics.openLatency.record(ms);
+            metrics.shutterToJpeg.record(ms / 2);
+            metrics.onPhotoWritten(3_000_000, ms / 4);
+            metrics.onPreviewFrame();
+        }
+    }
+
+    @Benchmark
+    public WritableMap histogramToMap() {
+        return histogram.toWritableMap();
+    }
+
+    @Benchmark
+    public WritableMap metricsSnapshot() {
+        return CameraMetrics.get().snapshot();
+    }
+}
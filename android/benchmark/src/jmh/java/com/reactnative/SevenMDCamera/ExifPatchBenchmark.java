@@ -0,0 +1,56 @@
+package com.reactnative.SevenMDCamera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExifOrientationPatcher.patch() cho ba bố cục header mà PhotoWriter / OutputDeriver gặp:
+ * có sẵn tag (thay entry bằng đoạn chép riêng), Exif thiếu tag (dựng lại IFD0), không có Exif (chèn APP1)
+ * toByteArray: chi phí nếu phải gom lại thành một mảng (đường OutputDeriver / stream)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExifPatchBenchmark {
+    private static final int ORIENTATION = 6;
+
+    private byte[] withTag;
+    private byte[] exifWithoutTag;
+    private byte[] noExif;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        withTag = BenchmarkData.jpegWithOrientation(1920, 1080);
+        exifWithoutTag = BenchmarkData.jpegWithExifWithoutOrientation(1920, 1080);
+        noExif = BenchmarkData.jpeg(1920, 1080);
+    }
+
+    @Benchmark
+    public ByteBuffer[] patchExistingTag() {
+        return ExifOrientationPatcher.patch(withTag, ORIENTATION);
+    }
+
+    @Benchmark
+    public ByteBuffer[] patchRebuildIfd() {
+        return ExifOrientationPatcher.patch(exifWithoutTag, ORIENTATION);
+    }
+
+    @Benchmark
+    public ByteBuffer[] patchInsertSegment() {
+        return ExifOrientationPatcher.patch(noExif, ORIENTATION);
+    }
+
+    @Benchmark
+    public byte[] patchInsertSegmentToArray() {
+        return ExifOrientationPatcher.toByteArray(ExifOrientationPatcher.patch(noExif, ORIENTATION));
+    }
+}
@@ -0,0 +1,64 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.ImageFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kernel phân tích preview frame: FrameQualityAnalyzer.process() (Laplacian + histogram, chia stripe),
+ * so với copyFrame — một lần chép nguyên frame như ZslRing, làm mốc "chi phí chạm vào frame"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameAnalysisBenchmark {
+
+    @Param({"1280x720", "1920x1080"})
+    public String size;
+
+    private int width, height;
+    private byte[] frame;
+    private byte[] copy;
+    private FrameQualityAnalyzer analyzer;
+    private long timestamp;
+    private double lastSharpness;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] wh = BenchmarkData.parseSize(size);
+        width = wh[0];
+        height = wh[1];
+        frame = BenchmarkData.nv21(width, height);
+        copy = new byte[frame.length];
+        analyzer = new FrameQualityAnalyzer();
+        analyzer.setListener((ts, sharpness, meanLuma, dark, bright) -> lastSharpness = sharpness);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        analyzer.shutdown();
+    }
+
+    @Benchmark
+    public double qualityAnalyzer() {
+        analyzer.process(frame, width, height, ImageFormat.NV21, ++timestamp);
+        return lastSharpness;
+    }
+
+    @Benchmark
+    public byte[] copyFrame() {
+        System.arraycopy(frame, 0, copy, 0, frame.length);
+        return copy;
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactnative.SevenMDCamera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi một JPEG (kèm vá EXIF Orientation) xuống đĩa theo ba cách:
+ * - stream: nối header + thân thành một byte[] rồi FileOutputStream.write()
+ * - channelGather: PhotoWriter.writeSync() — đường ship thật (gathering write, không copy thân JPEG)
+ * - mapped: FileChannel.map() rồi put từng phần
+ * fsync: NONE (chỉ page cache) | DATA (force(false) / MappedByteBuffer.force())
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistenceBenchmark {
+    private static final int ORIENTATION = 6;
+
+    @Param({"1920x1080", "4032x3024"})
+    public String size;
+
+    @Param({"NONE", "DATA"})
+    public String fsync;
+
+    private byte[] jpeg;
+    private PhotoWriter.FsyncPolicy policy;
+    private File dir;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int[] wh = BenchmarkData.parseSize(size);
+        jpeg = BenchmarkData.jpegWithOrientation(wh[0], wh[1]);
+        policy = PhotoWriter.FsyncPolicy.valueOf(fsync);
+        dir = Files.createTempDirectory("sevenmd-persist").toFile();
+        file = new File(dir, "photo.jpg");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        byte[] bytes = ExifOrientationPatcher.toByteArray(ExifOrientationPatcher.patch(jpeg, ORIENTATION));
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(bytes);
+            if (policy != PhotoWriter.FsyncPolicy.NONE) fos.getChannel().force(policy == PhotoWriter.FsyncPolicy.FULL);
+        }
+        return bytes.length;
+    }
+
+    @Benchmark
+    public long channelGather() throws IOException {
+        return PhotoWriter.writeSync(file, jpeg, ORIENTATION, policy);
+    }
+
+    @Benchmark
+    public long mapped() throws IOException {
+        ByteBuffer[] parts = ExifOrientationPatcher.patch(jpeg, ORIENTATION);
+        long total = 0;
+        for (ByteBuffer part : parts) total += part.remaining();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(total);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+            for (ByteBuffer part : parts) map.put(part);
+            if (policy != PhotoWriter.FsyncPolicy.NONE) map.force();
+        }
+        return total;
+    }
+}
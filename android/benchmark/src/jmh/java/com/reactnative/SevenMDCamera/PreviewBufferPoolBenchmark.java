@@ -0,0 +1,150 @@
+package com.reactnative.SevenMDCamera;
+
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vòng đời một preview frame qua PreviewBufferPool: HAL giao buffer → listener → release → addCallbackBuffer
+ * - deliverAndRecycle: listener chỉ đọc frame trong callback (trường hợp ZslRing / FrameProcessorRunner bận)
+ * - retainAcrossFrames: listener giữ frame tới frame kế tiếp (processor xử lý bất đồng bộ)
+ * Driver giả chỉ xếp hàng buffer, không sinh nội dung → số đo là chi phí riêng của pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PreviewBufferPoolBenchmark {
+
+    /** Chỉ phần CameraDriver mà PreviewBufferPool chạm tới */
+    static final class QueueDriver implements CameraDriver {
+        final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+        private final int[] size;
+        @Nullable PreviewCallback callback;
+
+        QueueDriver(int[] size) {
+            this.size = size;
+        }
+
+        /** Mô phỏng HAL giao một frame; false = hết buffer (frame bị bỏ) */
+        boolean deliver() {
+            byte[] buffer = queue.pollFirst();
+            if (buffer == null || callback == null) return false;
+            callback.onPreviewFrame(buffer);
+            return true;
+        }
+
+        @Override
+        public CameraCapabilities readCapabilities() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void applySettings(CameraSettingsNegotiator.Settings settings) {
+        }
+
+        @Override
+        public int[] previewSize() {
+            return size;
+        }
+
+        @Override
+        public int previewFormat() {
+            return ImageFormat.NV21;
+        }
+
+        @Override
+        public void setPreviewTexture(SurfaceTexture surface) {
+        }
+
+        @Override
+        public void startPreview() {
+        }
+
+        @Override
+        public void stopPreview() {
+        }
+
+        @Override
+        public void setPreviewCallbackWithBuffer(@Nullable PreviewCallback callback) {
+            this.callback = callback;
+            if (callback == null) queue.clear();
+        }
+
+        @Override
+        public void addCallbackBuffer(byte[] buffer) {
+            queue.addLast(buffer);
+        }
+
+        @Override
+        public void takePicture(PictureCallback callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    @Param({"1280x720", "1920x1080"})
+    public String size;
+
+    @Param({"1", "3"})
+    public int listeners;
+
+    private QueueDriver driver;
+    private PreviewBufferPool pool;
+    private PreviewBufferPool retainingPool;
+    private QueueDriver retainingDriver;
+    @Nullable private PreviewBufferPool.PreviewFrame held;
+    private Blackhole blackhole;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+        blackhole = bh;
+        int[] wh = BenchmarkData.parseSize(size);
+        Handler handler = new Handler(Looper.myLooper());
+
+        driver = new QueueDriver(wh);
+        pool = new PreviewBufferPool(PreviewBufferPool.DEFAULT_CAPACITY);
+        for (int i = 0; i < listeners; i++) pool.addListener(frame -> blackhole.consume(frame.data[0]));
+        pool.attach(driver, handler);
+
+        retainingDriver = new QueueDriver(wh);
+        retainingPool = new PreviewBufferPool(PreviewBufferPool.DEFAULT_CAPACITY);
+        retainingPool.addListener(frame -> {
+            frame.retain();
+            PreviewBufferPool.PreviewFrame previous = held;
+            held = frame;
+            if (previous != null) previous.release();
+        });
+        for (int i = 1; i < listeners; i++) retainingPool.addListener(frame -> blackhole.consume(frame.data[0]));
+        retainingPool.attach(retainingDriver, handler);
+    }
+
+    @Benchmark
+    public boolean deliverAndRecycle() {
+        return driver.deliver();
+    }
+
+    @Benchmark
+    public boolean retainAcrossFrames() {
+        return retainingDriver.deliver();
+    }
+}
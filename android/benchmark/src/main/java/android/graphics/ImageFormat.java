@@ -0,0 +1,17 @@
+package android.graphics;
+
+/** JVM shim cho benchmark: hằng số giống android.graphics.ImageFormat */
+public class ImageFormat {
+    public static final int NV21 = 0x11;
+    public static final int YV12 = 0x32315659;
+
+    public static int getBitsPerPixel(int format) {
+        switch (format) {
+            case NV21:
+            case YV12:
+                return 12;
+            default:
+                return -1;
+        }
+    }
+}
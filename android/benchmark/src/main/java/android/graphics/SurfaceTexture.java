@@ -0,0 +1,5 @@
+package android.graphics;
+
+/** JVM shim cho benchmark: chỉ để CameraDriver biên dịch được */
+public class SurfaceTexture {
+}
@@ -0,0 +1,32 @@
+package android.hardware;
+
+import java.util.List;
+
+/** JVM shim cho benchmark: chỉ các kiểu CameraCapabilities.from() tham chiếu; không có thiết bị thật */
+public class Camera {
+    public class Size {
+        public int width;
+        public int height;
+    }
+
+    public class Parameters {
+        public static final int PREVIEW_FPS_MIN_INDEX = 0;
+        public static final int PREVIEW_FPS_MAX_INDEX = 1;
+
+        public List<Size> getSupportedPreviewSizes() {
+            throw new UnsupportedOperationException();
+        }
+
+        public List<Size> getSupportedPictureSizes() {
+            throw new UnsupportedOperationException();
+        }
+
+        public List<int[]> getSupportedPreviewFpsRange() {
+            throw new UnsupportedOperationException();
+        }
+
+        public List<Integer> getSupportedPreviewFormats() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * JVM shim cho benchmark: post() chạy ngay trên thread gọi.
+ * Benchmark chỉ post từ chính thread của Looper nên thứ tự thực thi giống trên thiết bị.
+ */
+public class Handler {
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public final boolean post(Runnable r) {
+        r.run();
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+package android.os;
+
+/** JVM shim cho benchmark: mỗi thread một Looper, không có message loop */
+public final class Looper {
+    private static final ThreadLocal<Looper> current = ThreadLocal.withInitial(Looper::new);
+
+    private final Thread thread = Thread.currentThread();
+
+    private Looper() {
+    }
+
+    public static Looper myLooper() {
+        return current.get();
+    }
+
+    public boolean isCurrentThread() {
+        return thread == Thread.currentThread();
+    }
+}
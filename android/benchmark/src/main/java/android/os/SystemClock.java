@@ -0,0 +1,15 @@
+package android.os;
+
+/** JVM shim cho benchmark: đồng hồ đơn điệu như elapsedRealtime() trên thiết bị */
+public final class SystemClock {
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,19 @@
+package com.facebook.react.bridge;
+
+/**
+ * JVM shim cho benchmark: trên thiết bị createMap()/createArray() trả về bản native (JNI);
+ * ở đây là JavaOnlyMap/JavaOnlyArray → số đo phản ánh phần dựng map phía Java (cấp phát, boxing, số key),
+ * không gồm chi phí JNI.
+ */
+public final class Arguments {
+    private Arguments() {
+    }
+
+    public static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    public static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+}
@@ -0,0 +1,41 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+
+/** JVM shim cho benchmark: mảng thuần Java như JavaOnlyArray của React Native (không qua JNI) */
+public class JavaOnlyArray extends ArrayList<Object> implements WritableArray {
+    @Override
+    public void pushNull() {
+        add(null);
+    }
+
+    @Override
+    public void pushBoolean(boolean value) {
+        add(value);
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        add(value);
+    }
+
+    @Override
+    public void pushInt(int value) {
+        add(value);
+    }
+
+    @Override
+    public void pushString(String value) {
+        add(value);
+    }
+
+    @Override
+    public void pushArray(WritableArray value) {
+        add(value);
+    }
+
+    @Override
+    public void pushMap(WritableMap value) {
+        add(value);
+    }
+}
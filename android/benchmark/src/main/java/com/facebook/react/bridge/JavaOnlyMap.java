@@ -0,0 +1,41 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+
+/** JVM shim cho benchmark: map thuần Java như JavaOnlyMap của React Native (không qua JNI) */
+public class JavaOnlyMap extends HashMap<String, Object> implements WritableMap {
+    @Override
+    public void putNull(String key) {
+        put(key, null);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putArray(String key, WritableArray value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putMap(String key, WritableMap value) {
+        put(key, value);
+    }
+}
@@ -0,0 +1,18 @@
+package com.facebook.react.bridge;
+
+/** JVM shim cho benchmark: phần push* của WritableArray mà các class app dùng */
+public interface WritableArray {
+    void pushNull();
+
+    void pushBoolean(boolean value);
+
+    void pushDouble(double value);
+
+    void pushInt(int value);
+
+    void pushString(String value);
+
+    void pushArray(WritableArray value);
+
+    void pushMap(WritableMap value);
+}
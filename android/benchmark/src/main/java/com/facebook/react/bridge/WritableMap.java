@@ -0,0 +1,18 @@
+package com.facebook.react.bridge;
+
+/** JVM shim cho benchmark: phần put* của WritableMap mà các class app dùng */
+public interface WritableMap {
+    void putNull(String key);
+
+    void putBoolean(String key, boolean value);
+
+    void putDouble(String key, double value);
+
+    void putInt(String key, int value);
+
+    void putString(String key, String value);
+
+    void putArray(String key, WritableArray value);
+
+    void putMap(String key, WritableMap value);
+}
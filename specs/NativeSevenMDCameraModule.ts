@@ -0,0 +1,28 @@
+import type { CodegenTypes, TurboModule } from "react-native";
+import { TurboModuleRegistry } from "react-native";
+
+// Spec TurboModule của SevenMDCameraModule — codegen sinh NativeSevenMDCameraModuleSpec (Java) từ file này.
+// Đổi signature ở đây thì phải đổi SevenMDCameraModule.java cho khớp.
+export interface Spec extends TurboModule {
+  // options: { outputs?: [{ maxSide, quality? }] } → { uri, thumbnail?, outputs? }
+  capture(viewTag: CodegenTypes.Int32, options: Object | null): Promise<Object>;
+  captureBurst(viewTag: CodegenTypes.Int32, count: CodegenTypes.Int32, intervalMs: number): Promise<Object>;
+  startContinuousCapture(viewTag: CodegenTypes.Int32, intervalMs: number): Promise<Object>;
+  stopContinuousCapture(viewTag: CodegenTypes.Int32): Promise<Object>;
+  dumpTrace(maxEvents: CodegenTypes.Int32): Promise<string>;
+
+  pinPhoto(uri: string): Promise<boolean>;
+  releasePhoto(uri: string): Promise<boolean>;
+  setCaptureStoreBudget(maxBytes: number, maxCount: CodegenTypes.Int32): void;
+
+  getMetrics(): Promise<Object>;
+  resetMetrics(): void;
+  startMetricsUpdates(intervalMs: number): void;
+  stopMetricsUpdates(): void;
+
+  // NativeEventEmitter yêu cầu
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+}
+
+export default TurboModuleRegistry.getEnforcing<Spec>("SevenMDCameraModule");
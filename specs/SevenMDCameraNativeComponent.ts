@@ -0,0 +1,72 @@
+import type { CodegenTypes, HostComponent, ViewProps } from "react-native";
+import { codegenNativeCommands, codegenNativeComponent } from "react-native";
+
+// Spec Fabric component "SevenMDCamera" — codegen sinh SevenMDCameraManagerInterface / Delegate (Java).
+// Prop mới: thêm ở đây + setter cùng tên trong SevenMDCameraViewManager.
+
+type CameraReadyEvent = Readonly<{
+  status: string;
+  warm: boolean;
+  openMs: CodegenTypes.Double;
+  backend: string;
+}>;
+
+type PictureSavedEvent = Readonly<{
+  uri: string;
+  thumbnail?: Readonly<{ uri: string; width: CodegenTypes.Int32; height: CodegenTypes.Int32 }>;
+}>;
+
+type ErrorEvent = Readonly<{
+  error: string;
+  trace?: string;
+}>;
+
+type FrameQualityEvent = Readonly<{
+  timestampMs: CodegenTypes.Double;
+  sharpness: CodegenTypes.Double;
+  meanLuma: CodegenTypes.Double;
+  darkFraction: CodegenTypes.Double;
+  brightFraction: CodegenTypes.Double;
+}>;
+
+type PreviewResumedEvent = Readonly<{
+  warm: boolean;
+  resumeMs: CodegenTypes.Double;
+}>;
+
+export interface NativeProps extends ViewProps {
+  cameraId?: CodegenTypes.WithDefault<CodegenTypes.Int32, 0>;
+  facing?: string;
+  backend?: string;
+  fpsPolicy?: string;
+  pictureMaxSide?: CodegenTypes.WithDefault<CodegenTypes.Int32, 0>;
+  fsyncPolicy?: string;
+  zslSelection?: string;
+  frameQualityIntervalMs?: CodegenTypes.WithDefault<CodegenTypes.Int32, 0>;
+  captureMode?: string;
+  captureCoalesceMs?: CodegenTypes.WithDefault<CodegenTypes.Int32, 0>;
+  captureTimeoutMs?: CodegenTypes.WithDefault<CodegenTypes.Int32, 10000>;
+  keepWarmMs?: CodegenTypes.WithDefault<CodegenTypes.Int32, 0>;
+  backgroundPolicy?: string;
+  suspendReleaseMs?: CodegenTypes.WithDefault<CodegenTypes.Int32, 10000>;
+  autoStart?: CodegenTypes.WithDefault<boolean, true>;
+
+  onCameraReady?: CodegenTypes.DirectEventHandler<CameraReadyEvent>;
+  onPictureSaved?: CodegenTypes.DirectEventHandler<PictureSavedEvent>;
+  onError?: CodegenTypes.DirectEventHandler<ErrorEvent>;
+  onFrameQuality?: CodegenTypes.DirectEventHandler<FrameQualityEvent>;
+  onPreviewResumed?: CodegenTypes.DirectEventHandler<PreviewResumedEvent>;
+}
+
+type ComponentType = HostComponent<NativeProps>;
+
+interface NativeCommands {
+  // Chụp không qua module: lệnh tới thẳng view, kết quả qua onPictureSaved / onError
+  takePhoto(viewRef: React.ElementRef<ComponentType>): void;
+}
+
+export const Commands: NativeCommands = codegenNativeCommands<NativeCommands>({
+  supportedCommands: ["takePhoto"],
+});
+
+export default codegenNativeComponent<NativeProps>("SevenMDCamera") as ComponentType;